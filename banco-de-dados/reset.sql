@@ -23,7 +23,9 @@ CREATE TABLE IF NOT EXISTS `artigos` (
 	`dataPublicacao`	TEXT NOT NULL,
 	`dataAtualizacao`	TEXT,
 	`conteudo`	TEXT NOT NULL,
-	`permalink`	TEXT NOT NULL UNIQUE
+	`permalink`	TEXT NOT NULL UNIQUE,
+	`commentCount`	INTEGER NOT NULL DEFAULT 0,
+	`lastCommentAt`	TEXT
 );
 DROP TABLE IF EXISTS `artigoAutores`;
 CREATE TABLE IF NOT EXISTS `artigoAutores` (
@@ -32,4 +34,10 @@ CREATE TABLE IF NOT EXISTS `artigoAutores` (
 	FOREIGN KEY(`idAutor`) REFERENCES `autores`(`idAutor`) ON DELETE CASCADE,
 	FOREIGN KEY(`idArtigo`) REFERENCES `artigos`(`idArtigo`) ON DELETE CASCADE
 );
+DROP TABLE IF EXISTS `contagens`;
+DROP TABLE IF EXISTS `migracoes`;
+CREATE INDEX IF NOT EXISTS `artigos_publicacao` ON `artigos` (`dataPublicacao`, `idArtigo`);
+CREATE UNIQUE INDEX IF NOT EXISTS `artigoAutores_artigo_autor` ON `artigoAutores` (`idArtigo`, `idAutor`);
+CREATE INDEX IF NOT EXISTS `artigoAutores_autor` ON `artigoAutores` (`idAutor`);
+CREATE INDEX IF NOT EXISTS `comentarios_artigo` ON `comentarios` (`idArtigo`);
 COMMIT;
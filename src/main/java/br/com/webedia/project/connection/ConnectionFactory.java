@@ -5,8 +5,10 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-
-import org.sqlite.SQLiteConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 import br.com.webedia.project.view.ConsoleView;
 
@@ -14,34 +16,113 @@ import br.com.webedia.project.view.ConsoleView;
  * <h1>ConnectionFactory</h1>
  * <p>
  * Classe que gerencia a conexão com o banco de dados.
+ * <p>
+ * As conexões são emprestadas de um {@link ConnectionPool}, criado na primeira
+ * chamada. Fechar a conexão através do {@link #closeConnection(Connection)}
+ * devolve a conexão para o pool.
+ * </p>
+ * <p>
+ * O pool pode ser configurado com as seguintes propriedades de sistema:
+ * </p>
+ * <ul>
+ * <li>webedia.pool.minimo - Conexões ociosas mantidas abertas (padrão 2).</li>
+ * <li>webedia.pool.maximo - Conexões abertas ao mesmo tempo (padrão 10).</li>
+ * <li>webedia.pool.ocioso - Tempo, em ms, até uma conexão ociosa ser
+ * descartada (padrão 60000).</li>
+ * <li>webedia.pool.espera - Tempo, em ms, de espera por uma conexão livre
+ * (padrão 5000).</li>
+ * <li>webedia.pool.statements - Statements guardados no cache de cada conexão
+ * (padrão 32).</li>
+ * </ul>
+ * <p>
+ * Todas as conexões recebem as configurações do {@link SQLiteProfile}
+ * selecionado.
+ * </p>
+ * <p>
+ * As leituras utilizam um segundo pool, através do
+ * {@link #getReadOnlyConnection()}, com conexões que não aceitam escritas
+ * (PRAGMA query_only). No modo WAL, as leituras rodam em paralelo sem nunca
+ * segurar o lock de escrita. Esse pool é configurado com as propriedades
+ * webedia.leitura.minimo (padrão 2) e webedia.leitura.maximo (padrão duas
+ * conexões por processador, com no mínimo 4).
+ * </p>
+ * <p>
+ * As alterações no banco não utilizam o pool: são enviadas, através do
+ * {@link #write(WriteExecutor.WriteTask)}, para o {@link WriteExecutor}, que
+ * grava as escritas em lotes de até webedia.escrita.lote itens (padrão 64),
+ * esperando até webedia.escrita.janela ms (padrão 0) por novas escritas antes
+ * do commit.
+ * </p>
+ * <p>
+ * Com a propriedade webedia.db.modo=memoria, o arquivo é carregado em um
+ * {@link MemoryDatabase} na primeira conexão, e todas as conexões passam a
+ * usar o banco em memória. O conteúdo é gravado de volta no arquivo a cada
+ * webedia.memoria.intervalo ms (padrão 60000) e no {@link #shutdown()}. Nesse
+ * modo as conexões compartilham o cache, com travas por tabela: um comando que
+ * encontra a tabela travada pelo lote aberto do escritor, ou o escritor que
+ * encontra uma leitura em andamento, é repetido por até
+ * webedia.memoria.trava ms (padrão 5000).
+ * </p>
+ * <p>
+ * Com a propriedade webedia.db.shards maior que 1, os artigos são distribuídos
+ * entre vários arquivos, conforme o {@link ShardRouter}. O primeiro shard é o
+ * arquivo configurado, e os demais ficam ao lado dele (banco-1.db,
+ * banco-2.db...). Os métodos sem o número do shard utilizam o primeiro, que
+ * também tem a cópia completa dos autores.
+ * </p>
  * 
  * @author Victor Corrêa
  *
  */
 public class ConnectionFactory {
 
-	// Constante com o endereço do banco de dados.
-	private static final String URL = "jdbc:sqlite:banco-de-dados/banco.db";
+	// Constante com o arquivo padrão do banco de dados. O arquivo pode ser alterado
+	// com a propriedade webedia.db.arquivo.
+	private static final String ARQUIVO = "banco-de-dados/banco.db";
 
 	// Constante com o driver do banco de dados.
 	private static final String DRIVER = "org.sqlite.JDBC";
 
+	// Arquivos do banco de dados, criados na primeira requisição.
+	private static Shard[] shards;
+
 	/**
-	 * Método que cria a conexão com o banco de dados.
+	 * Método que empresta uma conexão do pool de conexões com o banco de dados.
 	 * 
 	 * @return Objeto do tipo Connection
 	 */
 	public static Connection getConnection() {
 
 		try {
-			// Valida o DRIVER
-			Class.forName(DRIVER); 
+			return getPool().borrow();
+		} catch (Exception e) {
+			String mensagem = "Erro ao conectar banco de dados: " + e.getMessage();
+			ConsoleView.addText(mensagem);
+			throw new RuntimeException(mensagem);
+		}
 
-			// Configuração do SQLite, para utilizar as funções de foreign key.
-			SQLiteConfig config = new SQLiteConfig();
-			config.enforceForeignKeys(true);
+	}
 
-			return DriverManager.getConnection(URL, config.toProperties());
+	/**
+	 * Método que empresta uma conexão somente leitura. Qualquer tentativa de
+	 * escrita através dela resulta em erro.
+	 * 
+	 * @return Objeto do tipo Connection
+	 */
+	public static Connection getReadOnlyConnection() {
+		return getReadOnlyConnection(0);
+	}
+
+	/**
+	 * Método que empresta uma conexão somente leitura de um shard.
+	 * 
+	 * @param shard Número do shard, de 0 a {@link #getShardCount()} - 1.
+	 * @return Objeto do tipo Connection
+	 */
+	public static Connection getReadOnlyConnection(int shard) {
+
+		try {
+			return getShards()[shard].getReadOnlyPool().borrow();
 		} catch (Exception e) {
 			String mensagem = "Erro ao conectar banco de dados: " + e.getMessage();
 			ConsoleView.addText(mensagem);
@@ -51,7 +132,272 @@ public class ConnectionFactory {
 	}
 
 	/**
-	 * Método que finaliza a conexão com o banco de dados.
+	 * Método que retorna o pool de conexões somente leitura do primeiro shard,
+	 * criando-o na primeira chamada.
+	 * 
+	 * @return Objeto do tipo ConnectionPool.
+	 * @throws ClassNotFoundException Caso o driver do banco não seja encontrado.
+	 * @throws SQLException           Caso não seja possível preparar o banco.
+	 */
+	public static ConnectionPool getReadOnlyPool() throws ClassNotFoundException, SQLException {
+		return getShards()[0].getReadOnlyPool();
+	}
+
+	/**
+	 * Método que executa uma escrita no banco de dados, através do escritor
+	 * único. A escrita é gravada junto com as outras que chegarem ao mesmo tempo,
+	 * e o método só retorna depois do commit.
+	 * <p>
+	 * Todos os comandos da escrita formam uma {@link UnitOfWork}: ou todos são
+	 * gravados, ou nenhum é.
+	 * </p>
+	 * 
+	 * @param tarefa Escrita que recebe a conexão de escrita.
+	 * @return Resultado da escrita.
+	 * @throws SQLException Caso a escrita ou o commit falhe.
+	 */
+	public static <T> T write(WriteExecutor.WriteTask<T> tarefa) throws SQLException {
+		return write(0, tarefa);
+	}
+
+	/**
+	 * Método que executa uma escrita no escritor de um shard.
+	 * 
+	 * @param shard  Número do shard, de 0 a {@link #getShardCount()} - 1.
+	 * @param tarefa Escrita que recebe a conexão de escrita do shard.
+	 * @return Resultado da escrita.
+	 * @throws SQLException Caso a escrita ou o commit falhe.
+	 */
+	public static <T> T write(int shard, WriteExecutor.WriteTask<T> tarefa) throws SQLException {
+		return getShards()[shard].getWriter().submit(tarefa);
+	}
+
+	/**
+	 * Método que retorna o escritor do primeiro shard, criando-o na primeira
+	 * chamada.
+	 * 
+	 * @return Objeto do tipo WriteExecutor.
+	 * @throws SQLException Caso o driver do banco não seja encontrado.
+	 */
+	public static WriteExecutor getWriter() throws SQLException {
+		return getShards()[0].getWriter();
+	}
+
+	/**
+	 * Método que retorna o pool de conexões do primeiro shard, criando-o na
+	 * primeira chamada.
+	 * 
+	 * @return Objeto do tipo ConnectionPool.
+	 * @throws ClassNotFoundException Caso o driver do banco não seja encontrado.
+	 * @throws SQLException           Caso não seja possível preparar o banco.
+	 */
+	public static ConnectionPool getPool() throws ClassNotFoundException, SQLException {
+		return getShards()[0].getPool();
+	}
+
+	/**
+	 * @return Quantidade de arquivos (shards) do banco de dados, de acordo com a
+	 *         propriedade webedia.db.shards (padrão 1).
+	 */
+	public static int getShardCount() {
+		return Math.max(1, Integer.getInteger("webedia.db.shards", 1));
+	}
+
+	/**
+	 * @param idArtigo ID do artigo.
+	 * @return Shard onde o artigo está gravado.
+	 */
+	public static int getShard(long idArtigo) {
+		return ShardRouter.getShard(idArtigo, getShardCount());
+	}
+
+	/**
+	 * @param permalink Permalink do artigo.
+	 * @return Shard onde um novo artigo com o permalink é gravado.
+	 */
+	public static int getShard(String permalink) {
+		return ShardRouter.getShard(permalink, getShardCount());
+	}
+
+	/**
+	 * Método que gera o próximo id de uma tabela de um shard, através do
+	 * {@link ShardRouter#nextId(Connection, String, String, int, int)}.
+	 * 
+	 * @param con    Conexão de escrita do shard.
+	 * @param tabela Tabela com a chave AUTOINCREMENT.
+	 * @param coluna Coluna da chave.
+	 * @param shard  Shard da conexão.
+	 * @return Próximo id, ou nulo quando existe apenas um shard.
+	 * @throws SQLException Caso a consulta falhe.
+	 */
+	public static Long nextId(Connection con, String tabela, String coluna, int shard) throws SQLException {
+		return ShardRouter.nextId(con, tabela, coluna, shard, getShardCount());
+	}
+
+	/**
+	 * Método que gera o id seguinte a um id já reservado, sem consultar o banco.
+	 * Usado por quem reserva os ids antes da inserção, e deve ser o único a gerar
+	 * ids para a tabela enquanto reserva.
+	 *
+	 * @param ultimo Último id usado ou reservado no shard. O primeiro é lido com o
+	 *               {@link ShardRouter#ultimoId(Connection, String, String)}.
+	 * @param shard  Shard do novo id.
+	 * @return Próximo id do shard, mesmo com apenas um shard.
+	 */
+	public static long nextId(long ultimo, int shard) {
+		return ShardRouter.proximoId(ultimo, shard, getShardCount());
+	}
+
+	/**
+	 * Método que prepara os arquivos do banco de dados, aplicando as
+	 * {@link Migracoes} pendentes em cada um. Sem essa chamada, os arquivos são
+	 * preparados na primeira conexão.
+	 * 
+	 * @throws SQLException Caso alguma migração falhe.
+	 */
+	public static void migra() throws SQLException {
+		getShards();
+	}
+
+	/**
+	 * Método que grava os bancos em memória nos arquivos. O snapshot é feito entre
+	 * dois lotes do escritor, assim nenhuma escrita pela metade é gravada. Fora do
+	 * modo em memória, não faz nada.
+	 * 
+	 * @throws SQLException Caso a gravação falhe.
+	 */
+	public static void snapshot() throws SQLException {
+
+		Shard[] atuais;
+		synchronized (ConnectionFactory.class) {
+			atuais = shards;
+		}
+
+		if (atuais == null)
+			return;
+
+		for (Shard shard : atuais)
+			shard.snapshot();
+	}
+
+	/**
+	 * Método que retorna os indicadores dos pools de cada shard: conexões abertas,
+	 * em uso e ociosas, statements abertos, acertos e falhas do cache e conexões
+	 * vazadas. Os pools que ainda não foram criados não aparecem.
+	 *
+	 * @return Lista com os indicadores de cada shard, na ordem dos arquivos.
+	 */
+	public static List<Map<String, Object>> getStatus() {
+
+		Shard[] atuais;
+		synchronized (ConnectionFactory.class) {
+			atuais = shards;
+		}
+
+		List<Map<String, Object>> status = new ArrayList<>();
+		if (atuais != null) {
+			for (Shard shard : atuais)
+				status.add(shard.getStatus());
+		}
+
+		return status;
+	}
+
+	/**
+	 * Método que fecha os escritores e os pools de conexões. Uma nova chamada ao
+	 * {@link #getConnection()}, {@link #getReadOnlyConnection()} ou
+	 * {@link #write(WriteExecutor.WriteTask)} cria um novo pool ou escritor.
+	 * <p>
+	 * No modo em memória, o banco é gravado no arquivo depois que todas as
+	 * escritas da fila forem confirmadas.
+	 * </p>
+	 */
+	public static synchronized void shutdown() {
+
+		if (shards == null)
+			return;
+
+		for (Shard shard : shards)
+			shard.close();
+
+		shards = null;
+	}
+
+	// Cria os shards na primeira chamada. Com mais de um shard, os arquivos são
+	// preparados antes de qualquer conexão ser aberta.
+	private static synchronized Shard[] getShards() throws SQLException {
+
+		if (shards == null) {
+
+			try {
+				// Valida o DRIVER
+				Class.forName(DRIVER);
+			} catch (ClassNotFoundException e) {
+				throw new SQLException("Driver do banco de dados não encontrado: " + DRIVER);
+			}
+
+			// Configuração do SQLite, de acordo com o perfil selecionado.
+			ConsoleView.addText("Perfil do banco de dados: " + SQLiteProfile.selecionado());
+
+			String arquivo = System.getProperty("webedia.db.arquivo", ARQUIVO);
+			int total = getShardCount();
+
+			List<String> arquivos = new ArrayList<>(total);
+			arquivos.add(arquivo);
+			for (int i = 1; i < total; i++)
+				arquivos.add(arquivo.endsWith(".db") ? arquivo.substring(0, arquivo.length() - 3) + "-" + i + ".db"
+						: arquivo + "-" + i);
+
+			if (total > 1) {
+				ShardRouter.prepara(arquivos);
+				ConsoleView.addText("Banco de dados distribuído em " + total + " shards");
+			}
+
+			preparaEsquema(arquivos);
+
+			Shard[] novos = new Shard[total];
+			for (int i = 0; i < total; i++)
+				novos[i] = new Shard(i, arquivos.get(i));
+
+			shards = novos;
+		}
+
+		return shards;
+	}
+
+	// Aplica as migrações pendentes em cada arquivo, antes de qualquer conexão dos
+	// pools ser aberta.
+	private static void preparaEsquema(List<String> arquivos) throws SQLException {
+
+		for (String arquivo : arquivos) {
+			try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + arquivo,
+					getPropriedades(SQLiteProfile.selecionado()))) {
+				Migracoes.aplica(con);
+			}
+		}
+	}
+
+	// Arquivos de todos os shards, na ordem.
+	static List<String> getArquivos() throws SQLException {
+
+		List<String> arquivos = new ArrayList<>();
+		for (Shard shard : getShards())
+			arquivos.add(shard.getArquivo());
+
+		return arquivos;
+	}
+
+	// Propriedades do driver, de acordo com o perfil.
+	static Properties getPropriedades(SQLiteProfile perfil) {
+		return perfil.createConfig().toProperties();
+	}
+
+	static boolean isMemoria() {
+		return "memoria".equalsIgnoreCase(System.getProperty("webedia.db.modo"));
+	}
+
+	/**
+	 * Método que finaliza a conexão com o banco de dados, devolvendo-a para o pool.
 	 * 
 	 * @param con Connection a ser finalizada.
 	 */
@@ -76,8 +422,6 @@ public class ConnectionFactory {
 	 * @param stmt PreparedStatement a ser finalizado
 	 */
 	public static void closeConnection(Connection con, PreparedStatement stmt) {
-		// Utiliza sobrecarga para fechar a Connection
-		closeConnection(con);
 		try {
 			// Verifica se o PreparedStatement está fechado. Se não estiver, fecha.
 			if (stmt != null) {
@@ -87,6 +431,10 @@ public class ConnectionFactory {
 			String mensagem = "Erro ao desconectar do banco de dados: " + e.getMessage();
 			ConsoleView.addText(mensagem);
 			throw new RuntimeException(mensagem);
+		} finally {
+			// Utiliza sobrecarga para fechar a Connection. Ela é fechada por último, pois
+			// depois de devolvida ao pool pode ser usada por outra requisição.
+			closeConnection(con);
 		}
 	}
 
@@ -98,8 +446,6 @@ public class ConnectionFactory {
 	 * @param rs   ResultSet a ser finalizado.
 	 */
 	public static void closeConnection(Connection con, PreparedStatement stmt, ResultSet rs) {
-		// Utiliza sobrecarga para fechar a Connection e o PreparedStatement
-		closeConnection(con, stmt);
 		try {
 			// Verifica se o ResultSet está fechado. Se não estiver, fecha.
 			if (rs != null)
@@ -108,6 +454,9 @@ public class ConnectionFactory {
 			String mensagem = "Erro ao desconectar do banco de dados: " + e.getMessage();
 			ConsoleView.addText(mensagem);
 			throw new RuntimeException(mensagem);
+		} finally {
+			// Utiliza sobrecarga para fechar o PreparedStatement e a Connection.
+			closeConnection(con, stmt);
 		}
 	}
 }
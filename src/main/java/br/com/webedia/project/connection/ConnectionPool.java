@@ -0,0 +1,458 @@
+package br.com.webedia.project.connection;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>ConnectionPool</h1>
+ * <p>
+ * Pool limitado de conexões com o banco de dados. As conexões físicas são
+ * reaproveitadas entre as requisições, e o objeto entregue ao chamador é apenas
+ * um "handle": ao fechá-lo, a conexão física volta para o pool em vez de ser
+ * destruída.
+ * </p>
+ * <p>
+ * O pool mantém um número mínimo de conexões ociosas, descarta as que ficarem
+ * ociosas por tempo demais, limita o número máximo de conexões em uso e valida
+ * cada conexão antes de entregá-la.
+ * </p>
+ * <p>
+ * Cada conexão física tem um {@link StatementCache}, e o pool contabiliza os
+ * acertos e falhas de todos eles.
+ * </p>
+ * <p>
+ * Com um tempo de vazamento configurado, o pool guarda a pilha de chamadas de
+ * cada empréstimo. As conexões emprestadas há mais tempo que o limite são
+ * informadas no console junto com essa pilha, uma vez por empréstimo, e
+ * contadas como vazamentos. A conexão continua com quem a pegou, pois uma
+ * leitura ou importação demorada também passa do limite.
+ * </p>
+ * <p>
+ * A recuperação das conexões esquecidas é opcional, com um tempo próprio, que
+ * deve ser bem maior. Só é recuperada a conexão que ficou esse tempo sem
+ * nenhuma chamada no handle, sem statements abertos e sem chamada em
+ * andamento: uma conexão no meio de uma consulta nunca é fechada.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class ConnectionPool {
+
+	// Query utilizada para validar a conexão antes de entregá-la.
+	private static final String VALIDACAO = "SELECT 1;";
+
+	/* Configurações */
+	private final String url;
+	private final Properties propriedades;
+	private final int minimo;
+	private final int maximo;
+	private final long tempoOciosoMaximo;
+	private final long tempoEsperaMaximo;
+	private final int capacidadeCache;
+	private final String inicializacao;
+	private volatile long tempoVazamento;
+	private volatile long tempoRecuperacao;
+	private volatile long esperaTrava;
+
+	/* Estado */
+	private final LinkedBlockingDeque<PooledConnection> ociosas = new LinkedBlockingDeque<>();
+	private final Semaphore permissoes;
+	private final AtomicInteger total = new AtomicInteger();
+	private final AtomicLong acertosCache = new AtomicLong();
+	private final AtomicLong falhasCache = new AtomicLong();
+	private final AtomicInteger statementsAbertos = new AtomicInteger();
+	private final AtomicLong vazamentos = new AtomicLong();
+	private final AtomicLong recuperadas = new AtomicLong();
+	private final Set<PooledConnection> emprestadas = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService evictor;
+	private volatile boolean fechado;
+
+	/**
+	 * Construtor do pool. Assim que é criado, abre o número mínimo de conexões e
+	 * agenda a tarefa que remove as conexões ociosas.
+	 *
+	 * @param url               Endereço JDBC do banco de dados.
+	 * @param propriedades      Propriedades passadas ao driver na abertura.
+	 * @param minimo            Quantidade mínima de conexões ociosas.
+	 * @param maximo            Quantidade máxima de conexões abertas.
+	 * @param tempoOciosoMaximo Tempo, em milissegundos, que uma conexão pode ficar
+	 *                          ociosa antes de ser descartada.
+	 * @param tempoEsperaMaximo Tempo, em milissegundos, que o chamador espera por
+	 *                          uma conexão livre.
+	 * @param capacidadeCache   Quantidade máxima de statements guardados no cache
+	 *                          de cada conexão. Com 0, o cache é desligado.
+	 */
+	public ConnectionPool(String url, Properties propriedades, int minimo, int maximo, long tempoOciosoMaximo,
+			long tempoEsperaMaximo, int capacidadeCache) {
+		this(url, propriedades, minimo, maximo, tempoOciosoMaximo, tempoEsperaMaximo, capacidadeCache, null);
+	}
+
+	/**
+	 * Construtor do pool, com um comando executado em cada nova conexão física.
+	 *
+	 * @param url               Endereço JDBC do banco de dados.
+	 * @param propriedades      Propriedades passadas ao driver na abertura.
+	 * @param minimo            Quantidade mínima de conexões ociosas.
+	 * @param maximo            Quantidade máxima de conexões abertas.
+	 * @param tempoOciosoMaximo Tempo, em milissegundos, que uma conexão pode ficar
+	 *                          ociosa antes de ser descartada.
+	 * @param tempoEsperaMaximo Tempo, em milissegundos, que o chamador espera por
+	 *                          uma conexão livre.
+	 * @param capacidadeCache   Quantidade máxima de statements guardados no cache
+	 *                          de cada conexão. Com 0, o cache é desligado.
+	 * @param inicializacao     Comando sql executado logo após a abertura de cada
+	 *                          conexão, ou nulo.
+	 */
+	public ConnectionPool(String url, Properties propriedades, int minimo, int maximo, long tempoOciosoMaximo,
+			long tempoEsperaMaximo, int capacidadeCache, String inicializacao) {
+
+		if (maximo < 1)
+			throw new IllegalArgumentException("O pool precisa de pelo menos uma conexão!");
+
+		this.url = url;
+		this.propriedades = propriedades;
+		this.maximo = maximo;
+		this.minimo = Math.max(0, Math.min(minimo, maximo));
+		this.tempoOciosoMaximo = tempoOciosoMaximo;
+		this.tempoEsperaMaximo = tempoEsperaMaximo;
+		this.capacidadeCache = capacidadeCache;
+		this.inicializacao = inicializacao;
+		this.permissoes = new Semaphore(maximo, true);
+
+		this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "pool-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+
+		// A verificação roda na metade do tempo ocioso, com um limite de 1 segundo.
+		long intervalo = Math.max(1000, tempoOciosoMaximo / 2);
+		this.evictor.scheduleWithFixedDelay(this::manutencao, 0, intervalo, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Método que define o tempo máximo que uma conexão pode ficar emprestada. Ao
+	 * passar desse tempo, a conexão é considerada vazada e informada no console,
+	 * mas continua emprestada.
+	 *
+	 * @param tempoVazamento Tempo, em milissegundos. Com 0, a verificação é
+	 *                       desligada.
+	 */
+	public void setTempoVazamento(long tempoVazamento) {
+		this.tempoVazamento = tempoVazamento;
+	}
+
+	/**
+	 * Método que liga a recuperação das conexões esquecidas. Uma conexão sem
+	 * chamadas no handle por mais que esse tempo, e sem statements abertos, é
+	 * invalidada e volta para o pool.
+	 *
+	 * @param tempoRecuperacao Tempo, em milissegundos. Com 0, as conexões nunca
+	 *                         são recuperadas.
+	 */
+	public void setTempoRecuperacao(long tempoRecuperacao) {
+		this.tempoRecuperacao = tempoRecuperacao;
+	}
+
+	/**
+	 * Método que define por quanto tempo um comando que encontra a tabela travada
+	 * por outra conexão (SQLITE_LOCKED) é repetido. Necessário no banco em
+	 * memória, onde o busy_timeout não vale para as travas de tabela.
+	 *
+	 * @param esperaTrava Tempo, em milissegundos. Com 0, o erro é repassado na
+	 *                    hora.
+	 */
+	public void setEsperaTrava(long esperaTrava) {
+		this.esperaTrava = esperaTrava;
+	}
+
+	/**
+	 * Método que retira uma conexão do pool. Caso todas estejam em uso, espera até
+	 * o tempo máximo configurado.
+	 *
+	 * @return Handle da conexão. Ao ser fechado, devolve a conexão para o pool.
+	 * @throws SQLException Caso o pool esteja fechado, o tempo de espera se esgote
+	 *                      ou não seja possível abrir uma nova conexão.
+	 */
+	public Connection borrow() throws SQLException {
+
+		if (fechado)
+			throw new SQLException("Pool de conexões fechado!");
+
+		try {
+			if (!permissoes.tryAcquire(tempoEsperaMaximo, TimeUnit.MILLISECONDS))
+				throw new SQLException("Tempo de espera por uma conexão esgotado (" + tempoEsperaMaximo + " ms)");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Espera por uma conexão interrompida");
+		}
+
+		try {
+
+			// Reaproveita uma conexão ociosa, descartando as que falharem na validação.
+			PooledConnection pooled;
+			while ((pooled = ociosas.pollFirst()) != null) {
+				if (valida(pooled))
+					return empresta(pooled);
+				destroi(pooled);
+			}
+
+			return empresta(cria());
+
+		} catch (SQLException | RuntimeException e) {
+			permissoes.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Método que recebe a conexão física de volta, chamado quando o handle é
+	 * fechado.
+	 *
+	 * @param pooled Conexão devolvida.
+	 */
+	void release(PooledConnection pooled) {
+
+		emprestadas.remove(pooled);
+
+		try {
+
+			// Desfaz qualquer transação deixada aberta pelo chamador.
+			Connection con = pooled.getFisica();
+			if (!con.getAutoCommit()) {
+				con.rollback();
+				con.setAutoCommit(true);
+			}
+
+			if (fechado || con.isClosed()) {
+				destroi(pooled);
+			} else {
+				pooled.marcaUso();
+				// A conexão volta para o início da fila, assim as mais usadas ficam
+				// "quentes" e as do fim podem ser descartadas por ociosidade.
+				ociosas.offerFirst(pooled);
+			}
+
+		} catch (SQLException e) {
+			destroi(pooled);
+		} finally {
+			permissoes.release();
+		}
+	}
+
+	/**
+	 * Método que fecha o pool e todas as conexões ociosas. As conexões em uso são
+	 * fechadas assim que forem devolvidas.
+	 */
+	public void close() {
+
+		fechado = true;
+		evictor.shutdownNow();
+
+		PooledConnection pooled;
+		while ((pooled = ociosas.pollFirst()) != null)
+			destroi(pooled);
+	}
+
+	/**
+	 * @return Quantidade de conexões físicas abertas, em uso ou ociosas.
+	 */
+	public int getTotal() {
+		return total.get();
+	}
+
+	/**
+	 * @return Quantidade de conexões ociosas no pool.
+	 */
+	public int getOciosas() {
+		return ociosas.size();
+	}
+
+	/**
+	 * @return Quantidade de conexões em uso.
+	 */
+	public int getEmUso() {
+		return maximo - permissoes.availablePermits();
+	}
+
+	/**
+	 * @return Quantidade de statements reaproveitados do cache.
+	 */
+	public long getAcertosCache() {
+		return acertosCache.get();
+	}
+
+	/**
+	 * @return Quantidade de statements que precisaram ser preparados.
+	 */
+	public long getFalhasCache() {
+		return falhasCache.get();
+	}
+
+	/**
+	 * @return Quantidade de statements abertos nas conexões do pool, incluindo os
+	 *         guardados no cache.
+	 */
+	public int getStatementsAbertos() {
+		return statementsAbertos.get();
+	}
+
+	/**
+	 * @return Quantidade de conexões que ficaram emprestadas além do tempo de
+	 *         vazamento.
+	 */
+	public long getVazamentos() {
+		return vazamentos.get();
+	}
+
+	/**
+	 * @return Quantidade de conexões esquecidas que foram recuperadas pelo pool.
+	 */
+	public long getRecuperadas() {
+		return recuperadas.get();
+	}
+
+	private Connection empresta(PooledConnection pooled) {
+		Connection handle = pooled.abre(tempoVazamento > 0 || tempoRecuperacao > 0);
+		emprestadas.add(pooled);
+		return handle;
+	}
+
+	private PooledConnection cria() throws SQLException {
+
+		total.incrementAndGet();
+
+		Connection fisica = null;
+		try {
+			fisica = DriverManager.getConnection(url, propriedades);
+
+			if (inicializacao != null) {
+				try (Statement stmt = fisica.createStatement()) {
+					stmt.execute(inicializacao);
+				}
+			}
+
+			return new PooledConnection(this, fisica,
+					new StatementCache(capacidadeCache, acertosCache, falhasCache, statementsAbertos, () -> esperaTrava),
+					statementsAbertos);
+
+		} catch (SQLException | RuntimeException e) {
+			total.decrementAndGet();
+			if (fisica != null)
+				fisica.close();
+			throw e;
+		}
+	}
+
+	private boolean valida(PooledConnection pooled) {
+
+		try (Statement stmt = pooled.getFisica().createStatement()) {
+			stmt.execute(VALIDACAO);
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void destroi(PooledConnection pooled) {
+
+		total.decrementAndGet();
+		pooled.getCache().limpa();
+		try {
+			pooled.getFisica().close();
+		} catch (SQLException e) {
+			ConsoleView.addText("Erro ao fechar conexão do pool: " + e.getMessage());
+		}
+	}
+
+	// Informa e recupera as conexões vazadas, remove as conexões ociosas antigas e completa
+	// o número mínimo de conexões.
+	private void manutencao() {
+
+		verificaVazamentos();
+
+		long agora = System.currentTimeMillis();
+
+		Iterator<PooledConnection> it = ociosas.descendingIterator();
+		while (it.hasNext() && ociosas.size() > minimo) {
+			PooledConnection pooled = it.next();
+			if (agora - pooled.getUltimoUso() > tempoOciosoMaximo && ociosas.removeFirstOccurrence(pooled))
+				destroi(pooled);
+		}
+
+		try {
+			while (!fechado && ociosas.size() < minimo && total.get() < maximo)
+				ociosas.offerLast(cria());
+		} catch (SQLException e) {
+			ConsoleView.addText("Erro ao abrir conexão do pool: " + e.getMessage());
+		}
+	}
+
+	// Informa as conexões emprestadas há mais tempo que o limite de vazamento e,
+	// com a recuperação ligada, devolve ao pool as que foram esquecidas.
+	private void verificaVazamentos() {
+
+		long limite = tempoVazamento;
+		long limiteRecuperacao = tempoRecuperacao;
+		if (limite <= 0 && limiteRecuperacao <= 0)
+			return;
+
+		for (PooledConnection pooled : emprestadas) {
+
+			long idade = pooled.getIdadeEmprestimo();
+
+			if (limite > 0 && idade > limite && pooled.informaVazamento()) {
+				vazamentos.incrementAndGet();
+				ConsoleView.addText("Conexão emprestada há " + idade + " ms: " + pilha(pooled));
+			}
+
+			if (limiteRecuperacao > 0 && idade > limiteRecuperacao && pooled.recupera(limiteRecuperacao))
+				recupera(pooled, idade);
+		}
+	}
+
+	// A conexão física é fechada, pois pode ter ficado no meio de uma transação.
+	private void recupera(PooledConnection pooled, long idade) {
+
+		emprestadas.remove(pooled);
+		ConsoleView.addText("Conexão esquecida recuperada após " + idade + " ms: " + pilha(pooled));
+
+		try {
+			Connection con = pooled.getFisica();
+			if (!con.getAutoCommit())
+				con.rollback();
+		} catch (SQLException e) {
+			// A conexão é fechada de qualquer forma.
+		} finally {
+			destroi(pooled);
+			permissoes.release();
+			recuperadas.incrementAndGet();
+		}
+	}
+
+	private static String pilha(PooledConnection pooled) {
+
+		StringWriter pilha = new StringWriter();
+		if (pooled.getOrigem() != null)
+			pooled.getOrigem().printStackTrace(new PrintWriter(pilha));
+		return pilha.toString();
+	}
+}
@@ -0,0 +1,154 @@
+package br.com.webedia.project.connection;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>MemoryDatabase</h1>
+ * <p>
+ * Banco de dados SQLite em memória, compartilhado entre as conexões (shared
+ * cache). Na criação, o conteúdo do arquivo do banco é carregado para a
+ * memória, e a partir daí as leituras e escritas não acessam mais o disco.
+ * </p>
+ * <p>
+ * Para não perder os dados, o banco em memória é gravado de volta no arquivo
+ * (snapshot) através da API de backup online do SQLite: periodicamente e no
+ * fechamento. O encerramento da JVM é tratado pelo {@link Server}, que fecha
+ * os escritores antes do banco em memória.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class MemoryDatabase {
+
+	private final String url;
+	private final String arquivo;
+	private final Runnable snapshotAgendado;
+	private final ScheduledExecutorService agendador;
+
+	// Conexão que mantém o banco em memória vivo enquanto o objeto existir.
+	private final Connection ancora;
+
+	private volatile boolean fechado;
+
+	/**
+	 * Construtor que cria o banco em memória e carrega o conteúdo do arquivo.
+	 *
+	 * @param nome             Nome do banco em memória, único na JVM.
+	 * @param arquivo          Arquivo carregado na criação e atualizado a cada
+	 *                         snapshot.
+	 * @param propriedades     Propriedades passadas ao driver na abertura.
+	 * @param intervalo        Tempo, em milissegundos, entre os snapshots. Com 0,
+	 *                         o snapshot é feito apenas no fechamento.
+	 * @param snapshotAgendado Ação executada a cada intervalo. Quando nula, é
+	 *                         utilizado o {@link #snapshot()}.
+	 * @throws SQLException Caso não seja possível criar o banco ou carregar o
+	 *                      arquivo.
+	 */
+	public MemoryDatabase(String nome, String arquivo, Properties propriedades, long intervalo,
+			Runnable snapshotAgendado) throws SQLException {
+
+		this.url = "jdbc:sqlite:file:" + nome + "?mode=memory&cache=shared";
+		this.arquivo = arquivo;
+		this.snapshotAgendado = snapshotAgendado != null ? snapshotAgendado : this::snapshotSeguro;
+
+		this.ancora = DriverManager.getConnection(url, propriedades);
+
+		// Carrega o arquivo para a memória, usando a API de backup do SQLite.
+		if (new File(arquivo).exists()) {
+			long inicio = System.currentTimeMillis();
+			try (Statement stmt = ancora.createStatement()) {
+				stmt.executeUpdate("restore from " + aspas(arquivo));
+			} catch (SQLException e) {
+				ancora.close();
+				throw e;
+			}
+			ConsoleView.addText("Banco carregado em memória em " + (System.currentTimeMillis() - inicio) + " ms");
+		}
+
+		this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "snapshot-banco");
+			t.setDaemon(true);
+			return t;
+		});
+
+		if (intervalo > 0)
+			agendador.scheduleWithFixedDelay(this.snapshotAgendado, intervalo, intervalo, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return Endereço JDBC do banco em memória.
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Método que grava o conteúdo do banco em memória no arquivo.
+	 * <p>
+	 * O snapshot deve ser feito quando não existir nenhuma transação de escrita
+	 * aberta, pois as conexões em memória compartilham as mesmas páginas.
+	 * </p>
+	 *
+	 * @throws SQLException Caso a gravação falhe.
+	 */
+	public synchronized void snapshot() throws SQLException {
+
+		if (ancora.isClosed())
+			return;
+
+		try (Statement stmt = ancora.createStatement()) {
+			stmt.executeUpdate("backup to " + aspas(arquivo));
+		}
+	}
+
+	/**
+	 * Método que grava o último snapshot e libera o banco em memória. O banco
+	 * deixa de existir assim que todas as conexões com ele forem fechadas.
+	 */
+	public void close() {
+
+		synchronized (this) {
+			if (fechado)
+				return;
+			fechado = true;
+		}
+
+		agendador.shutdownNow();
+
+		try {
+			snapshot();
+			ConsoleView.addText("Banco em memória gravado em " + arquivo);
+		} catch (SQLException e) {
+			ConsoleView.addText("Erro ao gravar banco em memória: " + e.getMessage());
+		}
+
+		try {
+			ancora.close();
+		} catch (SQLException e) {
+			ConsoleView.addText("Erro ao fechar banco em memória: " + e.getMessage());
+		}
+	}
+
+	private void snapshotSeguro() {
+		try {
+			snapshot();
+		} catch (SQLException e) {
+			ConsoleView.addText("Erro ao gravar banco em memória: " + e.getMessage());
+		}
+	}
+
+	private static String aspas(String caminho) {
+		return "\"" + caminho + "\"";
+	}
+}
@@ -0,0 +1,155 @@
+package br.com.webedia.project.connection;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>Migracoes</h1>
+ * <p>
+ * Alterações numeradas do esquema do banco de dados. Cada arquivo guarda, na
+ * tabela migracoes, as versões já aplicadas, e apenas as alterações com número
+ * maior que a última versão são executadas, em ordem.
+ * </p>
+ * <p>
+ * Cada alteração roda em uma transação, junto com o registro da sua versão:
+ * se falhar, o arquivo continua na versão anterior. Uma nova alteração deve ser
+ * adicionada ao final de {@link #MIGRACOES}, nunca no meio nem no lugar de uma
+ * que já foi publicada.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class Migracoes {
+
+	// Uma alteração do esquema, executada na transação aberta na conexão.
+	private interface Migracao {
+		void aplica(Connection con, Statement stmt) throws SQLException;
+	}
+
+	// As alterações, na ordem. A versão de cada uma é a sua posição + 1.
+	private static final Migracao[] MIGRACOES = { Migracoes::resumoComentarios, Migracoes::contagens,
+			Migracoes::indices };
+
+	// Descrição de cada alteração, gravada junto com a versão.
+	private static final String[] DESCRICOES = { "Resumo dos comentários em artigos",
+			"Tabela contagens e índice de publicação", "Índices das relações e autor único por artigo" };
+
+	private Migracoes() {
+	}
+
+	/**
+	 * @return Versão do esquema depois de todas as alterações.
+	 */
+	static int getVersao() {
+		return MIGRACOES.length;
+	}
+
+	/**
+	 * Método que aplica as alterações pendentes em um arquivo.
+	 *
+	 * @param con Conexão com o arquivo, sem transação aberta.
+	 * @return Quantidade de alterações aplicadas.
+	 * @throws SQLException Caso alguma alteração falhe. As anteriores continuam
+	 *                      gravadas.
+	 */
+	static int aplica(Connection con) throws SQLException {
+
+		try (Statement stmt = con.createStatement()) {
+
+			stmt.execute("CREATE TABLE IF NOT EXISTS migracoes (versao INTEGER PRIMARY KEY, descricao TEXT NOT NULL, "
+					+ "data TEXT NOT NULL DEFAULT (datetime('now','localtime')));");
+
+			int atual = getVersao(stmt);
+
+			for (int versao = atual + 1; versao <= MIGRACOES.length; versao++) {
+
+				Migracao migracao = MIGRACOES[versao - 1];
+				String descricao = DESCRICOES[versao - 1];
+				int numero = versao;
+
+				UnitOfWork.run(con, c -> {
+					migracao.aplica(c, stmt);
+					stmt.executeUpdate("INSERT INTO migracoes (versao, descricao) VALUES (" + numero + ", '"
+							+ descricao + "');");
+					return null;
+				});
+
+				ConsoleView.addText("Migração " + versao + " aplicada: " + descricao);
+			}
+
+			return MIGRACOES.length - Math.min(atual, MIGRACOES.length);
+		}
+	}
+
+	// Última versão aplicada no arquivo, ou 0.
+	private static int getVersao(Statement stmt) throws SQLException {
+		try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(versao), 0) FROM migracoes;")) {
+			return rs.getInt(1);
+		}
+	}
+
+	// 1 - As colunas commentCount e lastCommentAt são mantidas pelo ComentarioDAO, e
+	// calculadas aqui a partir dos comentários existentes. Os arquivos criados a
+	// partir do reset.sql já têm as colunas.
+	private static void resumoComentarios(Connection con, Statement stmt) throws SQLException {
+
+		if (!temColuna(con, "artigos", "commentCount")) {
+			stmt.execute("ALTER TABLE artigos ADD COLUMN commentCount INTEGER NOT NULL DEFAULT 0;");
+			stmt.execute("ALTER TABLE artigos ADD COLUMN lastCommentAt TEXT;");
+			stmt.execute("UPDATE artigos SET "
+					+ "commentCount = (SELECT COUNT(*) FROM comentarios WHERE comentarios.idArtigo = artigos.idArtigo), "
+					+ "lastCommentAt = (SELECT MAX(data) FROM comentarios WHERE comentarios.idArtigo = artigos.idArtigo);");
+		}
+	}
+
+	// 2 - artigos_publicacao atende a listagem de artigos por cursor. contagens
+	// guarda o total de linhas de cada tabela. Os triggers mantêm os totais na
+	// mesma transação de cada inserção ou remoção, inclusive nas remoções em
+	// cascata, e os totais são calculados apenas na primeira vez.
+	private static void contagens(Connection con, Statement stmt) throws SQLException {
+
+		stmt.execute("CREATE INDEX IF NOT EXISTS artigos_publicacao ON artigos (dataPublicacao, idArtigo);");
+		stmt.execute("CREATE TABLE IF NOT EXISTS contagens (tabela TEXT PRIMARY KEY, total INTEGER NOT NULL) WITHOUT ROWID;");
+
+		for (String tabela : new String[] { "artigos", "autores", "comentarios" }) {
+			stmt.execute("INSERT OR IGNORE INTO contagens (tabela, total) SELECT '" + tabela + "', COUNT(*) FROM "
+					+ tabela + ";");
+			stmt.execute("CREATE TRIGGER IF NOT EXISTS contagem_" + tabela + "_insert AFTER INSERT ON " + tabela
+					+ " BEGIN UPDATE contagens SET total = total + 1 WHERE tabela = '" + tabela + "'; END;");
+			stmt.execute("CREATE TRIGGER IF NOT EXISTS contagem_" + tabela + "_delete AFTER DELETE ON " + tabela
+					+ " BEGIN UPDATE contagens SET total = total - 1 WHERE tabela = '" + tabela + "'; END;");
+		}
+	}
+
+	// 3 - Índices das buscas por artigo e por autor. O índice único de
+	// artigoAutores começa pelo idArtigo, então também atende as buscas dos autores
+	// de um artigo. As relações repetidas são removidas antes, mantendo a primeira.
+	// O índice de comentários por artigo inclui o rowid (idComentario), e já
+	// devolve os comentários na ordem de inserção.
+	private static void indices(Connection con, Statement stmt) throws SQLException {
+
+		stmt.execute("DELETE FROM artigoAutores WHERE rowid NOT IN "
+				+ "(SELECT MIN(rowid) FROM artigoAutores GROUP BY idArtigo, idAutor);");
+		stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS artigoAutores_artigo_autor ON artigoAutores (idArtigo, idAutor);");
+		stmt.execute("CREATE INDEX IF NOT EXISTS artigoAutores_autor ON artigoAutores (idAutor);");
+		stmt.execute("CREATE INDEX IF NOT EXISTS comentarios_artigo ON comentarios (idArtigo);");
+	}
+
+	// Verifica se a tabela já tem a coluna.
+	private static boolean temColuna(Connection con, String tabela, String coluna) throws SQLException {
+
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + tabela + ");")) {
+			while (rs.next())
+				if (coluna.equals(rs.getString("name")))
+					return true;
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,279 @@
+package br.com.webedia.project.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h1>PooledConnection</h1>
+ * <p>
+ * Conexão física controlada pelo {@link ConnectionPool}. A cada empréstimo é
+ * criado um novo handle, que repassa as chamadas para a conexão física até ser
+ * fechado. Depois de fechado, o handle não pode mais ser usado, os statements
+ * abertos por ele são finalizados e a conexão física volta para o pool.
+ * </p>
+ * <p>
+ * Os PreparedStatements da conexão física são guardados em um
+ * {@link StatementCache}, que continua existindo entre os empréstimos.
+ * </p>
+ * <p>
+ * Cada empréstimo guarda o momento, a última chamada ao handle e, se o pool
+ * pedir, a pilha de chamadas de quem pegou a conexão. Assim o pool consegue
+ * apontar as conexões que nunca foram devolvidas e, se configurado, recuperar
+ * as que estão paradas.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+class PooledConnection {
+
+	private final ConnectionPool pool;
+	private final Connection fisica;
+	private final StatementCache cache;
+	private final AtomicInteger statementsAbertos;
+	private volatile long ultimoUso = System.currentTimeMillis();
+
+	/* Empréstimo atual */
+	private volatile Handle atual;
+	private volatile long emprestimo;
+	private volatile Throwable origem;
+	private boolean informado;
+
+	PooledConnection(ConnectionPool pool, Connection fisica, StatementCache cache, AtomicInteger statementsAbertos) {
+		this.pool = pool;
+		this.fisica = fisica;
+		this.cache = cache;
+		this.statementsAbertos = statementsAbertos;
+	}
+
+	Connection getFisica() {
+		return fisica;
+	}
+
+	StatementCache getCache() {
+		return cache;
+	}
+
+	long getUltimoUso() {
+		return ultimoUso;
+	}
+
+	void marcaUso() {
+		this.ultimoUso = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return Tempo, em milissegundos, desde o empréstimo atual.
+	 */
+	long getIdadeEmprestimo() {
+		return System.currentTimeMillis() - emprestimo;
+	}
+
+	/**
+	 * @return Pilha de chamadas do empréstimo atual, ou nulo se não foi
+	 *         registrada.
+	 */
+	Throwable getOrigem() {
+		return origem;
+	}
+
+	/**
+	 * Método que cria um novo handle para esta conexão.
+	 *
+	 * @param registraOrigem Se verdadeiro, guarda a pilha de chamadas de quem
+	 *                       pegou a conexão.
+	 * @return Objeto do tipo Connection, que devolve a conexão ao pool quando
+	 *         fechado.
+	 */
+	Connection abre(boolean registraOrigem) {
+
+		emprestimo = System.currentTimeMillis();
+		informado = false;
+		origem = registraOrigem ? new Throwable("Conexão emprestada por " + Thread.currentThread().getName()) : null;
+		atual = new Handle();
+
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, atual);
+	}
+
+	/**
+	 * Método que marca o empréstimo atual como vazamento já informado. Chamado
+	 * apenas pela thread de manutenção do pool.
+	 *
+	 * @return Verdadeiro na primeira chamada de cada empréstimo.
+	 */
+	boolean informaVazamento() {
+
+		if (informado)
+			return false;
+
+		informado = true;
+		return true;
+	}
+
+	/**
+	 * Método que invalida o handle atual sem devolver a conexão física, usado
+	 * quando o pool recupera uma conexão esquecida. Qualquer chamada posterior ao
+	 * handle resulta em erro. O handle só é invalidado se estiver sem chamadas há
+	 * mais que o limite, sem statements abertos e sem chamada em andamento.
+	 *
+	 * @param limite Tempo, em milissegundos, sem chamadas no handle.
+	 * @return Verdadeiro se o handle foi invalidado.
+	 */
+	boolean recupera(long limite) {
+		Handle handle = atual;
+		return handle != null && handle.recupera(limite);
+	}
+
+	/**
+	 * Handle entregue ao chamador. Cada empréstimo tem o seu, assim um handle
+	 * antigo nunca consegue usar a conexão depois dela ser devolvida.
+	 */
+	private class Handle implements InvocationHandler {
+
+		private boolean fechado;
+
+		// Trava das chamadas ao handle. O pool só recupera a conexão se conseguir a
+		// trava, sem esperar uma chamada em andamento.
+		private final ReentrantLock trava = new ReentrantLock();
+		private volatile long ultimaChamada = System.currentTimeMillis();
+
+		// Statements criados através deste handle, fechados junto com ele.
+		private final List<Statement> statements = new ArrayList<>();
+
+		// Statements criados direto na conexão física, fora do cache. Contam como
+		// abertos até saírem da lista.
+		private final List<Statement> brutos = new ArrayList<>();
+
+		// Tamanho da lista a partir do qual os statements já fechados são removidos.
+		// Importante para conexões que ficam emprestadas por muito tempo, como a do
+		// escritor.
+		private int limitePoda = 64;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			trava.lock();
+			try {
+				ultimaChamada = System.currentTimeMillis();
+				return executa(proxy, method, args);
+			} finally {
+				trava.unlock();
+			}
+		}
+
+		private Object executa(Object proxy, Method method, Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+			case "close":
+				if (!fechado) {
+					fechado = true;
+					fechaStatements();
+					pool.release(PooledConnection.this);
+				}
+				return null;
+			case "isClosed":
+				return fechado;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection[" + fisica + (fechado ? ", devolvida" : "") + "]";
+			default:
+				break;
+			}
+
+			if (fechado)
+				throw new SQLException("Conexão já foi devolvida ao pool!");
+
+			try {
+				Object retorno;
+				if ("prepareStatement".equals(method.getName()) && StatementCache.cacheavel(args)) {
+					retorno = cache.prepara(fisica, (String) args[0], args.length == 2 ? (Integer) args[1] : null);
+				} else {
+					retorno = method.invoke(fisica, args);
+					if (retorno instanceof Statement) {
+						brutos.add((Statement) retorno);
+						statementsAbertos.incrementAndGet();
+					}
+				}
+
+				if (retorno instanceof Statement) {
+					statements.add((Statement) retorno);
+					if (statements.size() > limitePoda)
+						poda();
+				}
+				return retorno;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		// Chamado pelo pool, de outra thread. Uma chamada em andamento, um statement
+		// aberto ou uma chamada recente indicam que a conexão ainda está sendo usada.
+		private boolean recupera(long limite) {
+
+			if (!trava.tryLock())
+				return false;
+
+			try {
+				if (fechado || System.currentTimeMillis() - ultimaChamada <= limite)
+					return false;
+
+				poda();
+				if (!statements.isEmpty())
+					return false;
+
+				fechado = true;
+				fechaStatements();
+				return true;
+			} finally {
+				trava.unlock();
+			}
+		}
+
+		// Remove da lista os statements que já foram fechados pelo chamador.
+		private void poda() {
+
+			statements.removeIf(PooledConnection::fechado);
+
+			int antes = brutos.size();
+			brutos.removeIf(PooledConnection::fechado);
+			statementsAbertos.addAndGet(brutos.size() - antes);
+
+			limitePoda = Math.max(64, 2 * statements.size());
+		}
+
+		private void fechaStatements() {
+			for (Statement stmt : statements) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					// O statement já estava inválido, nada a fazer.
+				}
+			}
+			statements.clear();
+
+			statementsAbertos.addAndGet(-brutos.size());
+			brutos.clear();
+		}
+	}
+
+	private static boolean fechado(Statement stmt) {
+		try {
+			return stmt.isClosed();
+		} catch (SQLException e) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package br.com.webedia.project.connection;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.Pragma;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.SQLiteConfig.TempStore;
+
+/**
+ * <h1>SQLiteProfile</h1>
+ * <p>
+ * Perfis de configuração aplicados a todas as conexões com o banco de dados. O
+ * perfil é escolhido na inicialização, através da propriedade de sistema
+ * webedia.db.perfil.
+ * </p>
+ * <ul>
+ * <li>PADRAO - Configuração original, apenas com as foreign keys
+ * habilitadas.</li>
+ * <li>PERFORMANCE - Journal em modo WAL, onde leitores não são bloqueados pelo
+ * escritor, synchronous NORMAL, cache de páginas configurável, leitura por
+ * memória mapeada, tabelas temporárias em memória e busy timeout.</li>
+ * </ul>
+ * <p>
+ * Os valores do perfil PERFORMANCE podem ser ajustados com as propriedades
+ * webedia.db.cache (KiB), webedia.db.mmap (bytes) e webedia.db.timeout (ms).
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public enum SQLiteProfile {
+
+	PADRAO {
+		@Override
+		protected void aplica(SQLiteConfig config) {
+			// Mantém as configurações padrões do SQLite.
+		}
+	},
+
+	PERFORMANCE {
+		@Override
+		protected void aplica(SQLiteConfig config) {
+			config.setJournalMode(JournalMode.WAL);
+			config.setSynchronous(SynchronousMode.NORMAL);
+			// Valores negativos indicam o tamanho do cache em KiB, não em páginas.
+			config.setCacheSize(-Integer.getInteger("webedia.db.cache", 16384));
+			config.setPragma(Pragma.MMAP_SIZE, String.valueOf(Long.getLong("webedia.db.mmap", 268435456L)));
+			config.setTempStore(TempStore.MEMORY);
+			config.setBusyTimeout(Integer.getInteger("webedia.db.timeout", 5000));
+		}
+	};
+
+	// Perfil utilizado quando a propriedade não é informada.
+	private static final SQLiteProfile PERFIL_PADRAO = PERFORMANCE;
+
+	/**
+	 * Método que aplica as configurações específicas do perfil.
+	 *
+	 * @param config Configuração que será alterada.
+	 */
+	protected abstract void aplica(SQLiteConfig config);
+
+	/**
+	 * Método que cria a configuração do SQLite para este perfil.
+	 *
+	 * @return Objeto do tipo SQLiteConfig.
+	 */
+	public SQLiteConfig createConfig() {
+
+		// Todos os perfis utilizam as funções de foreign key.
+		SQLiteConfig config = new SQLiteConfig();
+		config.enforceForeignKeys(true);
+
+		aplica(config);
+
+		return config;
+	}
+
+	/**
+	 * Método que retorna o perfil escolhido na propriedade de sistema
+	 * webedia.db.perfil.
+	 *
+	 * @return Perfil selecionado, ou PERFORMANCE caso a propriedade não exista.
+	 */
+	public static SQLiteProfile selecionado() {
+
+		String perfil = System.getProperty("webedia.db.perfil");
+		if (perfil == null)
+			return PERFIL_PADRAO;
+
+		return valueOf(perfil.trim().toUpperCase());
+	}
+}
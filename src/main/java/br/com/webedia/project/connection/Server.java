@@ -2,6 +2,9 @@ package br.com.webedia.project.connection;
 
 import java.io.IOException;
 import java.net.URI;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.glassfish.grizzly.http.server.ErrorPageGenerator;
 import org.glassfish.grizzly.http.server.HttpServer;
@@ -9,6 +12,7 @@ import org.glassfish.grizzly.http.server.Request;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.server.ResourceConfig;
 
+import br.com.webedia.project.dao.FilaDeComentarios;
 import br.com.webedia.project.view.ConsoleView;
 
 /**
@@ -28,12 +32,22 @@ public class Server {
 	
 	private static HttpServer server;
 
+	// Caso a aplicação seja encerrada sem fechar o servidor, grava a fila de
+	// comentários, fecha os escritores e grava o snapshot do banco em memória,
+	// nessa ordem.
+	private static Thread ganchoEncerramento;
+
 	/**
 	 * Método que inicializa o servidor.
 	 * 
 	 * @throws IOException
+	 * @throws SQLException Caso alguma migração do banco de dados falhe.
 	 */
-	public static void startServer() throws IOException {
+	public static void startServer() throws IOException, SQLException {
+
+		// Aplica as migrações pendentes do banco de dados. Se alguma falhar, o
+		// servidor não é iniciado.
+		ConnectionFactory.migra();
 
 		// Cria a configuração da aplicação web.
 		ResourceConfig config = new ResourceConfig().packages("br.com.webedia.project");
@@ -54,9 +68,16 @@ public class Server {
 			}
 		});
 
+		// Aquece o banco de dados e as requisições antes de aceitar conexões.
+		if (WarmUp.isEnabled())
+			WarmUp.run();
+
 		// Inicia o servidor.
 		server.start();
 
+		ganchoEncerramento = new Thread(Server::encerra, "servidor-encerramento");
+		Runtime.getRuntime().addShutdownHook(ganchoEncerramento);
+
 		// Adiciona mensagem no console da interface.
 		ConsoleView.addText("Server iniciado em " + URL);
 
@@ -68,11 +89,39 @@ public class Server {
 	 */
 	public static void closeServer() {
 
-		// Fecha o servidor.
-		server.shutdown();
+		// Fecha o servidor, esperando as requisições em andamento terminarem antes de
+		// fechar a fila e os escritores.
+		try {
+			server.shutdown(Long.getLong("webedia.servidor.espera", 10000), TimeUnit.MILLISECONDS).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			ConsoleView.addText("Erro ao fechar o servidor: " + e.getCause().getMessage());
+		}
+
+		if (ganchoEncerramento != null) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(ganchoEncerramento);
+			} catch (IllegalStateException e) {
+				// A JVM já está sendo encerrada, e o gancho fecha as conexões.
+			}
+			ganchoEncerramento = null;
+		}
+
+		encerra();
 
 		// Adiciona mensagem no console da interface.
 		ConsoleView.addText("Server fechado");
 	}
 
+	// Usado no fechamento do servidor e no encerramento da aplicação.
+	private static void encerra() {
+
+		// Grava os comentários que ainda estão na fila, antes de fechar os escritores.
+		FilaDeComentarios.fecha();
+
+		// Fecha as conexões do pool.
+		ConnectionFactory.shutdown();
+	}
+
 }
@@ -0,0 +1,207 @@
+package br.com.webedia.project.connection;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>Shard</h1>
+ * <p>
+ * Recursos de um arquivo do banco de dados: o pool de conexões, o pool de
+ * leitura, o escritor e, no modo em memória, o {@link MemoryDatabase}. Todos
+ * são criados na primeira utilização, com as configurações descritas no
+ * {@link ConnectionFactory}.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+class Shard {
+
+	// Comando que impede qualquer escrita nas conexões de leitura.
+	private static final String SOMENTE_LEITURA = "PRAGMA query_only = 1;";
+
+	private final int indice;
+	private final String arquivo;
+
+	private MemoryDatabase memoria;
+	private ConnectionPool pool;
+	private ConnectionPool poolLeitura;
+	private WriteExecutor writer;
+
+	Shard(int indice, String arquivo) {
+		this.indice = indice;
+		this.arquivo = arquivo;
+	}
+
+	String getArquivo() {
+		return arquivo;
+	}
+
+	synchronized ConnectionPool getPool() throws SQLException {
+
+		if (pool == null) {
+			pool = new ConnectionPool(getUrl(), ConnectionFactory.getPropriedades(SQLiteProfile.selecionado()),
+					Integer.getInteger("webedia.pool.minimo", 2), Integer.getInteger("webedia.pool.maximo", 10),
+					Long.getLong("webedia.pool.ocioso", 60000), Long.getLong("webedia.pool.espera", 5000),
+					Integer.getInteger("webedia.pool.statements", 32));
+			pool.setTempoVazamento(Long.getLong("webedia.pool.vazamento", 60000));
+			pool.setTempoRecuperacao(Long.getLong("webedia.pool.recuperacao", 0));
+			pool.setEsperaTrava(getEsperaTrava());
+		}
+
+		return pool;
+	}
+
+	synchronized ConnectionPool getReadOnlyPool() throws SQLException {
+
+		if (poolLeitura == null) {
+
+			int maximo = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+			poolLeitura = new ConnectionPool(getUrl(), ConnectionFactory.getPropriedades(SQLiteProfile.selecionado()),
+					Integer.getInteger("webedia.leitura.minimo", 2), Integer.getInteger("webedia.leitura.maximo", maximo),
+					Long.getLong("webedia.pool.ocioso", 60000), Long.getLong("webedia.pool.espera", 5000),
+					Integer.getInteger("webedia.pool.statements", 32), SOMENTE_LEITURA);
+			poolLeitura.setTempoVazamento(Long.getLong("webedia.pool.vazamento", 60000));
+			poolLeitura.setTempoRecuperacao(Long.getLong("webedia.pool.recuperacao", 0));
+			poolLeitura.setEsperaTrava(getEsperaTrava());
+		}
+
+		return poolLeitura;
+	}
+
+	synchronized WriteExecutor getWriter() throws SQLException {
+
+		if (writer == null) {
+
+			// O escritor tem um pool próprio, com apenas uma conexão. Ela fica emprestada
+			// enquanto o escritor existir, por isso não tem tempo de vazamento.
+			ConnectionPool poolEscrita = new ConnectionPool(getUrl(),
+					ConnectionFactory.getPropriedades(SQLiteProfile.selecionado()), 0, 1, 60000,
+					Long.getLong("webedia.pool.espera", 5000), Integer.getInteger("webedia.pool.statements", 32));
+			poolEscrita.setEsperaTrava(getEsperaTrava());
+
+			writer = new WriteExecutor(poolEscrita, Integer.getInteger("webedia.escrita.lote", 64),
+					Long.getLong("webedia.escrita.janela", 0));
+		}
+
+		return writer;
+	}
+
+	/**
+	 * Método que retorna os indicadores dos pools já criados, sem criar nenhum.
+	 *
+	 * @return Mapa com o arquivo e os indicadores de cada pool, pelo nome.
+	 */
+	synchronized Map<String, Object> getStatus() {
+
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("arquivo", arquivo);
+
+		if (pool != null)
+			status.put("pool", getStatus(pool));
+		if (poolLeitura != null)
+			status.put("leitura", getStatus(poolLeitura));
+		if (writer != null)
+			status.put("escrita", getStatus(writer.getPool()));
+
+		return status;
+	}
+
+	/**
+	 * Método que grava o banco em memória no arquivo, entre dois lotes do
+	 * escritor. Fora do modo em memória, não faz nada.
+	 */
+	void snapshot() throws SQLException {
+
+		MemoryDatabase banco;
+		WriteExecutor escritor;
+		synchronized (this) {
+			banco = memoria;
+			escritor = writer;
+		}
+
+		if (banco == null)
+			return;
+
+		if (escritor != null)
+			escritor.runIdle(banco::snapshot);
+		else
+			banco.snapshot();
+	}
+
+	/**
+	 * Método que fecha o escritor, os pools e o banco em memória, nessa ordem.
+	 */
+	synchronized void close() {
+
+		// O escritor é fechado primeiro, gravando as escritas que estão na fila.
+		if (writer != null) {
+			writer.close();
+			writer = null;
+		}
+
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
+
+		if (poolLeitura != null) {
+			poolLeitura.close();
+			poolLeitura = null;
+		}
+
+		if (memoria != null) {
+			memoria.close();
+			memoria = null;
+		}
+	}
+
+	// Endereço JDBC do arquivo, ou do banco em memória carregado a partir dele.
+	private String getUrl() throws SQLException {
+
+		if (!ConnectionFactory.isMemoria())
+			return "jdbc:sqlite:" + arquivo;
+
+		if (memoria == null) {
+			// O nome é único para que um novo banco nunca reaproveite o anterior.
+			memoria = new MemoryDatabase("webedia-" + indice + "-" + System.nanoTime(), arquivo,
+					ConnectionFactory.getPropriedades(SQLiteProfile.selecionado()),
+					Long.getLong("webedia.memoria.intervalo", 60000), this::snapshotAgendado);
+			ConsoleView.addText("Banco de dados em memória: " + arquivo);
+		}
+
+		return memoria.getUrl();
+	}
+
+	private void snapshotAgendado() {
+		try {
+			snapshot();
+		} catch (SQLException e) {
+			ConsoleView.addText("Erro ao gravar banco em memória: " + e.getMessage());
+		}
+	}
+
+	// No banco em memória, as conexões leem apenas dados confirmados, e disputam as
+	// travas de tabela com o escritor.
+	private static long getEsperaTrava() {
+		return ConnectionFactory.isMemoria() ? Long.getLong("webedia.memoria.trava", 5000) : 0;
+	}
+
+	private static Map<String, Object> getStatus(ConnectionPool pool) {
+
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("conexoesAbertas", pool.getTotal());
+		status.put("conexoesEmUso", pool.getEmUso());
+		status.put("conexoesOciosas", pool.getOciosas());
+		status.put("statementsAbertos", pool.getStatementsAbertos());
+		status.put("acertosCache", pool.getAcertosCache());
+		status.put("falhasCache", pool.getFalhasCache());
+		status.put("vazamentos", pool.getVazamentos());
+		status.put("recuperadas", pool.getRecuperadas());
+		return status;
+	}
+}
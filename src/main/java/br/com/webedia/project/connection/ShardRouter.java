@@ -0,0 +1,220 @@
+package br.com.webedia.project.connection;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.sqlite.SQLiteConfig;
+
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>ShardRouter</h1>
+ * <p>
+ * Regras de distribuição dos artigos entre os arquivos (shards) do banco de
+ * dados. Cada artigo fica, junto com as suas relações em artigoAutores e os
+ * seus comentários, no shard dado pelo resto da divisão do idArtigo pelo
+ * número de shards. A tabela de autores é copiada em todos os shards.
+ * </p>
+ * <p>
+ * Um artigo novo é colocado no shard dado pelo hash do permalink, assim
+ * artigos com o mesmo título caem no mesmo arquivo e a restrição UNIQUE
+ * continua valendo. O id é então gerado dentro do shard, sempre com o resto
+ * igual ao número do shard: os ids nunca se repetem entre os arquivos, e o
+ * shard de um artigo pode ser calculado a partir do id, mesmo que o título
+ * mude depois. Os comentários seguem a mesma regra para os seus ids.
+ * </p>
+ * <p>
+ * Depois de uma troca de título, o artigo continua no shard do id, fora do
+ * shard do novo permalink. Por isso a criação e a troca de título também
+ * procuram o permalink nos outros shards, no ArtigoDAO.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class ShardRouter {
+
+	/**
+	 * @param idArtigo ID do artigo.
+	 * @param total    Número de shards.
+	 * @return Shard onde o artigo está gravado.
+	 */
+	public static int getShard(long idArtigo, int total) {
+		return (int) Math.floorMod(idArtigo, (long) total);
+	}
+
+	/**
+	 * @param permalink Permalink do artigo.
+	 * @param total     Número de shards.
+	 * @return Shard onde um novo artigo com o permalink é gravado.
+	 */
+	public static int getShard(String permalink, int total) {
+		// O hashCode de String é definido pela especificação, logo é estável entre
+		// execuções e versões da JVM.
+		return Math.floorMod(permalink.hashCode(), total);
+	}
+
+	/**
+	 * Método que gera o próximo id de uma tabela dentro de um shard. Deve ser
+	 * chamado pelo escritor do shard, assim nenhuma outra inserção acontece entre
+	 * a geração e o uso do id.
+	 *
+	 * @param con    Conexão de escrita do shard.
+	 * @param tabela Tabela com a chave AUTOINCREMENT.
+	 * @param coluna Coluna da chave.
+	 * @param shard  Shard da conexão.
+	 * @param total  Número de shards.
+	 * @return Próximo id, com o resto da divisão pelo total igual ao shard. Com
+	 *         apenas um shard, retorna nulo e o id é gerado pelo próprio SQLite.
+	 * @throws SQLException Caso a consulta falhe.
+	 */
+	public static Long nextId(Connection con, String tabela, String coluna, int shard, int total)
+			throws SQLException {
+
+		if (total <= 1)
+			return null;
+
+		return proximoId(ultimoId(con, tabela, coluna), shard, total);
+	}
+
+	/**
+	 * Método que retorna o maior id já usado em uma tabela, considerando também os
+	 * removidos (sqlite_sequence).
+	 *
+	 * @param con    Conexão com o shard.
+	 * @param tabela Tabela com a chave AUTOINCREMENT.
+	 * @param coluna Coluna da chave.
+	 * @return Maior id já usado, ou 0.
+	 * @throws SQLException Caso a consulta falhe.
+	 */
+	public static long ultimoId(Connection con, String tabela, String coluna) throws SQLException {
+
+		String sql = "SELECT MAX(COALESCE((SELECT seq FROM sqlite_sequence WHERE name = '" + tabela
+				+ "'), 0), COALESCE((SELECT MAX(" + coluna + ") FROM " + tabela + "), 0));";
+
+		try (PreparedStatement stmt = con.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * @param ultimo Último id usado no shard.
+	 * @param shard  Shard do novo id.
+	 * @param total  Número de shards.
+	 * @return Menor id maior que o último, com o resto da divisão pelo total
+	 *         igual ao shard.
+	 */
+	public static long proximoId(long ultimo, int shard, int total) {
+		long proximo = ultimo + 1;
+		return proximo + Math.floorMod(shard - proximo, (long) total);
+	}
+
+	/**
+	 * Método que prepara os arquivos dos shards. Os arquivos que não existem são
+	 * criados a partir do primeiro, apenas com os autores, e os artigos que não
+	 * estão no shard correto são movidos, com as relações e os comentários. Assim
+	 * um banco com um único arquivo é distribuído na primeira execução com mais
+	 * de um shard.
+	 *
+	 * @param arquivos Arquivos dos shards, na ordem. O primeiro deve existir.
+	 * @throws SQLException Caso não seja possível criar ou atualizar os arquivos.
+	 */
+	public static void prepara(List<String> arquivos) throws SQLException {
+
+		int total = arquivos.size();
+
+		for (int i = 1; i < total; i++) {
+			if (!new File(arquivos.get(i)).exists())
+				cria(arquivos.get(0), arquivos.get(i));
+		}
+
+		for (int origem = 0; origem < total; origem++) {
+			for (int destino = 0; destino < total; destino++) {
+				if (origem != destino)
+					move(arquivos.get(origem), arquivos.get(destino), destino, total);
+			}
+		}
+	}
+
+	// Cria o arquivo de um shard com o esquema e os autores do primeiro shard.
+	private static void cria(String modelo, String arquivo) throws SQLException {
+
+		try (Connection con = abre(modelo); Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("backup to \"" + arquivo + "\"");
+		}
+
+		try (Connection con = abre(arquivo); Statement stmt = con.createStatement()) {
+			con.setAutoCommit(false);
+			stmt.executeUpdate("DELETE FROM comentarios;");
+			stmt.executeUpdate("DELETE FROM artigoAutores;");
+			stmt.executeUpdate("DELETE FROM artigos;");
+			con.commit();
+		}
+
+		ConsoleView.addText("Shard criado: " + arquivo);
+	}
+
+	// Move, do arquivo de origem para o de destino, os artigos que pertencem ao
+	// shard de destino.
+	private static void move(String origem, String destino, int shard, int total) throws SQLException {
+
+		try (Connection con = abre(origem)) {
+
+			try (PreparedStatement stmt = con
+					.prepareStatement("SELECT COUNT(*) FROM artigos WHERE idArtigo % ? = ?;")) {
+				stmt.setInt(1, total);
+				stmt.setInt(2, shard);
+				try (ResultSet rs = stmt.executeQuery()) {
+					if (rs.getInt(1) == 0)
+						return;
+				}
+			}
+
+			try (PreparedStatement stmt = con.prepareStatement("ATTACH DATABASE ? AS destino;")) {
+				stmt.setString(1, destino);
+				stmt.execute();
+			}
+
+			try {
+
+				con.setAutoCommit(false);
+
+				String filtro = " WHERE idArtigo % " + total + " = " + shard + ";";
+
+				int artigos;
+				try (Statement stmt = con.createStatement()) {
+					artigos = stmt.executeUpdate("INSERT INTO destino.artigos SELECT * FROM main.artigos" + filtro);
+					stmt.executeUpdate("INSERT INTO destino.artigoAutores SELECT * FROM main.artigoAutores" + filtro);
+					stmt.executeUpdate("INSERT INTO destino.comentarios SELECT * FROM main.comentarios" + filtro);
+					stmt.executeUpdate("DELETE FROM main.comentarios" + filtro);
+					stmt.executeUpdate("DELETE FROM main.artigoAutores" + filtro);
+					stmt.executeUpdate("DELETE FROM main.artigos" + filtro);
+				}
+
+				con.commit();
+				ConsoleView.addText(artigos + " artigo(s) movido(s) de " + origem + " para " + destino);
+
+			} catch (SQLException e) {
+				con.rollback();
+				throw e;
+			} finally {
+				con.setAutoCommit(true);
+				try (Statement stmt = con.createStatement()) {
+					stmt.execute("DETACH DATABASE destino;");
+				}
+			}
+		}
+	}
+
+	private static Connection abre(String arquivo) throws SQLException {
+		SQLiteConfig config = new SQLiteConfig();
+		config.enforceForeignKeys(true);
+		return DriverManager.getConnection("jdbc:sqlite:" + arquivo, config.toProperties());
+	}
+}
@@ -0,0 +1,271 @@
+package br.com.webedia.project.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.sqlite.SQLiteErrorCode;
+
+/**
+ * <h1>StatementCache</h1>
+ * <p>
+ * Cache de PreparedStatements de uma conexão física, indexado pelo texto do
+ * sql. Assim o SQLite não precisa interpretar e planejar novamente os mesmos
+ * comandos a cada requisição.
+ * </p>
+ * <p>
+ * O statement entregue ao chamador é um handle: ao ser fechado, seus
+ * parâmetros são limpos e o statement físico volta para o cache. O cache tem
+ * um tamanho máximo, e os statements menos usados são finalizados quando
+ * removidos.
+ * </p>
+ * <p>
+ * No banco em memória (shared cache), um comando que encontra a tabela travada
+ * por outra conexão falha com SQLITE_LOCKED, sem esperar pelo busy_timeout. Com
+ * um tempo de espera configurado, a execução é repetida até a trava ser
+ * liberada ou o tempo acabar.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+class StatementCache {
+
+	private final int capacidade;
+	private final AtomicLong acertos;
+	private final AtomicLong falhas;
+	private final AtomicInteger abertos;
+	private final LongSupplier esperaTrava;
+
+	// Statements livres, do menos para o mais usado recentemente.
+	private final LinkedHashMap<String, PreparedStatement> livres = new LinkedHashMap<>(16, 0.75f, true);
+
+	StatementCache(int capacidade, AtomicLong acertos, AtomicLong falhas, AtomicInteger abertos,
+			LongSupplier esperaTrava) {
+		this.capacidade = capacidade;
+		this.acertos = acertos;
+		this.falhas = falhas;
+		this.abertos = abertos;
+		this.esperaTrava = esperaTrava;
+	}
+
+	/**
+	 * Método que retorna um statement para o sql, reaproveitando um do cache se
+	 * existir.
+	 *
+	 * @param fisica Conexão física, usada caso o statement não esteja no cache.
+	 * @param sql    Comando sql do statement.
+	 * @param chaves Valor de Statement.RETURN_GENERATED_KEYS, ou nulo se o
+	 *               statement foi pedido sem essa opção.
+	 * @return Handle do statement.
+	 * @throws SQLException Caso não seja possível preparar o statement.
+	 */
+	PreparedStatement prepara(Connection fisica, String sql, Integer chaves) throws SQLException {
+
+		String chave = chaves == null ? sql : chaves + ":" + sql;
+
+		PreparedStatement fisico;
+		synchronized (this) {
+			fisico = livres.remove(chave);
+		}
+
+		if (fisico != null && !fisico.isClosed()) {
+			acertos.incrementAndGet();
+		} else {
+			if (fisico != null)
+				abertos.decrementAndGet();
+			falhas.incrementAndGet();
+			fisico = chaves == null ? fisica.prepareStatement(sql) : fisica.prepareStatement(sql, chaves);
+			abertos.incrementAndGet();
+		}
+
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new Handle(chave, fisico));
+	}
+
+	/**
+	 * Método que finaliza todos os statements livres do cache.
+	 */
+	void limpa() {
+
+		List<PreparedStatement> removidos;
+		synchronized (this) {
+			removidos = new ArrayList<>(livres.values());
+			livres.clear();
+		}
+
+		for (PreparedStatement stmt : removidos)
+			finaliza(stmt);
+	}
+
+	/**
+	 * @return Quantidade de statements livres no cache.
+	 */
+	synchronized int getTamanho() {
+		return livres.size();
+	}
+
+	// Devolve o statement para o cache, finalizando os que não couberem.
+	private void devolve(String chave, PreparedStatement fisico) {
+
+		List<PreparedStatement> removidos = new ArrayList<>();
+
+		synchronized (this) {
+
+			// Se já existe um statement livre para o mesmo sql, este é finalizado.
+			if (capacidade <= 0 || livres.containsKey(chave)) {
+				removidos.add(fisico);
+			} else {
+				livres.put(chave, fisico);
+
+				Iterator<Map.Entry<String, PreparedStatement>> it = livres.entrySet().iterator();
+				while (livres.size() > capacidade && it.hasNext()) {
+					removidos.add(it.next().getValue());
+					it.remove();
+				}
+			}
+		}
+
+		for (PreparedStatement stmt : removidos)
+			finaliza(stmt);
+	}
+
+	private void finaliza(PreparedStatement stmt) {
+		abertos.decrementAndGet();
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			// O statement já estava inválido, nada a fazer.
+		}
+	}
+
+	/**
+	 * Handle entregue ao chamador. Os ResultSets abertos através dele são
+	 * fechados junto com o handle, antes do statement voltar para o cache.
+	 */
+	private class Handle implements InvocationHandler {
+
+		private final String chave;
+		private final PreparedStatement fisico;
+		private final List<ResultSet> resultados = new ArrayList<>();
+		private boolean fechado;
+
+		private Handle(String chave, PreparedStatement fisico) {
+			this.chave = chave;
+			this.fisico = fisico;
+		}
+
+		@Override
+		public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+			case "close":
+				if (!fechado) {
+					fechado = true;
+					libera();
+				}
+				return null;
+			case "isClosed":
+				return fechado;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "CachedStatement[" + chave + "]";
+			default:
+				break;
+			}
+
+			if (fechado)
+				throw new SQLException("Statement já foi fechado!");
+
+			Object retorno = executa(method, args);
+			if (retorno instanceof ResultSet)
+				resultados.add((ResultSet) retorno);
+			return retorno;
+		}
+
+		// As travas de tabela são pegas no início do comando, assim uma execução que
+		// falhou com SQLITE_LOCKED não alterou nada e pode ser repetida.
+		private Object executa(Method method, Object[] args) throws Throwable {
+
+			long limite = 0;
+
+			while (true) {
+				try {
+					return method.invoke(fisico, args);
+				} catch (InvocationTargetException e) {
+
+					Throwable causa = e.getCause();
+					long espera = esperaTrava.getAsLong();
+					if (espera <= 0 || !method.getName().startsWith("execute") || !travada(causa))
+						throw causa;
+
+					if (limite == 0)
+						limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(espera);
+					else if (System.nanoTime() - limite >= 0)
+						throw causa;
+
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e1) {
+						Thread.currentThread().interrupt();
+						throw causa;
+					}
+				}
+			}
+		}
+
+		private void libera() {
+
+			try {
+				for (ResultSet rs : resultados)
+					rs.close();
+				resultados.clear();
+
+				fisico.clearParameters();
+				fisico.clearBatch();
+			} catch (SQLException e) {
+				// Statement em estado inválido não volta para o cache.
+				finaliza(fisico);
+				return;
+			}
+
+			devolve(chave, fisico);
+		}
+	}
+
+	private static boolean travada(Throwable erro) {
+		return erro instanceof SQLException
+				&& ((SQLException) erro).getErrorCode() == SQLiteErrorCode.SQLITE_LOCKED.code;
+	}
+
+	/**
+	 * Método que indica se a chamada de prepareStatement pode usar o cache.
+	 * Apenas as versões (String) e (String, int) são guardadas.
+	 *
+	 * @param args Argumentos da chamada.
+	 * @return Verdadeiro se a chamada pode usar o cache.
+	 */
+	static boolean cacheavel(Object[] args) {
+		return args != null && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer
+				&& ((Integer) args[1] == Statement.RETURN_GENERATED_KEYS
+						|| (Integer) args[1] == Statement.NO_GENERATED_KEYS)));
+	}
+}
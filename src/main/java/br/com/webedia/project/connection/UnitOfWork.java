@@ -0,0 +1,90 @@
+package br.com.webedia.project.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * <h1>UnitOfWork</h1>
+ * <p>
+ * Classe que executa um conjunto de comandos como uma unidade: ou todos são
+ * gravados, ou nenhum é. Assim os leitores nunca enxergam um estado pela
+ * metade, como um artigo sem as relações com os autores, e o SQLite faz apenas
+ * um commit (e um fsync) para todos os comandos.
+ * </p>
+ * <p>
+ * Se a conexão estiver em modo autocommit, a unidade abre e confirma a própria
+ * transação. Se a conexão já estiver dentro de uma transação, como a do
+ * {@link WriteExecutor}, a unidade roda em um savepoint: em caso de falha,
+ * apenas os seus comandos são desfeitos, e o commit fica com a transação de
+ * fora.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class UnitOfWork {
+
+	/**
+	 * Método que executa a tarefa como uma unidade na conexão recebida.
+	 *
+	 * @param con    Conexão onde a tarefa é executada. Ao final, a conexão volta
+	 *               ao modo de transação em que estava.
+	 * @param tarefa Comandos a serem executados.
+	 * @return Resultado da tarefa.
+	 * @throws SQLException Caso algum comando falhe. Nesse caso, todos os comandos
+	 *                      da tarefa são desfeitos.
+	 */
+	public static <T> T run(Connection con, WriteExecutor.WriteTask<T> tarefa) throws SQLException {
+
+		if (!con.getAutoCommit())
+			return runSavepoint(con, tarefa);
+
+		con.setAutoCommit(false);
+
+		try {
+
+			T resultado = tarefa.executa(con);
+			con.commit();
+			return resultado;
+
+		} catch (SQLException | RuntimeException e) {
+			desfaz(con, null, e);
+			throw e;
+		} finally {
+			con.setAutoCommit(true);
+		}
+	}
+
+	// Executa a tarefa dentro da transação já aberta na conexão.
+	private static <T> T runSavepoint(Connection con, WriteExecutor.WriteTask<T> tarefa) throws SQLException {
+
+		Savepoint savepoint = con.setSavepoint();
+
+		try {
+
+			T resultado = tarefa.executa(con);
+			con.releaseSavepoint(savepoint);
+			return resultado;
+
+		} catch (SQLException | RuntimeException e) {
+			desfaz(con, savepoint, e);
+			throw e;
+		}
+	}
+
+	// Desfaz a unidade, guardando um possível erro do rollback junto ao erro
+	// original.
+	private static void desfaz(Connection con, Savepoint savepoint, Exception erro) {
+		try {
+			if (savepoint == null) {
+				con.rollback();
+			} else {
+				con.rollback(savepoint);
+				con.releaseSavepoint(savepoint);
+			}
+		} catch (SQLException e) {
+			erro.addSuppressed(e);
+		}
+	}
+}
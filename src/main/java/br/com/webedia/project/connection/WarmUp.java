@@ -0,0 +1,307 @@
+package br.com.webedia.project.connection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import br.com.webedia.project.dao.ArtigoDAO;
+import br.com.webedia.project.dao.AutorDAO;
+import br.com.webedia.project.dao.ComentarioDAO;
+import br.com.webedia.project.model.Artigo;
+import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.resource.ArtigoResource;
+import br.com.webedia.project.resource.AutorResource;
+import br.com.webedia.project.resource.ComentarioResource;
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>WarmUp</h1>
+ * <p>
+ * Aquecimento executado antes do servidor aceitar requisições. Sem ele, as
+ * primeiras requisições encontram o cache de páginas vazio, os statements
+ * ainda não preparados e o código do Gson e do JDBC ainda interpretado pela
+ * JVM.
+ * </p>
+ * <p>
+ * O aquecimento tem três etapas, e o tempo de cada uma é enviado para o
+ * console:
+ * </p>
+ * <ol>
+ * <li>Leitura completa dos arquivos do banco, que carrega as tabelas e os
+ * índices no cache do sistema operacional.</li>
+ * <li>Leitura das tabelas e índices em cada conexão mínima dos pools e no
+ * escritor, que abre as conexões e carrega o cache de páginas de cada uma.</li>
+ * <li>Execução repetida dos métodos de leitura dos recursos, em paralelo, até
+ * a latência média estabilizar. Assim os statements ficam no cache e a JVM
+ * compila o código das requisições.</li>
+ * </ol>
+ * <p>
+ * O aquecimento é habilitado com a propriedade webedia.aquecimento=true, e
+ * limitado por webedia.aquecimento.rodadas (padrão 30) e
+ * webedia.aquecimento.tempo (padrão 10000 ms). Nenhuma escrita é feita no
+ * banco.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class WarmUp {
+
+	// Chamadas de cada thread por rodada.
+	private static final int ITERACOES = 20;
+
+	// Variação máxima da latência média entre duas rodadas para considerá-la
+	// estável.
+	private static final double TOLERANCIA = 0.1;
+
+	// Rodadas estáveis seguidas para encerrar o aquecimento.
+	private static final int RODADAS_ESTAVEIS = 3;
+
+	/**
+	 * @return Verdadeiro se o aquecimento está habilitado.
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean("webedia.aquecimento");
+	}
+
+	/**
+	 * Método que executa todas as etapas do aquecimento. Uma falha em uma etapa
+	 * é enviada para o console e não impede as seguintes, nem o início do
+	 * servidor.
+	 */
+	public static void run() {
+
+		long inicio = System.nanoTime();
+		ConsoleView.addText("Aquecimento iniciado");
+
+		try {
+			etapa("leitura dos arquivos", WarmUp::leArquivos);
+			etapa("conexões, tabelas e índices", WarmUp::preparaConexoes);
+			etapa("execução dos recursos", WarmUp::exercitaRecursos);
+		} finally {
+			ConsoleView.addText("Aquecimento concluído em " + milissegundos(inicio) + " ms");
+		}
+	}
+
+	@FunctionalInterface
+	private interface Etapa {
+		String executa() throws Exception;
+	}
+
+	private static void etapa(String nome, Etapa etapa) {
+
+		long inicio = System.nanoTime();
+
+		try {
+			String detalhe = etapa.executa();
+			ConsoleView.addText("Aquecimento - " + nome + ": " + milissegundos(inicio) + " ms"
+					+ (detalhe == null ? "" : " (" + detalhe + ")"));
+		} catch (Exception e) {
+			ConsoleView.addText("Aquecimento - " + nome + " falhou em " + milissegundos(inicio) + " ms: " + e);
+		}
+	}
+
+	// Etapa 1: lê os arquivos do banco, incluindo o WAL, do início ao fim.
+	private static String leArquivos() throws IOException, SQLException {
+
+		if (ConnectionFactory.isMemoria())
+			return "banco em memória, nada a ler";
+
+		long bytes = 0;
+		byte[] buffer = new byte[1 << 16];
+
+		for (String arquivo : ConnectionFactory.getArquivos()) {
+			for (File parte : new File[] { new File(arquivo), new File(arquivo + "-wal") }) {
+
+				if (!parte.exists())
+					continue;
+
+				try (InputStream in = Files.newInputStream(parte.toPath())) {
+					int lidos;
+					while ((lidos = in.read(buffer)) > 0)
+						bytes += lidos;
+				}
+			}
+		}
+
+		return (bytes / 1024) + " KiB";
+	}
+
+	// Etapa 2: abre as conexões mínimas de cada pool e lê as tabelas e os índices
+	// em cada uma delas e no escritor.
+	private static String preparaConexoes() throws SQLException {
+
+		int leitura = Math.max(1, Integer.getInteger("webedia.leitura.minimo", 2));
+		int conexoes = 0;
+
+		for (int shard = 0; shard < ConnectionFactory.getShardCount(); shard++) {
+
+			// As conexões ficam emprestadas ao mesmo tempo, para que cada uma seja
+			// uma conexão física diferente.
+			List<Connection> emprestadas = new ArrayList<>();
+			try {
+				for (int i = 0; i < leitura; i++) {
+					Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+					emprestadas.add(con);
+					leTabelas(con);
+				}
+			} finally {
+				for (Connection con : emprestadas)
+					ConnectionFactory.closeConnection(con);
+			}
+
+			ConnectionFactory.write(shard, con -> {
+				leTabelas(con);
+				return null;
+			});
+
+			conexoes += emprestadas.size() + 1;
+		}
+
+		Connection con = ConnectionFactory.getConnection();
+		ConnectionFactory.closeConnection(con);
+
+		return conexoes + " conexões";
+	}
+
+	// Percorre todas as tabelas e índices do banco na conexão.
+	private static void leTabelas(Connection con) throws SQLException {
+
+		List<String> consultas = new ArrayList<>();
+
+		String sql = "SELECT type, name, tbl_name FROM sqlite_master WHERE type IN ('table', 'index') AND tbl_name NOT LIKE 'sqlite_%';";
+		try (PreparedStatement stmt = con.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				if ("table".equals(rs.getString("type")))
+					consultas.add("SELECT * FROM \"" + rs.getString("name") + "\";");
+				else
+					consultas.add("SELECT COUNT(*) FROM \"" + rs.getString("tbl_name") + "\" INDEXED BY \""
+							+ rs.getString("name") + "\";");
+			}
+		}
+
+		for (String consulta : consultas) {
+			try (PreparedStatement stmt = con.prepareStatement(consulta); ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					// Apenas percorre as linhas.
+				}
+			}
+		}
+	}
+
+	// Etapa 3: executa os métodos de leitura dos recursos até a latência média
+	// estabilizar.
+	private static String exercitaRecursos() throws Exception {
+
+		int threads = Math.max(1, Integer.getInteger("webedia.leitura.minimo", 2));
+		int rodadasMaximas = Integer.getInteger("webedia.aquecimento.rodadas", 30);
+		long limite = System.nanoTime() + Long.getLong("webedia.aquecimento.tempo", 10000) * 1_000_000L;
+
+		// Exemplos de cada recurso, lidos da primeira página das listas.
+		List<String> permalinks = new ArrayList<>();
+		for (Artigo artigo : new ArtigoDAO().listArtigo(5, 1).getArtigos())
+			permalinks.add(artigo.getPermalink());
+
+		List<Long> autores = new ArrayList<>();
+		for (Autor autor : new AutorDAO().listAutor(5, 1).getAutores())
+			autores.add(autor.getId());
+
+		List<Long> comentarios = new ArrayList<>();
+		for (Comentario comentario : new ComentarioDAO().listComentario(5, 1, null).getComentarios())
+			comentarios.add(comentario.getId());
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+
+			double anterior = 0;
+			double media = 0;
+			int estaveis = 0;
+			int rodada = 0;
+
+			while (rodada < rodadasMaximas && estaveis < RODADAS_ESTAVEIS && System.nanoTime() < limite) {
+
+				rodada++;
+
+				List<Future<Long>> tempos = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					int deslocamento = t;
+					tempos.add(executor.submit(() -> exercita(deslocamento, permalinks, autores, comentarios)));
+				}
+
+				long total = 0;
+				for (Future<Long> tempo : tempos)
+					total += tempo.get();
+
+				media = total / (double) (threads * ITERACOES);
+
+				if (anterior > 0 && Math.abs(media - anterior) / anterior < TOLERANCIA)
+					estaveis++;
+				else
+					estaveis = 0;
+
+				anterior = media;
+			}
+
+			return rodada + " rodadas, " + String.format("%.2f", media / 1_000_000) + " ms por chamada"
+					+ (estaveis >= RODADAS_ESTAVEIS ? "" : ", latência não estabilizou");
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Executa uma rodada de chamadas aos recursos, retornando o tempo total em
+	// nanossegundos.
+	private static long exercita(int deslocamento, List<String> permalinks, List<Long> autores,
+			List<Long> comentarios) {
+
+		ArtigoResource artigoResource = new ArtigoResource();
+		AutorResource autorResource = new AutorResource();
+		ComentarioResource comentarioResource = new ComentarioResource();
+
+		long inicio = System.nanoTime();
+
+		for (int i = 0; i < ITERACOES; i++) {
+
+			int n = i + deslocamento;
+
+			switch (n % 4) {
+			case 0:
+				artigoResource.lista(5, 1, null, null, null);
+				break;
+			case 1:
+				if (!permalinks.isEmpty())
+					artigoResource.busca(permalinks.get(n % permalinks.size()), null, null);
+				break;
+			case 2:
+				autorResource.lista(1, 5, null);
+				if (!autores.isEmpty())
+					autorResource.busca(autores.get(n % autores.size()), null);
+				break;
+			default:
+				comentarioResource.lista(1, 5, null);
+				if (!comentarios.isEmpty())
+					comentarioResource.busca(comentarios.get(n % comentarios.size()), null);
+				break;
+			}
+		}
+
+		return System.nanoTime() - inicio;
+	}
+
+	private static long milissegundos(long inicio) {
+		return (System.nanoTime() - inicio) / 1_000_000;
+	}
+}
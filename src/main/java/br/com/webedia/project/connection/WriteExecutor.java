@@ -0,0 +1,305 @@
+package br.com.webedia.project.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>WriteExecutor</h1>
+ * <p>
+ * O SQLite permite apenas um escritor por vez. Em vez de várias threads
+ * disputarem o lock de escrita, todas as alterações no banco são enviadas para
+ * esta classe, que tem uma única thread dona de uma conexão de escrita.
+ * </p>
+ * <p>
+ * As escritas que chegam juntas são executadas em uma única transação (group
+ * commit), assim o custo do commit é dividido entre elas. Cada escrita roda
+ * como uma {@link UnitOfWork}, dentro de um savepoint próprio: se uma falhar,
+ * apenas ela é desfeita e as outras do mesmo lote são gravadas normalmente.
+ * </p>
+ * <p>
+ * A conexão de escrita é emprestada de um pool exclusivo do escritor, assim
+ * ela também tem o cache de statements.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class WriteExecutor {
+
+	/**
+	 * Escrita a ser executada na conexão do escritor. A conexão não deve ser
+	 * fechada, nem ter a transação alterada, pela escrita.
+	 *
+	 * @param <T> Tipo do resultado da escrita.
+	 */
+	@FunctionalInterface
+	public interface WriteTask<T> {
+		T executa(Connection con) throws SQLException;
+	}
+
+	/**
+	 * Ação executada entre dois lotes, quando não existe nenhuma transação de
+	 * escrita aberta.
+	 */
+	@FunctionalInterface
+	public interface IdleTask {
+		void executa() throws SQLException;
+	}
+
+	// Escrita na fila, junto com o resultado que o chamador está esperando.
+	private static class Pedido<T> {
+
+		private final WriteTask<T> tarefa;
+		private final CompletableFuture<T> resultado = new CompletableFuture<>();
+
+		private Pedido(WriteTask<T> tarefa) {
+			this.tarefa = tarefa;
+		}
+	}
+
+	// Pedido utilizado para acordar a thread no fechamento.
+	private static final Pedido<Void> FIM = new Pedido<>(con -> null);
+
+	/* Configurações */
+	private final ConnectionPool pool;
+	private final int tamanhoLote;
+	private final long janela;
+
+	/* Estado */
+	private final BlockingQueue<Pedido<?>> fila = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private final Object trava = new Object();
+	private volatile boolean fechado;
+
+	/**
+	 * Construtor do escritor. Assim que é criado, inicia a thread de escrita.
+	 *
+	 * @param pool         Pool de onde a conexão de escrita é emprestada. O pool
+	 *                     passa a pertencer ao escritor, e é fechado junto com
+	 *                     ele.
+	 * @param tamanhoLote  Quantidade máxima de escritas em uma mesma transação.
+	 * @param janela       Tempo, em milissegundos, que o escritor espera por
+	 *                     novas escritas antes do commit. Com 0, o lote contém
+	 *                     apenas as escritas que já estavam na fila.
+	 */
+	public WriteExecutor(ConnectionPool pool, int tamanhoLote, long janela) {
+
+		this.pool = pool;
+		this.tamanhoLote = Math.max(1, tamanhoLote);
+		this.janela = Math.max(0, janela);
+
+		this.thread = new Thread(this::executa, "escritor-banco");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Método que envia uma escrita para a fila e espera o commit.
+	 *
+	 * @param tarefa Escrita a ser executada.
+	 * @return Resultado da escrita, depois de gravado no banco.
+	 * @throws SQLException Caso a escrita ou o commit falhe.
+	 */
+	public <T> T submit(WriteTask<T> tarefa) throws SQLException {
+
+		if (fechado)
+			throw new SQLException("Escritor do banco de dados fechado!");
+
+		Pedido<T> pedido = new Pedido<>(tarefa);
+		fila.add(pedido);
+
+		try {
+			while (true) {
+				try {
+					return pedido.resultado.get(1, TimeUnit.SECONDS);
+				} catch (TimeoutException e) {
+					// Caso a thread tenha parado depois do pedido entrar na fila, o pedido
+					// nunca será executado.
+					if (!thread.isAlive())
+						pedido.resultado.completeExceptionally(new SQLException("Escritor do banco de dados fechado!"));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Espera pela escrita interrompida");
+		} catch (ExecutionException e) {
+			Throwable causa = e.getCause();
+			if (causa instanceof SQLException)
+				throw (SQLException) causa;
+			if (causa instanceof RuntimeException)
+				throw (RuntimeException) causa;
+			throw new SQLException(causa);
+		}
+	}
+
+	/**
+	 * Método que executa uma ação entre dois lotes. Enquanto a ação roda, nenhum
+	 * lote é executado, assim ela enxerga apenas escritas já confirmadas.
+	 *
+	 * @param tarefa Ação a ser executada.
+	 * @throws SQLException Caso a ação falhe.
+	 */
+	public void runIdle(IdleTask tarefa) throws SQLException {
+		synchronized (trava) {
+			tarefa.executa();
+		}
+	}
+
+	/**
+	 * @return Pool de onde a conexão de escrita é emprestada.
+	 */
+	ConnectionPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Método que fecha o escritor. As escritas que já estão na fila são
+	 * executadas antes da conexão ser fechada.
+	 */
+	public void close() {
+
+		fechado = true;
+		fila.add(FIM);
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Laço da thread de escrita.
+	private void executa() {
+
+		Connection con = null;
+
+		try {
+
+			con = pool.borrow();
+			con.setAutoCommit(false);
+
+			List<Pedido<?>> lote = new ArrayList<>(tamanhoLote);
+			boolean fim = false;
+
+			while (!fim) {
+
+				lote.clear();
+				fim = coletaLote(lote);
+
+				if (!lote.isEmpty()) {
+					synchronized (trava) {
+						executaLote(con, lote);
+					}
+				}
+			}
+
+		} catch (SQLException e) {
+			String mensagem = "Erro no escritor do banco de dados: " + e.getMessage();
+			ConsoleView.addText(mensagem);
+			fechado = true;
+		} catch (InterruptedException e) {
+			fechado = true;
+		} finally {
+
+			// Nenhuma escrita pode ficar esperando para sempre.
+			Pedido<?> pedido;
+			while ((pedido = fila.poll()) != null)
+				pedido.resultado.completeExceptionally(new SQLException("Escritor do banco de dados fechado!"));
+
+			try {
+				if (con != null)
+					con.close();
+			} catch (SQLException e) {
+				ConsoleView.addText("Erro ao fechar conexão de escrita: " + e.getMessage());
+			}
+
+			pool.close();
+		}
+	}
+
+	// Monta o próximo lote. Retorna verdadeiro quando o escritor deve parar.
+	private boolean coletaLote(List<Pedido<?>> lote) throws InterruptedException {
+
+		Pedido<?> pedido = fila.take();
+		long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(janela);
+
+		while (pedido != FIM) {
+
+			lote.add(pedido);
+			if (lote.size() >= tamanhoLote)
+				return false;
+
+			// Pega o que já estiver na fila e, dentro da janela, espera por mais.
+			pedido = fila.poll();
+			if (pedido == null) {
+				long restante = limite - System.nanoTime();
+				if (restante <= 0)
+					return false;
+				pedido = fila.poll(restante, TimeUnit.NANOSECONDS);
+				if (pedido == null)
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void executaLote(Connection con, List<Pedido<?>> lote) {
+
+		List<Object> resultados = new ArrayList<>(lote.size());
+		List<Throwable> erros = new ArrayList<>(lote.size());
+
+		try {
+
+			for (Pedido<?> pedido : lote) {
+
+				// Dentro da transação do lote, cada escrita é uma unidade com o próprio
+				// savepoint.
+				try {
+					resultados.add(UnitOfWork.run(con, pedido.tarefa));
+					erros.add(null);
+				} catch (SQLException | RuntimeException e) {
+					resultados.add(null);
+					erros.add(e);
+				}
+			}
+
+			con.commit();
+
+		} catch (SQLException e) {
+
+			// Falha no commit: nenhuma escrita do lote foi gravada.
+			try {
+				con.rollback();
+			} catch (SQLException e1) {
+				ConsoleView.addText("Erro ao desfazer transação: " + e1.getMessage());
+			}
+
+			for (Pedido<?> pedido : lote)
+				pedido.resultado.completeExceptionally(e);
+			return;
+		}
+
+		// Só depois do commit os chamadores recebem o resultado.
+		for (int i = 0; i < lote.size(); i++)
+			completa(lote.get(i), resultados.get(i), erros.get(i));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void completa(Pedido<T> pedido, Object resultado, Throwable erro) {
+		if (erro != null)
+			pedido.resultado.completeExceptionally(erro);
+		else
+			pedido.resultado.complete((T) resultado);
+	}
+}
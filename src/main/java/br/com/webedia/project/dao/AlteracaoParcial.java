@@ -0,0 +1,95 @@
+package br.com.webedia.project.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>AlteracaoParcial</h1>
+ * <p>
+ * Monta o UPDATE de uma alteração parcial, com apenas as colunas dos campos
+ * enviados pelo cliente. Um campo nulo não foi enviado, e a coluna continua
+ * com o valor atual no banco, sem que a linha precise ser lida antes.
+ * </p>
+ * <p>
+ * A quantidade de linhas alteradas indica se o registro existe, e é usada
+ * pelos DAOs para responder 404.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class AlteracaoParcial {
+
+	private final String tabela;
+	private final List<String> atribuicoes = new ArrayList<>();
+	private final List<Object> valores = new ArrayList<>();
+
+	/**
+	 * @param tabela Tabela alterada.
+	 */
+	AlteracaoParcial(String tabela) {
+		this.tabela = tabela;
+	}
+
+	/**
+	 * Método que altera a coluna, caso o valor tenha sido enviado.
+	 *
+	 * @param coluna Nome da coluna.
+	 * @param valor  Novo valor, ou nulo para manter o atual.
+	 * @return A própria alteração.
+	 */
+	AlteracaoParcial set(String coluna, Object valor) {
+
+		if (valor != null) {
+			atribuicoes.add(coluna + " = ?");
+			valores.add(valor);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Método que altera a coluna com uma expressão sql, em qualquer alteração.
+	 *
+	 * @param coluna    Nome da coluna.
+	 * @param expressao Expressão sql, sem parâmetros.
+	 * @return A própria alteração.
+	 */
+	AlteracaoParcial setSempre(String coluna, String expressao) {
+		atribuicoes.add(coluna + " = " + expressao);
+		return this;
+	}
+
+	/**
+	 * @return Verdadeiro se nenhuma coluna será alterada.
+	 */
+	boolean isVazia() {
+		return atribuicoes.isEmpty();
+	}
+
+	/**
+	 * Método que executa o UPDATE na linha com a chave recebida.
+	 *
+	 * @param con   Conexão de escrita.
+	 * @param chave Coluna da chave primária.
+	 * @param id    Valor da chave.
+	 * @return Quantidade de linhas alteradas: 0 se a linha não existe.
+	 * @throws SQLException Caso o comando falhe.
+	 */
+	int executa(Connection con, String chave, long id) throws SQLException {
+
+		String sql = "UPDATE " + tabela + " SET " + String.join(", ", atribuicoes) + " WHERE " + chave + " = ?;";
+
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+			for (int i = 0; i < valores.size(); i++)
+				stmt.setObject(i + 1, valores.get(i));
+			stmt.setLong(valores.size() + 1, id);
+
+			return stmt.executeUpdate();
+		}
+	}
+}
@@ -7,15 +7,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import javax.ws.rs.core.Response;
 
 import br.com.webedia.project.connection.ConnectionFactory;
 import br.com.webedia.project.model.Artigo;
 import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.Campos;
 import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.model.CursorDeArtigos;
+import br.com.webedia.project.model.ImportacaoDeArtigos.Resultado;
 import br.com.webedia.project.model.ListaDeArtigos;
+import br.com.webedia.project.model.PaginaDeArtigos;
+import br.com.webedia.project.model.Paginacao;
+import br.com.webedia.project.model.Relacoes;
 import br.com.webedia.project.view.ConsoleView;
 
 /**
@@ -30,6 +43,18 @@ import br.com.webedia.project.view.ConsoleView;
  */
 public class ArtigoDAO {
 
+	// Colunas da tabela artigos, usadas na lista de colunas do SELECT quando o
+	// cliente escolhe os campos.
+	private static final List<String> COLUNAS = Arrays.asList("idArtigo", "permalink", "titulo", "subtitulo",
+			"dataPublicacao", "dataAtualizacao", "conteudo", "commentCount", "lastCommentAt");
+
+	// Com mais de um shard, a listagem por página reúne os artigos de todos os
+	// shards até o fim da página. As páginas além deste offset devem usar o cursor.
+	static final int OFFSET_MAXIMO = Integer.getInteger("webedia.shards.offset", 1000);
+
+	// Inserção de um artigo. Com o id nulo, o próprio SQLite gera o id.
+	private static final String INSERE_ARTIGO = "INSERT INTO artigos (idArtigo, titulo, subtitulo, conteudo, permalink, dataPublicacao) VALUES (?, ?, ?, ?, ?, datetime('now','localtime'));";
+
 	/**
 	 * Método que recebe um artigo, valida e insere no banco de dados.
 	 * 
@@ -38,8 +63,9 @@ public class ArtigoDAO {
 	 */
 	public Response createArtigo(Artigo artigo) {
 
-		// Valida o artigo de acordo com as regras para inserção no banco.
-		Response r = artigo.validate();
+		// Valida o artigo de acordo com as regras para inserção no banco. Os autores
+		// são verificados depois, na transação da inserção.
+		Response r = artigo.validateContent();
 		if (r != null)
 			return r;
 
@@ -48,61 +74,158 @@ public class ArtigoDAO {
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			// O shard do novo artigo é escolhido pelo permalink.
+			int shard = ConnectionFactory.getShard(artigo.getPermalink());
+			long versao = ArtigosExistentes.getVersao();
+			List<String> permalink = Collections.singletonList(artigo.getPermalink());
+
+			return PermalinksUnicos.grava(permalink, () -> {
+
+				// Com mais de um shard, o permalink pode existir em outro arquivo.
+				if (!PermalinksUnicos.existentes(permalink, shard).isEmpty())
+					return permalinkExistente();
 
-			String sql = "INSERT INTO artigos (titulo, subtitulo, conteudo, permalink, dataPublicacao) VALUES (?, ?, ?, ?, datetime('now','localtime'));";
+				// A verificação dos autores, em uma única consulta, e a inserção do artigo
+				// e das relações com os autores são feitas pelo escritor do shard, na mesma
+				// transação. Sem algum dos autores, nada é inserido.
+				Long idArtigo = ConnectionFactory.write(shard, con -> {
 
-			// Cria o PreparedStatement, com a opção de retornar possíveis Primary Keys
-			// geradas na execução.
-			PreparedStatement stmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+					if (!new AutorDAO().verifyAutores(artigo.getAutores(), con).isEmpty())
+						return null;
 
-			stmt.setString(1, artigo.getTitulo());
-			stmt.setString(2, artigo.getSubtitulo());
-			stmt.setString(3, artigo.getConteudo());
-			stmt.setString(4, artigo.getPermalink());
+					return insereArtigo(artigo, con, shard);
+				});
 
-			stmt.executeUpdate();
+				if (idArtigo == null)
+					return Response.serverError().entity("A lista de autores contém um autor não cadastrado!").build();
 
-			// Retorna primary keys geradas no processo. Neste caso, retorna apenas uma.
-			ResultSet rs = stmt.getGeneratedKeys();
+				ArtigosExistentes.adiciona(idArtigo, versao);
 
-			Long ultimoId = rs.getLong(1);
+				// Cria a URL em que o artigo poderá ser acessado.
+				URI uri = URI.create("/artigos/" + artigo.getPermalink());
+
+				// Retorna uma resposta 201 para o servidor, com o link de acesso ao artigo
+				// criado.
+				return Response.created(uri).build();
+			});
+
+		} catch (SQLException e) {
+
+			// Cria a mensagem de erro e envia para o console da interface da aplicação.
+			String mensagem = "Erro ao executar requisição: " + e.getMessage();
+			ConsoleView.addText(mensagem);
 
-			// Esse código sql será utilizado para criar a relação de artigos e autores em
-			// uma tabela 'Many to Many' no banco de dados.
-			sql = "INSERT INTO artigoAutores (idArtigo, idAutor) VALUES (?, ?);";
+			// Retorna uma resposta 500, com a mensagem criada.
+			return Response.serverError().entity(mensagem).build();
+		}
+	}
 
-			stmt = con.prepareStatement(sql);
+	/**
+	 * Método que insere uma parte de uma importação de artigos em lote.
+	 * <p>
+	 * Os artigos são validados sem consultar o banco, e os autores de todos eles
+	 * são verificados em uma única consulta. Os artigos de cada shard são gravados
+	 * em uma única escrita, e um artigo recusado não impede a gravação dos outros.
+	 * </p>
+	 * 
+	 * @param artigos Artigos da parte, na ordem recebida.
+	 * @return Resultado de cada artigo, na mesma ordem.
+	 */
+	public List<Resultado> createArtigos(List<Artigo> artigos) {
 
-			List<Autor> autores = artigo.getAutores();
-			for (Autor autor : autores) {
+		Resultado[] resultados = new Resultado[artigos.size()];
 
-				stmt.setLong(1, ultimoId);
-				stmt.setLong(2, autor.getId());
+		// Posições dos artigos válidos, separadas pelo shard onde serão gravados.
+		Map<Integer, List<Integer>> porShard = new TreeMap<>();
+		List<String> permalinks = new ArrayList<>(artigos.size());
 
-				stmt.addBatch();
+		for (int i = 0; i < artigos.size(); i++) {
+
+			Artigo artigo = artigos.get(i);
+
+			// Um item null no json.
+			if (artigo == null) {
+				resultados[i] = Resultado.erro(500, "Artigo vazio!");
+				continue;
 			}
 
-			stmt.executeBatch();
+			Response r = artigo.validateContent();
+			if (r != null) {
+				resultados[i] = Resultado.erro(r);
+				continue;
+			}
+
+			artigo.generatePermalink();
+			permalinks.add(artigo.getPermalink());
+			porShard.computeIfAbsent(ConnectionFactory.getShard(artigo.getPermalink()), shard -> new ArrayList<>())
+					.add(i);
+		}
 
-			// Fecha a conexão.
-			ConnectionFactory.closeConnection(con, stmt);
+		long versao = ArtigosExistentes.getVersao();
 
-			// Cria a URL em que o artigo poderá ser acessado.
-			URI uri = URI.create("/artigos/" + artigo.getPermalink());
+		try {
+			PermalinksUnicos.grava(permalinks, () -> {
 
-			// Retorna uma resposta 201 para o servidor, com o link de acesso ao artigo
-			// criado.
-			return Response.created(uri).build();
+				for (Map.Entry<Integer, List<Integer>> entrada : porShard.entrySet())
+					insereArtigosShard(artigos, entrada.getValue(), resultados, entrada.getKey(), versao);
 
-		} catch (SQLException e) {
+				return null;
+			});
+		} catch (SQLException | RuntimeException e) {
 
 			// Cria a mensagem de erro e envia para o console da interface da aplicação.
 			String mensagem = "Erro ao executar requisição: " + e.getMessage();
 			ConsoleView.addText(mensagem);
 
-			// Retorna uma resposta 500, com a mensagem criada.
-			return Response.serverError().entity(mensagem).build();
+			// Os artigos dos shards que não chegaram a ser gravados recebem o erro.
+			for (int i = 0; i < resultados.length; i++)
+				if (resultados[i] == null)
+					resultados[i] = Resultado.erro(500, mensagem);
+		}
+
+		return Arrays.asList(resultados);
+	}
+
+	// Grava os artigos de um shard da importação, recusando os permalinks que já
+	// existem em outro shard.
+	private void insereArtigosShard(List<Artigo> artigos, List<Integer> posicoes, Resultado[] resultados, int shard,
+			long versao) {
+
+		try {
+
+			List<String> permalinks = new ArrayList<>(posicoes.size());
+			for (int posicao : posicoes)
+				permalinks.add(artigos.get(posicao).getPermalink());
+
+			Set<String> existentes = PermalinksUnicos.existentes(permalinks, shard);
+
+			List<Integer> novos = new ArrayList<>(posicoes.size());
+			for (int posicao : posicoes) {
+				if (existentes.contains(artigos.get(posicao).getPermalink()))
+					resultados[posicao] = Resultado.erro(permalinkExistente());
+				else
+					novos.add(posicao);
+			}
+
+			if (novos.isEmpty())
+				return;
+
+			ConnectionFactory.write(shard, con -> insereArtigos(artigos, novos, resultados, con, shard));
+
+			for (int posicao : novos)
+				if (resultados[posicao].getStatus() == 201)
+					ArtigosExistentes.adiciona(resultados[posicao].getIdArtigo(), versao);
+
+		} catch (SQLException | RuntimeException e) {
+
+			// Cria a mensagem de erro e envia para o console da interface da aplicação.
+			String mensagem = "Erro ao executar requisição: " + e.getMessage();
+			ConsoleView.addText(mensagem);
+
+			// Nenhum artigo da escrita foi gravado.
+			for (int posicao : posicoes)
+				if (resultados[posicao] == null || resultados[posicao].getStatus() == 201)
+					resultados[posicao] = Resultado.erro(500, mensagem);
 		}
 	}
 
@@ -117,71 +240,118 @@ public class ArtigoDAO {
 	 * @return Retorna um objeto do tipo Artigo, caso exista no banco.
 	 */
 	public Artigo readArtigo(String permalink, Long idArtigo) {
+		return readArtigo(permalink, idArtigo, Relacoes.TODAS);
+	}
+
+	/**
+	 * Método que retorna apenas um artigo do banco de dados, carregando apenas as
+	 * relações escolhidas.
+	 * 
+	 * @param permalink Permalink do artigo a ser buscado.
+	 * @param idArtigo  ID do artigo a ser buscado.
+	 * @param relacoes  Relações carregadas junto com o artigo.
+	 * @return Retorna um objeto do tipo Artigo, caso exista no banco.
+	 */
+	public Artigo readArtigo(String permalink, Long idArtigo, Relacoes relacoes) {
+		return readArtigo(permalink, idArtigo, relacoes, Campos.todos(Artigo.class));
+	}
+
+	/**
+	 * Método que retorna apenas um artigo do banco de dados, lendo apenas os
+	 * campos e as relações escolhidas.
+	 * 
+	 * @param permalink Permalink do artigo a ser buscado.
+	 * @param idArtigo  ID do artigo a ser buscado.
+	 * @param relacoes  Relações carregadas junto com o artigo.
+	 * @param campos    Campos do artigo lidos do banco.
+	 * @return Retorna um objeto do tipo Artigo, caso exista no banco.
+	 */
+	public Artigo readArtigo(String permalink, Long idArtigo, Relacoes relacoes, Campos campos) {
+
+		Connection con = null;
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			int shard = idArtigo > 0 ? ConnectionFactory.getShard(idArtigo) : localizaShard(permalink);
 
-			String sql;
+			con = ConnectionFactory.getReadOnlyConnection(shard);
 
-			// Por padrão, o idArtigo virá como 0 e será utilizado o permalink para fazer a
-			// busca no banco. Se o idArtigo for maior que 0, então ele será usado para a
-			// pesquisa.
-			if (idArtigo <= 0) {
+			return leArtigo(permalink, idArtigo, relacoes.restringe(campos), campos, con);
 
-				sql = String.format("SELECT * FROM artigos WHERE permalink = '%s';", permalink);
+		} catch (SQLException e) {
 
-			} else {
+			// Cria a mensagem de erro e envia para o console da interface da aplicação.
+			String mensagem = "Erro ao executar requisição: " + e.getMessage();
+			ConsoleView.addText(mensagem);
 
-				sql = String.format("SELECT * FROM artigos WHERE idArtigo = %d;", idArtigo);
+			return null;
 
-			}
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+	}
 
-			PreparedStatement stmt = con.prepareStatement(sql);
+	/**
+	 * Método que verifica se um artigo existe, sem ler o artigo. Os artigos já
+	 * encontrados ficam em um conjunto em memória ({@link ArtigosExistentes}), e
+	 * os outros são procurados pela chave primária, no shard do id.
+	 * <p>
+	 * Feito para as validações, como a do artigo de um novo comentário. A
+	 * inserção continua protegida pela foreign key, caso o artigo seja removido
+	 * depois da verificação.
+	 * </p>
+	 * 
+	 * @param idArtigo ID do artigo.
+	 * @return Verdadeiro se o artigo existe.
+	 * @throws SQLException Caso a consulta falhe. Um erro no banco não indica que
+	 *                      o artigo não existe.
+	 */
+	public boolean existsArtigo(Long idArtigo) throws SQLException {
 
-			ResultSet rs = stmt.executeQuery();
+		if (idArtigo == null || idArtigo <= 0)
+			return false;
 
-			Artigo artigo = new Artigo();
-			artigo.setId(rs.getLong("idArtigo"));
-			artigo.setTitulo(rs.getString("titulo"));
-			artigo.setSubtitulo(rs.getString("subtitulo"));
-			artigo.setConteudo(rs.getString("conteudo"));
-			artigo.setDataPublicacao(rs.getString("dataPublicacao"));
-			artigo.setDataAtualizacao(rs.getString("dataAtualizacao"));
-			artigo.generatePermalink();
+		if (ArtigosExistentes.contem(idArtigo))
+			return true;
 
-			List<Autor> autores = new AutorDAO().listAutorPorArtigo(artigo.getId(), con, stmt, rs);
+		long versao = ArtigosExistentes.getVersao();
 
-			for (Autor autor : autores) {
-				artigo.addAutor(autor);
-			}
+		Connection con = null;
 
-			List<Comentario> comentarios = new ComentarioDAO().listComentarioPorArtigo(artigo.getId(), con, stmt, rs);
+		try {
 
-			for (Comentario comentario : comentarios) {
-				artigo.addComentario(comentario);
-			}
+			con = ConnectionFactory.getReadOnlyConnection(ConnectionFactory.getShard(idArtigo));
 
-			ConnectionFactory.closeConnection(con, stmt, rs);
+			try (PreparedStatement stmt = con.prepareStatement("SELECT 1 FROM artigos WHERE idArtigo = ?;")) {
 
-			return artigo;
+				stmt.setLong(1, idArtigo);
 
-		} catch (SQLException e) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					if (!rs.next())
+						return false;
+				}
+			}
 
-			// Cria a mensagem de erro e envia para o console da interface da aplicação.
-			String mensagem = "Erro ao executar requisição: " + e.getMessage();
-			ConsoleView.addText(mensagem);
+			ArtigosExistentes.adiciona(idArtigo, versao);
+			return true;
 
-			return null;
+		} finally {
+			ConnectionFactory.closeConnection(con);
 		}
 	}
 
 	/**
 	 * Método que recebe um objeto do tipo Artigo, e atualiza um cadastro no banco
 	 * de dados de acordo com o id do artigo enviado.
+	 * <p>
+	 * Apenas os campos enviados são alterados, em um único UPDATE, sem ler o
+	 * artigo atual. O permalink muda apenas com um novo título, e a lista de
+	 * autores, quando enviada, substitui a atual.
+	 * </p>
 	 * 
 	 * @param artigo Artigo com os atributos que serão atualizados.
-	 * @return Retorna uma resposta HTTP. 200 para sucesso e 500 em caso de falha.
+	 * @return Retorna uma resposta HTTP. 200 para sucesso, 404 se o artigo não
+	 *         existir e 500 em caso de falha.
 	 */
 	public Response updateArtigo(Artigo artigo) {
 
@@ -189,43 +359,48 @@ public class ArtigoDAO {
 		if (artigo.getId() == null)
 			return Response.serverError().entity("ID nulo!").build();
 
-		// Preenche os campos que estiverem nulos no artigo enviado, com os campos do
-		// artigo dentro do banco.
-		artigo.merge(new ArtigoDAO().readArtigo(null, artigo.getId()));
+		// O permalink é gerado a partir do título enviado. Sem título, o permalink
+		// atual é mantido.
+		if (artigo.getTitulo() != null)
+			artigo.generatePermalink();
 
-		// Gera o permalink atualizado.
-		artigo.generatePermalink();
+		AlteracaoParcial alteracao = new AlteracaoParcial("artigos")
+				.setSempre("dataAtualizacao", "datetime('now','localtime')").set("titulo", artigo.getTitulo())
+				.set("permalink", artigo.getTitulo() != null ? artigo.getPermalink() : null)
+				.set("subtitulo", artigo.getSubtitulo()).set("conteudo", artigo.getConteudo());
+
+		int shard = ConnectionFactory.getShard(artigo.getId());
+		List<String> permalink = artigo.getTitulo() != null ? Collections.singletonList(artigo.getPermalink())
+				: Collections.emptyList();
 
 		try {
 
-			// Conecta com o banco de dados.
-			Connection con = ConnectionFactory.getConnection();
+			return PermalinksUnicos.grava(permalink, () -> {
 
-			// Cria o comando sql.
-			String sql = "UPDATE artigos SET dataAtualizacao = datetime('now','localtime'), titulo = ?, permalink = ?, subtitulo = ?, conteudo = ? WHERE idArtigo = ?;";
+				// O artigo continua no shard do id, então o novo permalink é procurado nos
+				// outros shards.
+				if (!PermalinksUnicos.existentes(permalink, shard).isEmpty())
+					return permalinkExistente();
 
-			// Configura o PreparedStatement com o comando sql.
-			PreparedStatement stmt = con.prepareStatement(sql);
+				// A alteração do artigo e das relações com os autores são uma única unidade
+				// no escritor do shard.
+				int alterados = ConnectionFactory.write(shard, con -> {
 
-			// Substitui as '?', na string sql, com os valores necessários.
-			stmt.setString(1, artigo.getTitulo());
-			stmt.setString(2, artigo.getPermalink());
-			stmt.setString(3, artigo.getSubtitulo());
-			stmt.setString(4, artigo.getConteudo());
-			stmt.setLong(5, artigo.getId());
+					int linhas = alteracao.executa(con, "idArtigo", artigo.getId());
 
-			// Executa o sql
-			stmt.executeUpdate();
+					// Sem o artigo, as relações com os autores não são alteradas.
+					if (linhas > 0)
+						atualizaAutores(artigo, con);
 
-			// Atualiza a relação de artigos e autores, apenas se a lista de autores do
-			// artigo enviado não estiver vazia.
-			atualizaAutores(artigo, con, stmt);
+					return linhas;
+				});
 
-			// Fecha a conexão
-			ConnectionFactory.closeConnection(con, stmt);
+				if (alterados == 0)
+					return Response.status(Response.Status.NOT_FOUND).entity("Artigo não encontrado!").build();
 
-			// Retorna a resposta 200.
-			return Response.ok("Artigo atualizado").build();
+				// Retorna a resposta 200.
+				return Response.ok("Artigo atualizado").build();
+			});
 
 		} catch (SQLException e) {
 
@@ -255,27 +430,25 @@ public class ArtigoDAO {
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
-
-			String sql;
-
-			// Caso o idArtigo for maior que 0, que é o padrão, é o que será utilizado para
-			// a busca. Se o idArtigo não for usado, então será o permalink.
-			if (idArtigo > 0) {
+			int shard = idArtigo > 0 ? ConnectionFactory.getShard(idArtigo) : localizaShard(permalink);
 
-				sql = String.format("DELETE FROM artigos WHERE idArtigo = %d;", idArtigo);
-
-			} else {
+			Long removido = ConnectionFactory.write(shard, con -> {
 
-				sql = String.format("DELETE FROM artigos WHERE permalink = '%s';", permalink);
+				// Caso o idArtigo for maior que 0, que é o padrão, é o que será utilizado
+				// para a busca. Se o idArtigo não for usado, o id é lido pelo permalink,
+				// para que o artigo também saia do conjunto de artigos existentes.
+				Long id = idArtigo > 0 ? idArtigo : leIdArtigo(permalink, con);
+				if (id == null)
+					return null;
 
-			}
-
-			PreparedStatement stmt = con.prepareStatement(sql);
-
-			stmt.executeUpdate();
+				try (PreparedStatement stmt = con.prepareStatement("DELETE FROM artigos WHERE idArtigo = ?;")) {
+					stmt.setLong(1, id);
+					return stmt.executeUpdate() > 0 ? id : null;
+				}
+			});
 
-			ConnectionFactory.closeConnection(con, stmt);
+			if (removido != null)
+				ArtigosExistentes.remove(removido);
 
 			// Retorna a resposta 200.
 			return Response.ok("Artigo deletado com sucesso!").build();
@@ -303,81 +476,140 @@ public class ArtigoDAO {
 	 *         ListaDeArtigos.
 	 */
 	public ListaDeArtigos listArtigo(int size, int page) {
+		return listArtigo(size, page, Relacoes.TODAS, Campos.todos(Artigo.class));
+	}
 
-		List<Artigo> artigos = new ArrayList<>();
+	/**
+	 * Método que retorna uma lista de artigos, lendo apenas os campos e as
+	 * relações escolhidas.
+	 * 
+	 * @param size     Quantidade de artigos por página, o padrão é 5.
+	 * @param page     Página da lista, por padrão será a primeira.
+	 * @param relacoes Relações carregadas junto com os artigos.
+	 * @param campos   Campos dos artigos lidos do banco.
+	 * @return Retorna um objeto do tipo ListaDeArtigos.
+	 * @throws IllegalArgumentException Caso, com mais de um shard, a página
+	 *                                  comece depois de {@link #OFFSET_MAXIMO}
+	 *                                  artigos.
+	 */
+	public ListaDeArtigos listArtigo(int size, int page, Relacoes relacoes, Campos campos) {
 
-		try {
+		// As relações que não estão entre os campos não são carregadas.
+		Relacoes carregadas = relacoes.restringe(campos);
 
-			Connection con = ConnectionFactory.getConnection();
+		try {
 
-			String sql = "SELECT * FROM artigos;";
+			// A paginação é calculada a partir do total de artigos, mantido na tabela
+			// contagens, e apenas os artigos da página são buscados no banco.
+			int total = 0;
+			for (int shard = 0; shard < ConnectionFactory.getShardCount(); shard++)
+				total += Contagens.total(shard, "artigos");
 
-			PreparedStatement stmt = con.prepareStatement(sql);
+			Paginacao paginacao = new Paginacao(total, size, page);
 
-			ResultSet rs = stmt.executeQuery();
+			List<Artigo> artigos;
 
-			while (rs.next()) {
-				Artigo artigo = new Artigo();
-				artigo.setId(rs.getLong("idArtigo"));
-				artigo.setTitulo(rs.getString("titulo"));
-				artigo.setSubtitulo(rs.getString("subtitulo"));
-				artigo.setConteudo(rs.getString("conteudo"));
-				artigo.setDataAtualizacao(rs.getString("dataAtualizacao"));
-				artigo.setDataPublicacao(rs.getString("dataPublicacao"));
-				artigo.generatePermalink();
+			if (ConnectionFactory.getShardCount() == 1) {
+				artigos = listArtigoShard(0, paginacao.getOffset(), paginacao.getSize(), campos, carregadas);
+			} else {
+				// Os artigos de todos os shards são reunidos na ordem dos ids, que é a mesma
+				// ordem de um banco com um único arquivo. Assim a paginação não depende da
+				// distribuição dos artigos. Cada shard precisa enviar todos os artigos até o
+				// fim da página, então as páginas profundas são recusadas.
+				if (paginacao.getOffset() > OFFSET_MAXIMO)
+					throw new IllegalArgumentException("Página além dos primeiros " + OFFSET_MAXIMO
+							+ " artigos. Utilize a paginação por cursor (after).");
+
+				int limite = paginacao.getOffset() + paginacao.getSize();
+
+				artigos = new ArrayList<>();
+				for (int shard = 0; shard < ConnectionFactory.getShardCount(); shard++)
+					artigos.addAll(listArtigoShard(shard, 0, limite, campos, carregadas));
+
+				artigos.sort(Comparator.comparing(Artigo::getId));
+				artigos = new ArrayList<>(artigos.subList(Math.min(paginacao.getOffset(), artigos.size()),
+						Math.min(limite, artigos.size())));
+			}
 
-				artigos.add(artigo);
+			// Cria o objeto do tipo ListaDeArtigos, que além de conter os artigos, contém
+			// as informações e paginação. Os autores e comentários são carregados apenas
+			// para os artigos da página.
+			ListaDeArtigos lista = new ListaDeArtigos(artigos, paginacao);
 
-			}
+			carregaRelacoes(lista.getArtigos(), carregadas);
 
-			// Para cada artigo, será executada o sql que irá buscar os autores e os
-			// comentários desses artigos para adicionar em suas respectivas lista.
-			for (Artigo artigo : artigos) {
+			return lista;
 
-				sql = "SELECT * FROM autores INNER JOIN artigoAutores ON artigoAutores.idAutor = autores.idAutor WHERE artigoAutores.idArtigo = ?;";
+		} catch (SQLException e) {
 
-				stmt = con.prepareStatement(sql);
+			// Cria a mensagem de erro e envia para o console da interface da aplicação.
+			String mensagem = "Erro ao executar requisição: " + e.getMessage();
+			ConsoleView.addText(mensagem);
 
-				stmt.setLong(1, artigo.getId());
+			return null;
+		}
 
-				rs = stmt.executeQuery();
+	}
 
-				while (rs.next()) {
-					Autor autor = new Autor();
-					autor.setId(rs.getLong("idAutor"));
-					autor.setNome(rs.getString("nome"));
-					autor.setSobrenome(rs.getString("sobrenome"));
-					autor.setBio(rs.getString("bio"));
+	/**
+	 * Método que retorna uma página de artigos a partir de um cursor.
+	 * <p>
+	 * Os artigos seguem a ordem de (dataPublicacao, idArtigo), e a página começa
+	 * logo depois do artigo do cursor. Como a busca usa um índice em vez de
+	 * OFFSET, o custo é o mesmo em qualquer página, e as páginas não se deslocam
+	 * quando artigos são inseridos ou removidos.
+	 * </p>
+	 * 
+	 * @param after Cursor do último artigo da página anterior, ou nulo para a
+	 *              primeira página.
+	 * @param size  Quantidade de artigos por página, o padrão é 5.
+	 * @return Retorna um objeto do tipo PaginaDeArtigos, com o link da página
+	 *         seguinte.
+	 */
+	public PaginaDeArtigos listArtigo(CursorDeArtigos after, int size) {
+		return listArtigo(after, size, Relacoes.TODAS, Campos.todos(Artigo.class));
+	}
 
-					artigo.addAutor(autor);
-				}
+	/**
+	 * Método que retorna uma página de artigos a partir de um cursor, lendo
+	 * apenas os campos e as relações escolhidas.
+	 * 
+	 * @param after    Cursor do último artigo da página anterior, ou nulo para a
+	 *                 primeira página.
+	 * @param size     Quantidade de artigos por página, o padrão é 5.
+	 * @param relacoes Relações carregadas junto com os artigos.
+	 * @param campos   Campos dos artigos lidos do banco.
+	 * @return Retorna um objeto do tipo PaginaDeArtigos.
+	 */
+	public PaginaDeArtigos listArtigo(CursorDeArtigos after, int size, Relacoes relacoes, Campos campos) {
 
-				sql = "SELECT * FROM comentarios WHERE idArtigo = ?";
+		if (size <= 0)
+			size = 5;
 
-				stmt = con.prepareStatement(sql);
+		// As relações que não estão entre os campos não são carregadas.
+		Relacoes carregadas = relacoes.restringe(campos);
 
-				stmt.setLong(1, artigo.getId());
+		try {
 
-				rs = stmt.executeQuery();
+			// Um artigo a mais é buscado para saber se existe uma página seguinte. Com
+			// vários shards, cada um envia a sua primeira página e o resultado é
+			// reunido na mesma ordem.
+			List<Artigo> artigos = new ArrayList<>();
+			for (int shard = 0; shard < ConnectionFactory.getShardCount(); shard++)
+				artigos.addAll(listArtigoShard(shard, after, size + 1, campos, carregadas));
 
-				while (rs.next()) {
-					Comentario comentario = new Comentario();
-					comentario.setData(rs.getString("data"));
-					comentario.setId(rs.getLong("idComentario"));
-					comentario.setTexto(rs.getString("texto"));
-					comentario.setUsuario(rs.getString("usuario"));
-					comentario.setIdArtigo(artigo.getId());
-
-					artigo.addComentario(comentario);
-				}
+			if (ConnectionFactory.getShardCount() > 1)
+				artigos.sort(Comparator.comparing(Artigo::getDataPublicacao).thenComparing(Artigo::getId));
 
+			CursorDeArtigos proximo = null;
+			if (artigos.size() > size) {
+				artigos = new ArrayList<>(artigos.subList(0, size));
+				proximo = CursorDeArtigos.of(artigos.get(size - 1));
 			}
 
-			ConnectionFactory.closeConnection(con, stmt, rs);
+			carregaRelacoes(artigos, carregadas);
 
-			// Retorna, o objeto do tipo ListaDeArtigos, que além
-			// de conter os artigos, contém as informações e paginação;
-			return new ListaDeArtigos(artigos, size, page);
+			return new PaginaDeArtigos(artigos, proximo, size);
 
 		} catch (SQLException e) {
 
@@ -387,38 +619,426 @@ public class ArtigoDAO {
 
 			return null;
 		}
+	}
+
+	/**
+	 * Método que retorna o shard de um artigo a partir do permalink.
+	 * <p>
+	 * O shard escolhido pelo permalink é consultado primeiro, e os outros só são
+	 * consultados se o artigo não estiver nele, o que acontece quando o título do
+	 * artigo muda depois da criação.
+	 * </p>
+	 * 
+	 * @param permalink Permalink do artigo.
+	 * @return Shard onde o artigo está. Se nenhum shard tiver o artigo, retorna o
+	 *         shard escolhido pelo permalink.
+	 */
+	int localizaShard(String permalink) {
+
+		int total = ConnectionFactory.getShardCount();
+		if (total == 1 || permalink == null)
+			return 0;
+
+		int provavel = ConnectionFactory.getShard(permalink);
+
+		for (int i = 0; i < total; i++) {
+
+			int shard = (provavel + i) % total;
 
+			Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+			try (PreparedStatement stmt = con.prepareStatement("SELECT 1 FROM artigos WHERE permalink = ?;")) {
+
+				stmt.setString(1, permalink);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					if (rs.next())
+						return shard;
+				}
+
+			} catch (SQLException e) {
+				ConsoleView.addText("Erro ao executar requisição: " + e.getMessage());
+			} finally {
+				ConnectionFactory.closeConnection(con);
+			}
+		}
+
+		return provavel;
 	}
 
-	private void atualizaAutores(Artigo artigo, Connection con, PreparedStatement stmt) throws SQLException {
+	// Lista uma faixa dos artigos de um shard, na ordem dos ids, sem os autores e
+	// comentários.
+	private List<Artigo> listArtigoShard(int shard, int offset, int limite, Campos campos, Relacoes relacoes)
+			throws SQLException {
+
+		List<Artigo> artigos = new ArrayList<>();
+
+		String sql = "SELECT " + colunas(campos) + " FROM artigos ORDER BY idArtigo LIMIT ? OFFSET ?;";
+
+		Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+			stmt.setInt(1, limite);
+			stmt.setInt(2, offset);
+
+			ResultSet rs = stmt.executeQuery();
+
+			while (rs.next())
+				artigos.add(criaArtigo(rs, campos, relacoes));
+
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+
+		return artigos;
+	}
+
+	// Lista os artigos de um shard que vêm depois do cursor, na ordem de
+	// (dataPublicacao, idArtigo), sem os autores e comentários. A busca usa o
+	// índice artigos_publicacao, então o custo não depende da posição do cursor.
+	private List<Artigo> listArtigoShard(int shard, CursorDeArtigos after, int limite, Campos campos,
+			Relacoes relacoes) throws SQLException {
+
+		List<Artigo> artigos = new ArrayList<>();
 
 		String sql;
+		if (after == null)
+			sql = "SELECT " + colunas(campos) + " FROM artigos ORDER BY dataPublicacao, idArtigo LIMIT ?;";
+		else
+			sql = "SELECT " + colunas(campos)
+					+ " FROM artigos WHERE (dataPublicacao, idArtigo) > (?, ?) ORDER BY dataPublicacao, idArtigo LIMIT ?;";
 
-		if (!artigo.getAutores().isEmpty()) {
+		Connection con = ConnectionFactory.getReadOnlyConnection(shard);
 
-			// Cria o sql para deletar as antigas relações de artigos e autores.
-			sql = String.format("DELETE FROM artigoAutores WHERE idArtigo = %d;", artigo.getId());
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
 
-			stmt = con.prepareStatement(sql);
+			int parametro = 1;
+			if (after != null) {
+				stmt.setString(parametro++, after.getDataPublicacao());
+				stmt.setLong(parametro++, after.getIdArtigo());
+			}
+			stmt.setInt(parametro, limite);
 
-			stmt.executeUpdate();
+			ResultSet rs = stmt.executeQuery();
 
-			// Agora o sql que adiciona as relações com base na lista atualizada de autores.
-			sql = "INSERT INTO artigoAutores (idArtigo, idAutor) VALUES (?, ?);";
+			while (rs.next())
+				artigos.add(criaArtigo(rs, campos, relacoes));
 
-			stmt = con.prepareStatement(sql);
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
 
-			List<Autor> autores = artigo.getAutores();
-			for (Autor autor : autores) {
-				stmt.setLong(1, artigo.getId());
-				stmt.setLong(2, autor.getId());
-				stmt.addBatch();
+		return artigos;
+	}
+
+	// Colunas do SELECT de artigos. O id e a data de publicação são sempre lidos,
+	// pois são usados na ordenação, no cursor e nas relações.
+	private static String colunas(Campos campos) {
+		return campos.colunas("artigos", COLUNAS, "idArtigo", "dataPublicacao");
+	}
+
+	// Cria o artigo a partir da linha atual, sem os autores e comentários. Apenas
+	// as colunas dos campos escolhidos estão na linha. O resumo dos comentários é
+	// lido apenas quando foi pedido, assim o Json padrão continua o mesmo.
+	private Artigo criaArtigo(ResultSet rs, Campos campos, Relacoes relacoes) throws SQLException {
+
+		Artigo artigo = new Artigo();
+		artigo.setId(rs.getLong("idArtigo"));
+		artigo.setDataPublicacao(rs.getString("dataPublicacao"));
+
+		if (campos.contem("titulo"))
+			artigo.setTitulo(rs.getString("titulo"));
+		if (campos.contem("subtitulo"))
+			artigo.setSubtitulo(rs.getString("subtitulo"));
+		if (campos.contem("conteudo"))
+			artigo.setConteudo(rs.getString("conteudo"));
+		if (campos.contem("dataAtualizacao"))
+			artigo.setDataAtualizacao(rs.getString("dataAtualizacao"));
+
+		if (relacoes.isResumo() && campos.contem("commentCount"))
+			artigo.setCommentCount(rs.getInt("commentCount"));
+		if (relacoes.isResumo() && campos.contem("lastCommentAt"))
+			artigo.setLastCommentAt(rs.getString("lastCommentAt"));
+
+		// O permalink é lido da coluna, que é gravada junto com o título.
+		if (campos.contem("permalink"))
+			artigo.setPermalink(rs.getString("permalink"));
+
+		return artigo;
+	}
+
+	// Carrega os autores e comentários dos artigos, com uma consulta em lote por
+	// relação em cada shard, em vez de duas consultas por artigo. As relações que
+	// não foram escolhidas não são consultadas.
+	private void carregaRelacoes(List<Artigo> artigos, Relacoes relacoes) throws SQLException {
+
+		for (Artigo artigo : artigos)
+			artigo.omiteRelacoes(relacoes);
+
+		if (artigos.isEmpty() || (!relacoes.isAutores() && !relacoes.isComentarios()))
+			return;
+
+		Map<Integer, List<Long>> idsPorShard = new HashMap<>();
+		for (Artigo artigo : artigos)
+			idsPorShard.computeIfAbsent(ConnectionFactory.getShard(artigo.getId()), shard -> new ArrayList<>())
+					.add(artigo.getId());
+
+		Map<Long, List<Autor>> autores = new HashMap<>();
+		Map<Long, List<Comentario>> comentarios = new HashMap<>();
+
+		for (Map.Entry<Integer, List<Long>> entrada : idsPorShard.entrySet()) {
+
+			Connection con = ConnectionFactory.getReadOnlyConnection(entrada.getKey());
+
+			try {
+				if (relacoes.isAutores())
+					autores.putAll(new AutorDAO().listAutorPorArtigos(entrada.getValue(), con));
+				if (relacoes.isComentarios())
+					comentarios.putAll(new ComentarioDAO().listComentarioPorArtigos(entrada.getValue(),
+							relacoes.getLimiteComentarios(), con));
+			} finally {
+				ConnectionFactory.closeConnection(con);
+			}
+		}
+
+		for (Artigo artigo : artigos) {
+
+			for (Autor autor : autores.getOrDefault(artigo.getId(), Collections.emptyList()))
+				artigo.addAutor(autor);
+
+			for (Comentario comentario : comentarios.getOrDefault(artigo.getId(), Collections.emptyList()))
+				artigo.addComentario(comentario);
+		}
+	}
+
+	// Lê o artigo, com as relações escolhidas, na conexão recebida. O artigo e os
+	// autores vêm de uma única consulta, com uma linha por autor, e os comentários
+	// de uma segunda consulta na mesma conexão. Retorna nulo se o artigo não
+	// existir.
+	private Artigo leArtigo(String permalink, Long idArtigo, Relacoes relacoes, Campos campos, Connection con)
+			throws SQLException {
+
+		StringBuilder sql = new StringBuilder("SELECT ").append(colunas(campos));
+
+		// Sem os autores, a consulta lê apenas o artigo.
+		if (relacoes.isAutores())
+			sql.append(", autores.* FROM artigos LEFT JOIN artigoAutores ON artigoAutores.idArtigo = artigos.idArtigo ")
+					.append("LEFT JOIN autores ON autores.idAutor = artigoAutores.idAutor");
+		else
+			sql.append(" FROM artigos");
+
+		// Por padrão, o idArtigo virá como 0 e será utilizado o permalink para fazer a
+		// busca no banco. Se o idArtigo for maior que 0, então ele será usado para a
+		// pesquisa.
+		if (idArtigo <= 0)
+			sql.append(" WHERE artigos.permalink = ?");
+		else
+			sql.append(" WHERE artigos.idArtigo = ?");
+
+		// Os autores seguem a ordem em que foram relacionados ao artigo.
+		if (relacoes.isAutores())
+			sql.append(" ORDER BY artigoAutores.rowid");
+
+		Artigo artigo = null;
+
+		try (PreparedStatement stmt = con.prepareStatement(sql.append(";").toString())) {
+
+			if (idArtigo <= 0)
+				stmt.setString(1, permalink);
+			else
+				stmt.setLong(1, idArtigo);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+
+				while (rs.next()) {
+
+					if (artigo == null) {
+						artigo = criaArtigo(rs, campos, relacoes);
+						artigo.omiteRelacoes(relacoes);
+					}
+
+					// Um artigo sem autores vem em uma única linha, com as colunas do autor nulas.
+					if (relacoes.isAutores() && rs.getObject("idAutor") != null)
+						artigo.addAutor(AutorDAO.criaAutor(rs, Campos.todos(Autor.class)));
+				}
+			}
+		}
+
+		if (artigo == null)
+			return null;
+
+		if (relacoes.isComentarios()) {
+
+			List<Comentario> comentarios = new ComentarioDAO().listComentarioPorArtigo(artigo.getId(),
+					relacoes.getLimiteComentarios(), con);
+
+			for (Comentario comentario : comentarios) {
+				artigo.addComentario(comentario);
+			}
+		}
+
+		return artigo;
+	}
+
+	// Id do artigo com o permalink, ou nulo se não existir.
+	private Long leIdArtigo(String permalink, Connection con) throws SQLException {
+
+		try (PreparedStatement stmt = con.prepareStatement("SELECT idArtigo FROM artigos WHERE permalink = ?;")) {
+
+			stmt.setString(1, permalink);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : null;
+			}
+		}
+	}
+
+	// Insere o artigo e as relações com os autores, retornando o id gerado.
+	private Long insereArtigo(Artigo artigo, Connection con, int shard) throws SQLException {
+
+		artigo.setId(insereLinha(artigo, con, shard));
+		insereAutores(Collections.singletonList(artigo), con);
+
+		return artigo.getId();
+	}
+
+	// Insere os artigos de uma parte da importação no shard. Cada artigo é um
+	// INSERT próprio: se um deles falhar, apenas o comando é desfeito, e os outros
+	// continuam na transação. As relações com os autores dos artigos inseridos são
+	// gravadas em um único batch no final.
+	private Void insereArtigos(List<Artigo> artigos, List<Integer> posicoes, Resultado[] resultados,
+			Connection con, int shard) throws SQLException {
+
+		// Os autores de todos os artigos são verificados em uma consulta.
+		List<Autor> autores = new ArrayList<>();
+		for (int posicao : posicoes)
+			autores.addAll(artigos.get(posicao).getAutores());
+
+		Set<Long> ausentes = new AutorDAO().verifyAutores(autores, con);
+
+		List<Artigo> inseridos = new ArrayList<>(posicoes.size());
+
+		try (PreparedStatement stmt = con.prepareStatement(INSERE_ARTIGO, Statement.RETURN_GENERATED_KEYS)) {
+
+			for (int posicao : posicoes) {
+
+				Artigo artigo = artigos.get(posicao);
+
+				if (!Collections.disjoint(ids(artigo.getAutores()), ausentes)) {
+					resultados[posicao] = Resultado.erro(500, "A lista de autores contém um autor não cadastrado!");
+					continue;
+				}
+
+				try {
+					artigo.setId(insereLinha(artigo, stmt, con, shard));
+					inseridos.add(artigo);
+					resultados[posicao] = Resultado.criado(artigo);
+				} catch (SQLException e) {
+					resultados[posicao] = Resultado.erro(500, "Erro ao executar requisição: " + e.getMessage());
+				}
+			}
+		}
+
+		insereAutores(inseridos, con);
+
+		return null;
+	}
+
+	private static List<Long> ids(List<Autor> autores) {
+
+		List<Long> ids = new ArrayList<>(autores.size());
+		for (Autor autor : autores)
+			ids.add(autor.getId());
+
+		return ids;
+	}
+
+	// Insere a linha do artigo, retornando o id gerado.
+	private Long insereLinha(Artigo artigo, Connection con, int shard) throws SQLException {
+
+		// Cria o PreparedStatement, com a opção de retornar possíveis Primary Keys
+		// geradas na execução.
+		try (PreparedStatement stmt = con.prepareStatement(INSERE_ARTIGO, Statement.RETURN_GENERATED_KEYS)) {
+			return insereLinha(artigo, stmt, con, shard);
+		}
+	}
+
+	// Insere a linha do artigo com o statement já preparado, que pode ser usado
+	// para vários artigos.
+	private Long insereLinha(Artigo artigo, PreparedStatement stmt, Connection con, int shard) throws SQLException {
+
+		stmt.setObject(1, ConnectionFactory.nextId(con, "artigos", "idArtigo", shard));
+		stmt.setString(2, artigo.getTitulo());
+		stmt.setString(3, artigo.getSubtitulo());
+		stmt.setString(4, artigo.getConteudo());
+		stmt.setString(5, artigo.getPermalink());
+
+		stmt.executeUpdate();
+
+		// Retorna primary keys geradas no processo. Neste caso, retorna apenas uma.
+		try (ResultSet rs = stmt.getGeneratedKeys()) {
+			return rs.getLong(1);
+		}
+	}
+
+	// Insere as relações dos artigos com os autores, em um único batch.
+	private void insereAutores(List<Artigo> artigos, Connection con) throws SQLException {
+
+		// Esse código sql será utilizado para criar a relação de artigos e autores em
+		// uma tabela 'Many to Many' no banco de dados. Um autor repetido na lista é
+		// ignorado pelo índice único da relação.
+		String sql = "INSERT OR IGNORE INTO artigoAutores (idArtigo, idAutor) VALUES (?, ?);";
+
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+			for (Artigo artigo : artigos) {
+				for (Autor autor : artigo.getAutores()) {
+
+					stmt.setLong(1, artigo.getId());
+					stmt.setLong(2, autor.getId());
+
+					stmt.addBatch();
+				}
 			}
 
-			// Executa os múltiplos comandos.
 			stmt.executeBatch();
+		}
+	}
+
+	// Substitui a relação de artigos e autores, apenas se a lista de autores do
+	// artigo enviado não estiver vazia.
+	private void atualizaAutores(Artigo artigo, Connection con) throws SQLException {
+
+		if (!artigo.getAutores().isEmpty()) {
+
+			// Cria o sql para deletar as antigas relações de artigos e autores.
+			String sql = "DELETE FROM artigoAutores WHERE idArtigo = ?;";
+
+			try (PreparedStatement stmt = con.prepareStatement(sql)) {
+				stmt.setLong(1, artigo.getId());
+				stmt.executeUpdate();
+			}
+
+			// Agora o sql que adiciona as relações com base na lista atualizada de autores.
+			sql = "INSERT OR IGNORE INTO artigoAutores (idArtigo, idAutor) VALUES (?, ?);";
+
+			try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+				List<Autor> autores = artigo.getAutores();
+				for (Autor autor : autores) {
+					stmt.setLong(1, artigo.getId());
+					stmt.setLong(2, autor.getId());
+					stmt.addBatch();
+				}
+
+				// Executa os múltiplos comandos.
+				stmt.executeBatch();
+			}
 
 		}
 	}
 
+	private static Response permalinkExistente() {
+		return Response.serverError().entity("Já existe um artigo com este título!").build();
+	}
 }
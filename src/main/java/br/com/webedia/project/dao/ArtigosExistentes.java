@@ -0,0 +1,74 @@
+package br.com.webedia.project.dao;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>ArtigosExistentes</h1>
+ * <p>
+ * Conjunto em memória com os ids de artigos que já foram encontrados no banco,
+ * usado pelo {@link ArtigoDAO#existsArtigo(Long) existsArtigo}. O conjunto
+ * guarda apenas artigos que existem: um id fora dele é procurado no banco. Os
+ * artigos criados entram no conjunto, e os removidos saem, depois do commit.
+ * </p>
+ * <p>
+ * Uma busca que começou antes de uma remoção não coloca o id no conjunto
+ * depois dela: cada remoção muda a versão, e o id só é adicionado se a versão
+ * ainda for a mesma do início da busca. O conjunto guarda no máximo
+ * webedia.artigos.ids ids (padrão 100000). Cheio, os novos ids são apenas
+ * procurados no banco.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class ArtigosExistentes {
+
+	private static final int CAPACIDADE = Integer.getInteger("webedia.artigos.ids", 100000);
+
+	private static final Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+	// Quantidade de remoções, alterada junto com o conjunto.
+	private static long versao;
+
+	private ArtigosExistentes() {
+	}
+
+	/**
+	 * @param idArtigo ID do artigo.
+	 * @return Verdadeiro se o artigo está no conjunto. Falso não quer dizer que o
+	 *         artigo não existe.
+	 */
+	static boolean contem(long idArtigo) {
+		return ids.contains(idArtigo);
+	}
+
+	/**
+	 * @return Versão atual, lida antes da busca ou da criação do artigo.
+	 */
+	static synchronized long getVersao() {
+		return versao;
+	}
+
+	/**
+	 * Método que adiciona um artigo encontrado ou criado no banco.
+	 *
+	 * @param idArtigo ID do artigo.
+	 * @param versao   Versão lida antes da busca ou da criação. Se algum artigo
+	 *                 foi removido depois disso, o id não é adicionado.
+	 */
+	static synchronized void adiciona(long idArtigo, long versao) {
+		if (versao == ArtigosExistentes.versao && ids.size() < CAPACIDADE)
+			ids.add(idArtigo);
+	}
+
+	/**
+	 * Método que retira um artigo removido do banco.
+	 *
+	 * @param idArtigo ID do artigo.
+	 */
+	static synchronized void remove(long idArtigo) {
+		versao++;
+		ids.remove(idArtigo);
+	}
+}
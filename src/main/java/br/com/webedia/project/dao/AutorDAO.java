@@ -7,13 +7,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.ws.rs.core.Response;
 
 import br.com.webedia.project.connection.ConnectionFactory;
+import br.com.webedia.project.connection.WriteExecutor;
 import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.Campos;
 import br.com.webedia.project.model.ListaDeAutores;
+import br.com.webedia.project.model.Paginacao;
 import br.com.webedia.project.view.ConsoleView;
 
 /**
@@ -28,6 +36,13 @@ import br.com.webedia.project.view.ConsoleView;
  */
 public class AutorDAO {
 
+	// Colunas da tabela autores, usadas na lista de colunas do SELECT quando o
+	// cliente escolhe os campos.
+	private static final List<String> COLUNAS = Arrays.asList("idAutor", "nome", "sobrenome", "bio");
+
+	// Tentativas de gravação em cada cópia do autor nos outros shards.
+	private static final int TENTATIVAS = 3;
+
 	/**
 	 * Método que recebe um autor, valida e insere no banco de dados.
 	 * 
@@ -43,26 +58,45 @@ public class AutorDAO {
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			// Com o id nulo, o próprio SQLite gera o id.
+			String sql = "INSERT INTO autores (idAutor, nome, sobrenome, bio) VALUES (?, ?, ?, ?);";
 
-			String sql = "INSERT INTO autores (nome, sobrenome, bio) VALUES (?, ?, ?);";
+			// A inserção é feita pelo escritor do primeiro shard, que retorna o id gerado.
+			Long ultimoId = ConnectionFactory.write(con -> {
 
-			// Cria o PreparedStatement, com a opção de retornar possíveis Primary Keys
-			// geradas na execução.
-			PreparedStatement stmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+				// Cria o PreparedStatement, com a opção de retornar possíveis Primary Keys
+				// geradas na execução.
+				try (PreparedStatement stmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-			stmt.setString(1, autor.getNome());
-			stmt.setString(2, autor.getSobrenome());
-			stmt.setString(3, autor.getBio());
+					stmt.setObject(1, null);
+					stmt.setString(2, autor.getNome());
+					stmt.setString(3, autor.getSobrenome());
+					stmt.setString(4, autor.getBio());
 
-			stmt.executeUpdate();
+					stmt.executeUpdate();
 
-			// Retorna primary keys geradas no processo. Neste caso, retorna apenas uma.
-			ResultSet rs = stmt.getGeneratedKeys();
+					// Retorna primary keys geradas no processo. Neste caso, retorna apenas uma.
+					try (ResultSet rs = stmt.getGeneratedKeys()) {
+						return rs.getLong(1);
+					}
+				}
+			});
 
-			Long ultimoId = rs.getLong(1);
+			// Os autores são copiados em todos os shards, com o mesmo id.
+			List<Integer> divergentes = replica(ultimoId, con -> {
+				try (PreparedStatement stmt = con.prepareStatement(sql)) {
 
-			ConnectionFactory.closeConnection(con, stmt, rs);
+					stmt.setLong(1, ultimoId);
+					stmt.setString(2, autor.getNome());
+					stmt.setString(3, autor.getSobrenome());
+					stmt.setString(4, autor.getBio());
+
+					return stmt.executeUpdate();
+				}
+			});
+
+			if (!divergentes.isEmpty())
+				return copiasDivergentes(ultimoId, divergentes);
 
 			// Cria a URL em que o autor poderá ser acessado.
 			URI uri = URI.create("/autores/" + ultimoId);
@@ -97,14 +131,68 @@ public class AutorDAO {
 	 */
 	public boolean verifyAutores(List<Autor> autores) {
 
-		for (Autor autor : autores) {
+		Connection con = null;
+
+		try {
+
+			con = ConnectionFactory.getReadOnlyConnection();
+
+			return verifyAutores(autores, con).isEmpty();
+
+		} catch (SQLException e) {
+
+			// Cria a mensagem de erro e envia para o console da interface da aplicação.
+			String mensagem = "Erro ao executar requisição: " + e.getMessage();
+			ConsoleView.addText(mensagem);
+
+			return false;
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Método que verifica, em uma única consulta, quais autores de uma lista não
+	 * estão no banco de dados.
+	 * 
+	 * <p>
+	 * Utilizado dentro da escrita do artigo, assim a verificação e a inserção
+	 * acontecem na mesma transação. Listas com mais de {@link Lotes#TAMANHO}
+	 * autores são divididas em partes.
+	 * </p>
+	 * 
+	 * @param autores Lista de autores para ser verificada. Os autores sem id são
+	 *                ignorados.
+	 * @param con     Conexão já aberta com o banco de dados. A conexão não é
+	 *                fechada pelo método.
+	 * @return Ids dos autores que não estão no banco, na ordem da lista. Vazio se
+	 *         todos estiverem.
+	 * @throws SQLException
+	 */
+	public Set<Long> verifyAutores(List<Autor> autores, Connection con) throws SQLException {
+
+		Set<Long> ausentes = new LinkedHashSet<>();
+		for (Autor autor : autores)
+			if (autor.getId() != null)
+				ausentes.add(autor.getId());
+
+		for (List<Long> lote : Lotes.divide(new ArrayList<>(ausentes))) {
 
-			if (readAutor(autor.getId()) == null)
-				return false;
+			String sql = "SELECT idAutor FROM autores WHERE idAutor IN " + Lotes.parametros(lote.size()) + ";";
 
+			try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+				for (int i = 0; i < lote.size(); i++)
+					stmt.setLong(i + 1, lote.get(i));
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next())
+						ausentes.remove(rs.getLong(1));
+				}
+			}
 		}
 
-		return true;
+		return ausentes;
 	}
 
 	/**
@@ -114,23 +202,34 @@ public class AutorDAO {
 	 * @return Retorna um objeto do tipo Autor, caso exista no banco.
 	 */
 	public Autor readAutor(long idAutor) {
+		return readAutor(idAutor, Campos.todos(Autor.class));
+	}
+
+	/**
+	 * Método que retorna apenas um autor do banco de dados, lendo apenas os campos
+	 * escolhidos.
+	 * 
+	 * @param idAutor Long utilizado para buscar o autor no banco.
+	 * @param campos  Campos do autor lidos do banco.
+	 * @return Retorna um objeto do tipo Autor, caso exista no banco.
+	 */
+	public Autor readAutor(long idAutor, Campos campos) {
+
+		Connection con = null;
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			con = ConnectionFactory.getReadOnlyConnection();
 
-			String sql = "SELECT * FROM autores WHERE idAutor = ?;";
+			String sql = "SELECT " + colunas(campos) + " FROM autores WHERE idAutor = ?;";
 
 			PreparedStatement stmt = con.prepareStatement(sql);
 			stmt.setLong(1, idAutor);
 
 			ResultSet rs = stmt.executeQuery();
 
-			Autor autor = new Autor();
-			autor.setId(rs.getLong("idAutor"));
-			autor.setNome(rs.getString("nome"));
-			autor.setSobrenome(rs.getString("sobrenome"));
-			autor.setBio(rs.getString("bio"));
+			// Retorna nulo se o autor não existir.
+			Autor autor = rs.next() ? criaAutor(rs, campos) : null;
 
 			ConnectionFactory.closeConnection(con, stmt, rs);
 
@@ -143,6 +242,8 @@ public class AutorDAO {
 			ConsoleView.addText(mensagem);
 
 			return null;
+		} finally {
+			ConnectionFactory.closeConnection(con);
 		}
 
 	}
@@ -150,9 +251,13 @@ public class AutorDAO {
 	/**
 	 * Método que recebe um objeto do tipo Autor, e atualiza um cadastro no banco de
 	 * dados de acordo com o id do autor enviado.
+	 * <p>
+	 * Apenas os campos enviados são alterados, sem ler o autor atual.
+	 * </p>
 	 * 
 	 * @param autor Autor com os atributos que serão atualizados.
-	 * @return Retorna uma resposta HTTP. 200 para sucesso e 500 em caso de falha.
+	 * @return Retorna uma resposta HTTP. 200 para sucesso, 404 se o autor não
+	 *         existir e 500 em caso de falha.
 	 */
 	public Response updateAutor(Autor autor) {
 
@@ -160,24 +265,24 @@ public class AutorDAO {
 		if (autor.getId() == null)
 			return Response.serverError().entity("Id para busca está nulo").build();
 
-		autor.merge(readAutor(autor.getId()));
-
-		try {
-
-			Connection con = ConnectionFactory.getConnection();
-
-			String sql = "UPDATE autores SET nome = ?, sobrenome = ?, bio = ? WHERE idAutor = ?;";
+		AlteracaoParcial alteracao = new AlteracaoParcial("autores").set("nome", autor.getNome())
+				.set("sobrenome", autor.getSobrenome()).set("bio", autor.getBio());
 
-			PreparedStatement stmt = con.prepareStatement(sql);
+		// Sem nenhum campo para alterar, apenas a existência do autor é verificada.
+		if (alteracao.isVazia())
+			return readAutor(autor.getId()) == null ? autorNaoEncontrado() : Response.ok("Autor atualizado").build();
 
-			stmt.setString(1, autor.getNome());
-			stmt.setString(2, autor.getSobrenome());
-			stmt.setString(3, autor.getBio());
-			stmt.setLong(4, autor.getId());
+		try {
 
-			stmt.executeUpdate();
+			// A atualização é feita na cópia do autor de cada shard. O primeiro shard tem
+			// todos os autores, e decide se o autor existe.
+			int alterados = ConnectionFactory.write(0, con -> alteracao.executa(con, "idAutor", autor.getId()));
+			if (alterados == 0)
+				return autorNaoEncontrado();
 
-			ConnectionFactory.closeConnection(con, stmt);
+			List<Integer> divergentes = replica(autor.getId(), con -> alteracao.executa(con, "idAutor", autor.getId()));
+			if (!divergentes.isEmpty())
+				return copiasDivergentes(autor.getId(), divergentes);
 
 			// Retorna a resposta 200.
 			return Response.ok("Autor atualizado").build();
@@ -204,17 +309,24 @@ public class AutorDAO {
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
-
 			String sql = "DELETE FROM autores WHERE idAutor = ?;";
 
-			PreparedStatement stmt = con.prepareStatement(sql);
+			// O autor é removido de todos os shards, junto com as relações com os artigos
+			// de cada um.
+			WriteExecutor.WriteTask<Integer> remocao = con -> {
+				try (PreparedStatement stmt = con.prepareStatement(sql)) {
 
-			stmt.setLong(1, idAutor);
+					stmt.setLong(1, idAutor);
+
+					return stmt.executeUpdate();
+				}
+			};
 
-			stmt.executeUpdate();
+			ConnectionFactory.write(0, remocao);
 
-			ConnectionFactory.closeConnection(con, stmt);
+			List<Integer> divergentes = replica(idAutor, remocao);
+			if (!divergentes.isEmpty())
+				return copiasDivergentes(idAutor, divergentes);
 
 			// Retorna a resposta 200.
 			return Response.ok("Autor deletado com sucesso").build();
@@ -243,34 +355,48 @@ public class AutorDAO {
 	 *         ListaDeAutores.
 	 */
 	public ListaDeAutores listAutor(int size, int page) {
+		return listAutor(size, page, Campos.todos(Autor.class));
+	}
+
+	/**
+	 * Método que retorna uma lista de autores, lendo apenas os campos escolhidos.
+	 * 
+	 * @param size   Quantidade de autores por página, o padrão é 5.
+	 * @param page   Página da lista, por padrão será a primeira.
+	 * @param campos Campos dos autores lidos do banco.
+	 * @return Retorna um objeto do tipo ListaDeAutores.
+	 */
+	public ListaDeAutores listAutor(int size, int page, Campos campos) {
 
 		List<Autor> autores = new ArrayList<>();
 
+		Connection con = null;
+
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			// A paginação é calculada a partir do total de autores, mantido na tabela
+			// contagens, e apenas os autores da página são buscados no banco.
+			Paginacao paginacao = new Paginacao(Contagens.total(0, "autores"), size, page);
 
-			String sql = "SELECT * FROM autores;";
+			con = ConnectionFactory.getReadOnlyConnection();
+
+			String sql = "SELECT " + colunas(campos) + " FROM autores ORDER BY idAutor LIMIT ? OFFSET ?;";
 
 			PreparedStatement stmt = con.prepareStatement(sql);
 
+			stmt.setInt(1, paginacao.getSize());
+			stmt.setInt(2, paginacao.getOffset());
+
 			ResultSet rs = stmt.executeQuery();
 
-			while (rs.next()) {
-				Autor autor = new Autor();
-				autor.setId(rs.getLong("idAutor"));
-				autor.setNome(rs.getString("nome"));
-				autor.setSobrenome(rs.getString("sobrenome"));
-				autor.setBio(rs.getString("bio"));
-
-				autores.add(autor);
-			}
+			while (rs.next())
+				autores.add(criaAutor(rs, campos));
 
 			ConnectionFactory.closeConnection(con, stmt, rs);
 
 			// Retorna o objeto do tipo ListaDeAutores, que além de conter os autores,
 			// contém as informações e paginação;
-			return new ListaDeAutores(autores, size, page);
+			return new ListaDeAutores(autores, paginacao);
 
 		} catch (SQLException e) {
 
@@ -279,49 +405,117 @@ public class AutorDAO {
 			ConsoleView.addText(mensagem);
 
 			return null;
+		} finally {
+			ConnectionFactory.closeConnection(con);
 		}
 
 	}
 
 	/**
-	 * Método que retorna uma lista de autores relacionados à um artigo.
+	 * Método que retorna os autores de vários artigos, com uma consulta para cada
+	 * {@link Lotes#TAMANHO} artigos, em vez de uma consulta por artigo.
 	 * <p>
-	 * Esse método é utilizado internamente, apenas na execução do método
-	 * {@link ArtigoDAO#readArtigo(String, Long) readArtigo} da classe ArtigoDAO,
-	 * para montar um artigo. Ele não envia a lista via HTTP.
+	 * Esse método é utilizado internamente, na listagem de artigos da classe
+	 * ArtigoDAO. Ele não envia a lista via HTTP.
 	 * </p>
 	 * 
-	 * @param idArtigo ID do artigo relacionado.
-	 * @param rs       ResultSet que irá guardar os autores.
-	 * @param stmt     PreparedStatement que irá executar o sql.
-	 * @param con      Conexão já aberta com o banco de dados.
-	 * @return Retorna um objeto do tipo List, contendo os autores.
+	 * @param idsArtigo IDs dos artigos relacionados.
+	 * @param con       Conexão já aberta com o banco de dados. A conexão não é
+	 *                  fechada pelo método.
+	 * @return Retorna um Map com a lista de autores de cada artigo, pelo idArtigo.
+	 *         Artigos sem autores não aparecem no Map.
 	 * @throws SQLException
 	 */
-	public List<Autor> listAutorPorArtigo(Long idArtigo, Connection con, PreparedStatement stmt, ResultSet rs)
-			throws SQLException {
+	public Map<Long, List<Autor>> listAutorPorArtigos(List<Long> idsArtigo, Connection con) throws SQLException {
 
-		List<Autor> autores = new ArrayList<>();
+		Map<Long, List<Autor>> autores = new HashMap<>();
 
-		// Para buscar os autores relacionados a um artigo, faz-se uma query, utilizando
-		// Inner Join com o idArtigo.
-		String sql = "SELECT * FROM autores INNER JOIN artigoAutores ON artigoAutores.idAutor = autores.idAutor WHERE artigoAutores.idArtigo = ?;";
+		for (List<Long> lote : Lotes.divide(idsArtigo)) {
 
-		stmt = con.prepareStatement(sql);
-		stmt.setLong(1, idArtigo);
+			String sql = "SELECT * FROM autores INNER JOIN artigoAutores ON artigoAutores.idAutor = autores.idAutor WHERE artigoAutores.idArtigo IN "
+					+ Lotes.parametros(lote.size()) + " ORDER BY artigoAutores.rowid;";
 
-		rs = stmt.executeQuery();
+			try (PreparedStatement stmt = con.prepareStatement(sql)) {
 
-		while (rs.next()) {
-			Autor autor = new Autor();
-			autor.setId(rs.getLong("idAutor"));
+				for (int i = 0; i < lote.size(); i++)
+					stmt.setLong(i + 1, lote.get(i));
+
+				try (ResultSet rs = stmt.executeQuery()) {
+
+					while (rs.next()) {
+						Autor autor = new Autor();
+						autor.setId(rs.getLong("idAutor"));
+						autor.setNome(rs.getString("nome"));
+						autor.setSobrenome(rs.getString("sobrenome"));
+						autor.setBio(rs.getString("bio"));
+
+						autores.computeIfAbsent(rs.getLong("idArtigo"), id -> new ArrayList<>()).add(autor);
+					}
+				}
+			}
+		}
+
+		return autores;
+	}
+
+	// Colunas do SELECT de autores. O id é sempre lido.
+	private static String colunas(Campos campos) {
+		return campos.colunas("autores", COLUNAS, "idAutor");
+	}
+
+	// Cria o autor a partir da linha atual. Apenas as colunas dos campos escolhidos
+	// estão na linha. Também é usado pelo ArtigoDAO, na leitura do artigo junto com
+	// os autores.
+	static Autor criaAutor(ResultSet rs, Campos campos) throws SQLException {
+
+		Autor autor = new Autor();
+		autor.setId(rs.getLong("idAutor"));
+
+		if (campos.contem("nome"))
 			autor.setNome(rs.getString("nome"));
+		if (campos.contem("sobrenome"))
 			autor.setSobrenome(rs.getString("sobrenome"));
+		if (campos.contem("bio"))
 			autor.setBio(rs.getString("bio"));
 
-			autores.add(autor);
+		return autor;
+	}
+
+	// Resposta 404 da alteração de um autor que não existe.
+	private static Response autorNaoEncontrado() {
+		return Response.status(Response.Status.NOT_FOUND).entity("Autor não encontrado!").build();
+	}
+
+	// Grava a alteração do primeiro shard nas cópias do autor dos outros shards. A
+	// mesma escrita pode ser repetida sem efeito extra, então um shard que falha é
+	// tentado de novo. Os que continuam falhando ficam diferentes do primeiro, e
+	// são informados no console para serem corrigidos.
+	private static List<Integer> replica(long idAutor, WriteExecutor.WriteTask<Integer> escrita) {
+
+		List<Integer> divergentes = new ArrayList<>();
+
+		for (int shard = 1; shard < ConnectionFactory.getShardCount(); shard++) {
+			for (int tentativa = 1;; tentativa++) {
+				try {
+					ConnectionFactory.write(shard, escrita);
+					break;
+				} catch (SQLException e) {
+					if (tentativa >= TENTATIVAS) {
+						divergentes.add(shard);
+						ConsoleView.addText("Cópia do autor " + idAutor + " no shard " + shard
+								+ " diferente do primeiro shard: " + e.getMessage());
+						break;
+					}
+				}
+			}
 		}
 
-		return autores;
+		return divergentes;
+	}
+
+	// Resposta 500 da escrita que não chegou a todas as cópias do autor.
+	private static Response copiasDivergentes(long idAutor, List<Integer> shards) {
+		return Response.serverError()
+				.entity("Autor " + idAutor + " gravado no primeiro shard, mas não nos shards " + shards + "!").build();
 	}
-}
\ No newline at end of file
+}
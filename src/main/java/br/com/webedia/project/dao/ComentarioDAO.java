@@ -7,13 +7,19 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.Response;
 
 import br.com.webedia.project.connection.ConnectionFactory;
+import br.com.webedia.project.model.Campos;
 import br.com.webedia.project.model.Comentario;
 import br.com.webedia.project.model.ListaDeComentarios;
+import br.com.webedia.project.model.Paginacao;
 import br.com.webedia.project.view.ConsoleView;
 
 /**
@@ -28,13 +34,24 @@ import br.com.webedia.project.view.ConsoleView;
  */
 public class ComentarioDAO {
 
+	// Colunas da tabela comentarios, usadas na lista de colunas do SELECT quando o
+	// cliente escolhe os campos.
+	private static final List<String> COLUNAS = Arrays.asList("idComentario", "usuario", "texto", "idArtigo",
+			"data");
+
 	private ArtigoDAO artigoDao = new ArtigoDAO();
 
 	/**
 	 * Método que recebe um comentario, valida e insere no banco de dados.
+	 * <p>
+	 * Com a {@link FilaDeComentarios} ligada, o comentário validado recebe um id
+	 * reservado e é gravado depois, pela fila. A resposta é 202, com o link em
+	 * que o comentário estará disponível, ou 503 se a fila estiver cheia.
+	 * </p>
 	 * 
 	 * @param comentario Objeto do tipo Comentario, que será inserido no banco.
-	 * @return Retorna uma resposta HTTP. 201 para sucesso e 500 para falhas.
+	 * @return Retorna uma resposta HTTP. 201 para sucesso, 202 para comentário
+	 *         aceito na fila, 503 para fila cheia e 500 para falhas.
 	 */
 	public Response createComentario(Comentario comentario) {
 
@@ -42,31 +59,30 @@ public class ComentarioDAO {
 		Response r = comentario.validate();
 		if (r != null)
 			return r;
-		else if (artigoDao.readArtigo(null, comentario.getIdArtigo()) == null)
-			return Response.serverError().entity("Artigo relacionado não existe!").build();
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			if (!artigoDao.existsArtigo(comentario.getIdArtigo()))
+				return Response.serverError().entity("Artigo relacionado não existe!").build();
 
-			String sql = "INSERT INTO comentarios (usuario, texto, data, idArtigo) VALUES (?, ?, datetime('now','localtime'), ?);";
+			// O comentário fica no mesmo shard do artigo.
+			int shard = ConnectionFactory.getShard(comentario.getIdArtigo());
 
-			// Cria o PreparedStatement, com a opção de retornar possíveis Primary Keys
-			// geradas na execução.
-			PreparedStatement stmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			if (FilaDeComentarios.isEnabled()) {
 
-			stmt.setString(1, comentario.getUsuario());
-			stmt.setString(2, comentario.getTexto());
-			stmt.setLong(3, comentario.getIdArtigo());
+				Long idReservado = FilaDeComentarios.get().adiciona(comentario, shard);
+				if (idReservado == null)
+					return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+							.entity("Fila de comentários cheia, tente novamente!").build();
 
-			stmt.executeUpdate();
-
-			// Retorna primary keys geradas no processo.
-			ResultSet rs = stmt.getGeneratedKeys();
-
-			Long ultimoId = rs.getLong(1);
+				// Retorna uma resposta 202, com o link em que o comentário poderá ser
+				// acessado depois de gravado.
+				return Response.accepted().location(URI.create("/comentarios/" + idReservado)).build();
+			}
 
-			ConnectionFactory.closeConnection(con, stmt, rs);
+			// A inserção e a atualização do resumo do artigo são feitas pelo escritor do
+			// shard, na mesma transação, que retorna o id gerado.
+			Long ultimoId = ConnectionFactory.write(shard, con -> insereComentario(comentario, con, shard));
 
 			// Cria a URL em que o comentario poderá ser acessado.
 			URI uri = URI.create("/comentarios/" + ultimoId);
@@ -93,11 +109,25 @@ public class ComentarioDAO {
 	 * @return Retorna um objeto do tipo Comentario, caso exista no banco.
 	 */
 	public Comentario readComentario(Long idComentario) {
+		return readComentario(idComentario, Campos.todos(Comentario.class));
+	}
+
+	/**
+	 * Método que retorna apenas um comentário do banco de dados, lendo apenas os
+	 * campos escolhidos.
+	 * 
+	 * @param idComentario Long utilizado para buscar o comentário no banco.
+	 * @param campos       Campos do comentário lidos do banco.
+	 * @return Retorna um objeto do tipo Comentario, caso exista no banco.
+	 */
+	public Comentario readComentario(Long idComentario, Campos campos) {
+		Connection con = null;
+
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
+			con = ConnectionFactory.getReadOnlyConnection(localizaShard(idComentario));
 
-			String sql = "SELECT * FROM comentarios WHERE idComentario = ?;";
+			String sql = "SELECT " + colunas(campos) + " FROM comentarios WHERE idComentario = ?;";
 
 			PreparedStatement stmt = con.prepareStatement(sql);
 
@@ -105,12 +135,7 @@ public class ComentarioDAO {
 
 			ResultSet rs = stmt.executeQuery();
 
-			Comentario comentario = new Comentario();
-			comentario.setId(rs.getLong("idComentario"));
-			comentario.setIdArtigo(rs.getLong("idArtigo"));
-			comentario.setData(rs.getString("data"));
-			comentario.setTexto(rs.getString("texto"));
-			comentario.setUsuario(rs.getString("usuario"));
+			Comentario comentario = criaComentario(rs, campos);
 
 			ConnectionFactory.closeConnection(con, stmt, rs);
 
@@ -123,15 +148,21 @@ public class ComentarioDAO {
 			ConsoleView.addText(mensagem);
 
 			return null;
+		} finally {
+			ConnectionFactory.closeConnection(con);
 		}
 	}
 
 	/**
 	 * Método que recebe um objeto do tipo Comnetario, e atualiza um cadastro no
 	 * banco de dados de acordo com o id do comentario enviado.
+	 * <p>
+	 * Apenas os campos enviados são alterados, sem ler o comentário atual.
+	 * </p>
 	 * 
 	 * @param comentario Comentario com os atributos que serão atualizados.
-	 * @return Retorna uma resposta HTTP. 200 para sucesso e 500 em caso de falha.
+	 * @return Retorna uma resposta HTTP. 200 para sucesso, 404 se o comentário
+	 *         não existir e 500 em caso de falha.
 	 */
 	public Response updateComentario(Comentario comentario) {
 
@@ -139,25 +170,22 @@ public class ComentarioDAO {
 		if (comentario.getId() == null)
 			return Response.serverError().entity("ID nulo!").build();
 
-		// Preenche os campos que estiverem nulos no comentario enviado, com os campos
-		// do comentario dentro do banco.
-		comentario.merge(readComentario(comentario.getId()));
-
-		try {
-
-			Connection con = ConnectionFactory.getConnection();
+		AlteracaoParcial alteracao = new AlteracaoParcial("comentarios").set("texto", comentario.getTexto())
+				.set("usuario", comentario.getUsuario());
 
-			String sql = "UPDATE comentarios SET texto = ?, usuario = ? WHERE idComentario = ?;";
+		// Sem nenhum campo para alterar, apenas a existência do comentário é
+		// verificada.
+		if (alteracao.isVazia())
+			return readComentario(comentario.getId()) == null ? comentarioNaoEncontrado()
+					: Response.ok("Comentario atualizado!").build();
 
-			PreparedStatement stmt = con.prepareStatement(sql);
+		try {
 
-			stmt.setString(1, comentario.getTexto());
-			stmt.setString(2, comentario.getUsuario());
-			stmt.setLong(3, comentario.getId());
+			int alterados = ConnectionFactory.write(localizaShard(comentario.getId()),
+					con -> alteracao.executa(con, "idComentario", comentario.getId()));
 
-			stmt.executeUpdate();
-
-			ConnectionFactory.closeConnection(con, stmt);
+			if (alterados == 0)
+				return comentarioNaoEncontrado();
 
 			// Retorna a resposta 200.
 			return Response.ok("Comentario atualizado!").build();
@@ -184,17 +212,8 @@ public class ComentarioDAO {
 	public Response deleteComentario(Long idComentario) {
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
-
-			String sql = "DELETE FROM comentarios WHERE idComentario = ?;";
-
-			PreparedStatement stmt = con.prepareStatement(sql);
-
-			stmt.setLong(1, idComentario);
-
-			stmt.executeUpdate();
-
-			ConnectionFactory.closeConnection(con, stmt);
+			// A remoção e a atualização do resumo do artigo são feitas na mesma transação.
+			ConnectionFactory.write(localizaShard(idComentario), con -> removeComentario(idComentario, con));
 
 			// Retorna a resposta 200.
 			return Response.ok("Comentario deletado com sucesso!").build();
@@ -224,44 +243,71 @@ public class ComentarioDAO {
 	 *         ListaDeComentarios.
 	 */
 	public ListaDeComentarios listComentario(int size, int page, String permalink) {
+		return listComentario(size, page, permalink, Campos.todos(Comentario.class));
+	}
 
-		List<Comentario> comentarios = new ArrayList<>();
+	/**
+	 * Método que retorna uma lista de comentários, lendo apenas os campos
+	 * escolhidos.
+	 * 
+	 * @param size      Quantidade de comentários por página, o padrão é 5.
+	 * @param page      Página da lista, por padrão será a primeira.
+	 * @param permalink Permalink para buscar comentários de um artigo em
+	 *                  específico.
+	 * @param campos    Campos dos comentários lidos do banco.
+	 * @return Retorna um objeto do tipo ListaDeComentarios.
+	 * @throws IllegalArgumentException Caso, com mais de um shard e sem
+	 *                                  permalink, a página comece depois de
+	 *                                  webedia.shards.offset comentários.
+	 */
+	public ListaDeComentarios listComentario(int size, int page, String permalink, Campos campos) {
 
 		try {
 
-			Connection con = ConnectionFactory.getConnection();
-
-			// SQL para selecionar todos os comentários. Se tiver permalink, busca os
-			// comentários de um artigo específico
-			String sql;
-			if (permalink == null)
-				sql = "SELECT * FROM comentarios;";
-			else {
-				sql = String.format(
-						"SELECT comentarios.* FROM comentarios INNER JOIN artigos ON comentarios.idArtigo = artigos.idArtigo WHERE artigos.permalink = '%s';",
-						permalink);
+			// Os comentários de um artigo estão todos no shard do artigo.
+			int shardArtigo = permalink == null ? 0 : artigoDao.localizaShard(permalink);
+
+			// A paginação é calculada a partir do total de comentários, mantido pelas
+			// tabelas de contagem, e apenas os comentários da página são buscados no
+			// banco.
+			int total = 0;
+			if (permalink != null) {
+				total = Contagens.comentarios(shardArtigo, permalink);
+			} else {
+				for (int shard = 0; shard < ConnectionFactory.getShardCount(); shard++)
+					total += Contagens.total(shard, "comentarios");
 			}
 
-			PreparedStatement stmt = con.prepareStatement(sql);
+			Paginacao paginacao = new Paginacao(total, size, page);
 
-			ResultSet rs = stmt.executeQuery();
+			List<Comentario> comentarios;
 
-			while (rs.next()) {
-				Comentario comentario = new Comentario();
-				comentario.setId(rs.getLong("idComentario"));
-				comentario.setIdArtigo(rs.getLong("idArtigo"));
-				comentario.setData(rs.getString("data"));
-				comentario.setTexto(rs.getString("texto"));
-				comentario.setUsuario(rs.getString("usuario"));
+			if (permalink != null || ConnectionFactory.getShardCount() == 1) {
+				comentarios = listComentarioShard(shardArtigo, permalink, paginacao.getOffset(), paginacao.getSize(),
+						campos);
+			} else {
+				// Os comentários de todos os shards são reunidos na ordem dos ids, assim a
+				// paginação não depende da distribuição dos artigos. Cada shard precisa
+				// enviar todos os comentários até o fim da página, então as páginas
+				// profundas são recusadas.
+				if (paginacao.getOffset() > ArtigoDAO.OFFSET_MAXIMO)
+					throw new IllegalArgumentException("Página além dos primeiros " + ArtigoDAO.OFFSET_MAXIMO
+							+ " comentários. Utilize a listagem dos comentários de cada artigo.");
 
-				comentarios.add(comentario);
-			}
+				int limite = paginacao.getOffset() + paginacao.getSize();
 
-			ConnectionFactory.closeConnection(con, stmt, rs);
+				comentarios = new ArrayList<>();
+				for (int shard = 0; shard < ConnectionFactory.getShardCount(); shard++)
+					comentarios.addAll(listComentarioShard(shard, null, 0, limite, campos));
+
+				comentarios.sort(Comparator.comparing(Comentario::getId));
+				comentarios = new ArrayList<>(comentarios.subList(Math.min(paginacao.getOffset(), comentarios.size()),
+						Math.min(limite, comentarios.size())));
+			}
 
 			// Retorna o objeto do tipo ListaDeComentarios, que além
 			// de conter os comentários, contém as informações e paginação;
-			return new ListaDeComentarios(comentarios, size, page, permalink);
+			return new ListaDeComentarios(comentarios, paginacao, permalink);
 
 		} catch (SQLException e) {
 
@@ -275,6 +321,160 @@ public class ComentarioDAO {
 
 	}
 
+	// Lista uma faixa dos comentários de um shard, na ordem dos ids. Se tiver
+	// permalink, apenas os do artigo.
+	private List<Comentario> listComentarioShard(int shard, String permalink, int offset, int limite,
+			Campos campos) throws SQLException {
+
+		List<Comentario> comentarios = new ArrayList<>();
+
+		Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+
+		try {
+			// SQL para selecionar todos os comentários. Se tiver permalink, busca os
+			// comentários de um artigo específico
+			String sql;
+			if (permalink == null)
+				sql = "SELECT " + colunas(campos) + " FROM comentarios ORDER BY idComentario LIMIT ? OFFSET ?;";
+			else
+				sql = "SELECT " + colunas(campos)
+						+ " FROM comentarios INNER JOIN artigos ON comentarios.idArtigo = artigos.idArtigo WHERE artigos.permalink = ? ORDER BY comentarios.idComentario LIMIT ? OFFSET ?;";
+
+			PreparedStatement stmt = con.prepareStatement(sql);
+
+			int parametro = 1;
+			if (permalink != null)
+				stmt.setString(parametro++, permalink);
+
+			stmt.setInt(parametro++, limite);
+			stmt.setInt(parametro, offset);
+
+			ResultSet rs = stmt.executeQuery();
+
+			while (rs.next())
+				comentarios.add(criaComentario(rs, campos));
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+
+		return comentarios;
+	}
+
+	// Insere o comentário e atualiza o resumo dos comentários do artigo,
+	// retornando o id gerado. Um comentário com id já reservado, vindo da
+	// FilaDeComentarios, é gravado com esse id.
+	Long insereComentario(Comentario comentario, Connection con, int shard) throws SQLException {
+
+		// Com o id nulo, o próprio SQLite gera o id.
+		String sql = "INSERT INTO comentarios (idComentario, usuario, texto, data, idArtigo) VALUES (?, ?, ?, datetime('now','localtime'), ?);";
+
+		Long ultimoId;
+
+		// Cria o PreparedStatement, com a opção de retornar possíveis Primary Keys
+		// geradas na execução.
+		try (PreparedStatement stmt = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+			stmt.setObject(1, comentario.getId() != null ? comentario.getId()
+					: ConnectionFactory.nextId(con, "comentarios", "idComentario", shard));
+			stmt.setString(2, comentario.getUsuario());
+			stmt.setString(3, comentario.getTexto());
+			stmt.setLong(4, comentario.getIdArtigo());
+
+			stmt.executeUpdate();
+
+			// Retorna primary keys geradas no processo.
+			try (ResultSet rs = stmt.getGeneratedKeys()) {
+				ultimoId = rs.getLong(1);
+			}
+		}
+
+		// O novo comentário é o último do artigo.
+		sql = "UPDATE artigos SET commentCount = commentCount + 1, lastCommentAt = (SELECT data FROM comentarios WHERE idComentario = ?) WHERE idArtigo = ?;";
+
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+			stmt.setLong(1, ultimoId);
+			stmt.setLong(2, comentario.getIdArtigo());
+			stmt.executeUpdate();
+		}
+
+		return ultimoId;
+	}
+
+	// Remove o comentário e atualiza o resumo dos comentários do artigo,
+	// retornando a quantidade de comentários removidos.
+	private int removeComentario(Long idComentario, Connection con) throws SQLException {
+
+		long idArtigo;
+		String data;
+
+		try (PreparedStatement stmt = con
+				.prepareStatement("SELECT idArtigo, data FROM comentarios WHERE idComentario = ?;")) {
+
+			stmt.setLong(1, idComentario);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				if (!rs.next())
+					return 0;
+
+				idArtigo = rs.getLong("idArtigo");
+				data = rs.getString("data");
+			}
+		}
+
+		try (PreparedStatement stmt = con.prepareStatement("DELETE FROM comentarios WHERE idComentario = ?;")) {
+			stmt.setLong(1, idComentario);
+			stmt.executeUpdate();
+		}
+
+		// A data do último comentário só é buscada de novo quando o comentário
+		// removido era o último.
+		String sql = "UPDATE artigos SET commentCount = commentCount - 1, lastCommentAt = CASE WHEN lastCommentAt IS ? "
+				+ "THEN (SELECT MAX(data) FROM comentarios WHERE idArtigo = ?) ELSE lastCommentAt END WHERE idArtigo = ?;";
+
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+			stmt.setString(1, data);
+			stmt.setLong(2, idArtigo);
+			stmt.setLong(3, idArtigo);
+			stmt.executeUpdate();
+		}
+
+		return 1;
+	}
+
+	// Retorna o shard do comentário. Os comentários novos estão no shard dado pelo
+	// id, e os anteriores à distribuição podem estar em qualquer um.
+	private int localizaShard(Long idComentario) {
+
+		int total = ConnectionFactory.getShardCount();
+		if (total == 1 || idComentario == null)
+			return 0;
+
+		int provavel = ConnectionFactory.getShard(idComentario);
+
+		for (int i = 0; i < total; i++) {
+
+			int shard = (provavel + i) % total;
+
+			Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+			try (PreparedStatement stmt = con.prepareStatement("SELECT 1 FROM comentarios WHERE idComentario = ?;")) {
+
+				stmt.setLong(1, idComentario);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					if (rs.next())
+						return shard;
+				}
+
+			} catch (SQLException e) {
+				ConsoleView.addText("Erro ao executar requisição: " + e.getMessage());
+			} finally {
+				ConnectionFactory.closeConnection(con);
+			}
+		}
+
+		return provavel;
+	}
+
 	/**
 	 * 
 	 * Método que retorna uma lista de comentários relacionados à um artigo.
@@ -288,35 +488,168 @@ public class ComentarioDAO {
 	 * 
 	 * 
 	 * @param idArtigo ID do artigo relacionado.
-	 * @param rs       ResultSet que irá guardar os comentários.
-	 * @param stmt     PreparedStatement que irá executar o sql.
-	 * @param con      Conexão já aberta com o banco de dados.
+	 * @param con      Conexão já aberta com o banco de dados. A conexão não é
+	 *                 fechada pelo método.
 	 * @return Retorna um objeto do tipo List, contendo os autores.
 	 * @throws SQLException
 	 */
-	public List<Comentario> listComentarioPorArtigo(Long idArtigo, Connection con, PreparedStatement stmt, ResultSet rs)
-			throws SQLException {
+	public List<Comentario> listComentarioPorArtigo(Long idArtigo, Connection con) throws SQLException {
+		return listComentarioPorArtigo(idArtigo, 0, con);
+	}
+
+	/**
+	 * Método que retorna os comentários mais recentes de um artigo, na ordem em
+	 * que foram criados.
+	 * 
+	 * @param idArtigo ID do artigo relacionado.
+	 * @param limite   Quantidade de comentários mais recentes, ou 0 para todos.
+	 * @param con      Conexão já aberta com o banco de dados. A conexão não é
+	 *                 fechada pelo método.
+	 * @return Retorna um objeto do tipo List, contendo os comentários.
+	 * @throws SQLException
+	 */
+	public List<Comentario> listComentarioPorArtigo(Long idArtigo, int limite, Connection con) throws SQLException {
 
 		List<Comentario> comentarios = new ArrayList<>();
 
-		String sql = "SELECT * FROM comentarios WHERE idArtigo = ?";
+		// Com limite, os mais recentes são escolhidos pela ordem decrescente do id e
+		// devolvidos na ordem crescente, a mesma da lista completa.
+		String sql;
+		if (limite > 0)
+			sql = "SELECT * FROM (SELECT * FROM comentarios WHERE idArtigo = ? ORDER BY idComentario DESC LIMIT ?) ORDER BY idComentario;";
+		else
+			sql = "SELECT * FROM comentarios WHERE idArtigo = ? ORDER BY idComentario;";
+
+		// O statement é fechado ao final, pois a conexão continua em uso pelo
+		// chamador.
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+			stmt.setLong(1, idArtigo);
+			if (limite > 0)
+				stmt.setInt(2, limite);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+
+				while (rs.next()) {
+					Comentario comentario = new Comentario();
+					comentario.setData(rs.getString("data"));
+					comentario.setId(rs.getLong("idComentario"));
+					comentario.setTexto(rs.getString("texto"));
+					comentario.setUsuario(rs.getString("usuario"));
+					comentario.setIdArtigo(idArtigo);
+
+					comentarios.add(comentario);
+				}
+			}
+		}
 
-		stmt = con.prepareStatement(sql);
-		stmt.setLong(1, idArtigo);
+		return comentarios;
+	}
 
-		rs = stmt.executeQuery();
+	/**
+	 * Método que retorna os comentários de vários artigos, com uma consulta para
+	 * cada {@link Lotes#TAMANHO} artigos, em vez de uma consulta por artigo.
+	 * <p>
+	 * Esse método é utilizado de forma interna, na listagem de artigos da classe
+	 * ArtigoDAO. Ele não envia a lista via HTTP.
+	 * </p>
+	 * 
+	 * @param idsArtigo IDs dos artigos relacionados.
+	 * @param con       Conexão já aberta com o banco de dados. A conexão não é
+	 *                  fechada pelo método.
+	 * @return Retorna um Map com a lista de comentários de cada artigo, pelo
+	 *         idArtigo. Artigos sem comentários não aparecem no Map.
+	 * @throws SQLException
+	 */
+	public Map<Long, List<Comentario>> listComentarioPorArtigos(List<Long> idsArtigo, Connection con)
+			throws SQLException {
+		return listComentarioPorArtigos(idsArtigo, 0, con);
+	}
 
-		while (rs.next()) {
-			Comentario comentario = new Comentario();
+	/**
+	 * Método que retorna os comentários mais recentes de vários artigos, na ordem
+	 * em que foram criados, com uma consulta para cada {@link Lotes#TAMANHO}
+	 * artigos.
+	 * 
+	 * @param idsArtigo IDs dos artigos relacionados.
+	 * @param limite    Quantidade de comentários mais recentes de cada artigo, ou
+	 *                  0 para todos.
+	 * @param con       Conexão já aberta com o banco de dados. A conexão não é
+	 *                  fechada pelo método.
+	 * @return Retorna um Map com a lista de comentários de cada artigo, pelo
+	 *         idArtigo. Artigos sem comentários não aparecem no Map.
+	 * @throws SQLException
+	 */
+	public Map<Long, List<Comentario>> listComentarioPorArtigos(List<Long> idsArtigo, int limite, Connection con)
+			throws SQLException {
+
+		Map<Long, List<Comentario>> comentarios = new HashMap<>();
+
+		for (List<Long> lote : Lotes.divide(idsArtigo)) {
+
+			// Com limite, os comentários de cada artigo são numerados do mais recente
+			// para o mais antigo, e apenas os primeiros de cada artigo são lidos.
+			String sql;
+			if (limite > 0)
+				sql = "SELECT * FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY idArtigo ORDER BY idComentario DESC) AS posicao FROM comentarios WHERE idArtigo IN "
+						+ Lotes.parametros(lote.size()) + ") WHERE posicao <= ? ORDER BY idComentario;";
+			else
+				sql = "SELECT * FROM comentarios WHERE idArtigo IN " + Lotes.parametros(lote.size())
+						+ " ORDER BY idComentario;";
+
+			try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+				for (int i = 0; i < lote.size(); i++)
+					stmt.setLong(i + 1, lote.get(i));
+				if (limite > 0)
+					stmt.setInt(lote.size() + 1, limite);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+
+					while (rs.next()) {
+						Comentario comentario = new Comentario();
+						comentario.setData(rs.getString("data"));
+						comentario.setId(rs.getLong("idComentario"));
+						comentario.setTexto(rs.getString("texto"));
+						comentario.setUsuario(rs.getString("usuario"));
+						comentario.setIdArtigo(rs.getLong("idArtigo"));
+
+						comentarios.computeIfAbsent(comentario.getIdArtigo(), id -> new ArrayList<>()).add(comentario);
+					}
+				}
+			}
+		}
+
+		return comentarios;
+	}
+
+	// Colunas do SELECT de comentários. O id é sempre lido, pois é usado na
+	// ordenação.
+	private static String colunas(Campos campos) {
+		return campos.colunas("comentarios", COLUNAS, "idComentario");
+	}
+
+	// Cria o comentário a partir da linha atual. Apenas as colunas dos campos
+	// escolhidos estão na linha.
+	private Comentario criaComentario(ResultSet rs, Campos campos) throws SQLException {
+
+		Comentario comentario = new Comentario();
+		comentario.setId(rs.getLong("idComentario"));
+
+		if (campos.contem("idArtigo"))
+			comentario.setIdArtigo(rs.getLong("idArtigo"));
+		if (campos.contem("data"))
 			comentario.setData(rs.getString("data"));
-			comentario.setId(rs.getLong("idComentario"));
+		if (campos.contem("texto"))
 			comentario.setTexto(rs.getString("texto"));
+		if (campos.contem("usuario"))
 			comentario.setUsuario(rs.getString("usuario"));
-			comentario.setIdArtigo(idArtigo);
 
-			comentarios.add(comentario);
-		}
+		return comentario;
+	}
 
-		return comentarios;
+	// Resposta 404 da alteração de um comentário que não existe.
+	private static Response comentarioNaoEncontrado() {
+		return Response.status(Response.Status.NOT_FOUND).entity("Comentário não encontrado!").build();
 	}
-}
\ No newline at end of file
+}
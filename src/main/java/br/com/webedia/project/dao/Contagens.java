@@ -0,0 +1,77 @@
+package br.com.webedia.project.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+
+/**
+ * <h1>Contagens</h1>
+ * <p>
+ * Leitura dos totais usados na paginação. O total de cada tabela fica na tabela
+ * contagens, mantida por triggers criados na inicialização pelo
+ * {@link ConnectionFactory}, e o total de comentários de cada artigo fica na
+ * coluna commentCount, mantida pelo {@link ComentarioDAO}. Cada leitura é uma
+ * busca por chave, em vez de um COUNT sobre a tabela inteira.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class Contagens {
+
+	private Contagens() {
+	}
+
+	/**
+	 * Método que retorna o total de linhas de uma tabela em um shard.
+	 *
+	 * @param shard  Shard consultado.
+	 * @param tabela Nome da tabela: artigos, autores ou comentarios.
+	 * @return Total de linhas.
+	 * @throws SQLException
+	 */
+	static int total(int shard, String tabela) throws SQLException {
+
+		Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+
+		try (PreparedStatement stmt = con.prepareStatement("SELECT total FROM contagens WHERE tabela = ?;")) {
+
+			stmt.setString(1, tabela);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Método que retorna o total de comentários de um artigo.
+	 *
+	 * @param shard     Shard do artigo.
+	 * @param permalink Permalink do artigo.
+	 * @return Total de comentários, ou 0 se o artigo não existir.
+	 * @throws SQLException
+	 */
+	static int comentarios(int shard, String permalink) throws SQLException {
+
+		String sql = "SELECT commentCount FROM artigos WHERE permalink = ?;";
+
+		Connection con = ConnectionFactory.getReadOnlyConnection(shard);
+
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+			stmt.setString(1, permalink);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package br.com.webedia.project.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.sqlite.SQLiteErrorCode;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+import br.com.webedia.project.connection.ShardRouter;
+import br.com.webedia.project.connection.UnitOfWork;
+import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.view.ConsoleView;
+
+/**
+ * <h1>FilaDeComentarios</h1>
+ * <p>
+ * Gravação adiada dos comentários (write-behind). Com a propriedade
+ * webedia.comentarios.fila=true, o {@link ComentarioDAO} valida o comentário,
+ * reserva o id e coloca o comentário nesta fila, respondendo antes da gravação.
+ * Uma thread grava os comentários da fila em lotes de até
+ * webedia.comentarios.lote itens (padrão 500), esperando até
+ * webedia.comentarios.intervalo ms (padrão 5) por novos comentários antes de
+ * gravar.
+ * </p>
+ * <p>
+ * A fila guarda no máximo webedia.comentarios.capacidade comentários (padrão
+ * 10000), contando também os que estão sendo gravados. Com a fila cheia, quem
+ * adiciona espera até webedia.comentarios.espera ms (padrão 100) por espaço, e
+ * então o comentário é recusado.
+ * </p>
+ * <p>
+ * Os ids são reservados por shard, a partir do maior id gravado, na ordem em
+ * que os comentários entram na fila. Enquanto a fila existir, ela é a única a
+ * gerar ids de comentários. No fechamento, todos os comentários da fila são
+ * gravados antes da thread parar. O encerramento da aplicação é tratado pelo
+ * Server, que fecha a fila antes dos escritores.
+ * </p>
+ * <p>
+ * Se a escrita de um shard falhar, ela é repetida, com esperas cada vez maiores
+ * de até 1 segundo, até funcionar. Enquanto isso as vagas do lote continuam
+ * ocupadas, e com a fila cheia os novos comentários são recusados. Apenas um
+ * comentário recusado pelo banco, como o de um artigo removido depois da
+ * validação, é descartado: o id aparece no console, e o link entregue ao
+ * cliente responde 404. No fechamento, a escrita é repetida no máximo
+ * webedia.comentarios.tentativas vezes (padrão 3), para a aplicação não ficar
+ * presa a um banco indisponível.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public final class FilaDeComentarios {
+
+	// Comentário aceito, com o id já reservado.
+	private static final class Item {
+
+		private final Comentario comentario;
+		private final int shard;
+
+		private Item(Comentario comentario, int shard) {
+			this.comentario = comentario;
+			this.shard = shard;
+		}
+	}
+
+	// Item utilizado para acordar a thread no fechamento.
+	private static final Item FIM = new Item(null, 0);
+
+	private static FilaDeComentarios instancia;
+
+	/* Configurações */
+	private final int tamanhoLote;
+	private final long intervalo;
+	private final long espera;
+	private final int tentativas;
+
+	/* Estado */
+	private final BlockingQueue<Item> fila = new LinkedBlockingQueue<>();
+	private final Semaphore vagas;
+	private final Map<Integer, Long> ultimosIds = new HashMap<>();
+	private final ComentarioDAO dao = new ComentarioDAO();
+	private final Thread thread;
+	private volatile boolean fechada;
+
+	/**
+	 * Construtor da fila. Assim que é criada, inicia a thread de gravação.
+	 *
+	 * @param capacidade  Comentários aceitos e ainda não gravados, no máximo.
+	 * @param tamanhoLote Quantidade máxima de comentários em uma gravação.
+	 * @param intervalo   Tempo, em milissegundos, que a thread espera por novos
+	 *                    comentários antes de gravar.
+	 * @param espera      Tempo, em milissegundos, de espera por espaço na fila
+	 *                    cheia.
+	 * @param tentativas  Quantidade máxima de escritas de um mesmo lote em um
+	 *                    shard, quando a escrita falha durante o fechamento.
+	 */
+	FilaDeComentarios(int capacidade, int tamanhoLote, long intervalo, long espera, int tentativas) {
+
+		this.vagas = new Semaphore(Math.max(1, capacidade));
+		this.tamanhoLote = Math.max(1, tamanhoLote);
+		this.intervalo = Math.max(0, intervalo);
+		this.espera = Math.max(0, espera);
+		this.tentativas = Math.max(1, tentativas);
+
+		this.thread = new Thread(this::executa, "gravador-comentarios");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * @return Verdadeiro se os comentários devem ser gravados pela fila.
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean("webedia.comentarios.fila");
+	}
+
+	/**
+	 * @return Fila de comentários, criada na primeira chamada.
+	 */
+	static synchronized FilaDeComentarios get() {
+
+		if (instancia == null)
+			instancia = new FilaDeComentarios(Integer.getInteger("webedia.comentarios.capacidade", 10000),
+					Integer.getInteger("webedia.comentarios.lote", 500),
+					Long.getLong("webedia.comentarios.intervalo", 5), Long.getLong("webedia.comentarios.espera", 100),
+					Integer.getInteger("webedia.comentarios.tentativas", 3));
+
+		return instancia;
+	}
+
+	/**
+	 * Método que grava os comentários da fila e para a thread de gravação. Uma
+	 * nova chamada ao {@link #get()} cria uma nova fila.
+	 */
+	public static synchronized void fecha() {
+
+		if (instancia != null) {
+			instancia.close();
+			instancia = null;
+		}
+	}
+
+	/**
+	 * Método que reserva o id do comentário e o coloca na fila. O comentário já
+	 * deve estar validado.
+	 *
+	 * @param comentario Comentário a ser gravado. Recebe o id reservado.
+	 * @param shard      Shard do artigo do comentário.
+	 * @return Id reservado, ou nulo se a fila continuar cheia depois da espera.
+	 * @throws SQLException Caso a fila esteja fechada ou a leitura do último id
+	 *                      falhe.
+	 */
+	Long adiciona(Comentario comentario, int shard) throws SQLException {
+
+		try {
+			if (!vagas.tryAcquire(espera, TimeUnit.MILLISECONDS))
+				return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Espera pela fila de comentários interrompida");
+		}
+
+		try {
+
+			// Os ids entram na fila na mesma ordem em que são reservados.
+			synchronized (this) {
+
+				if (fechada)
+					throw new SQLException("Fila de comentários fechada!");
+
+				Long ultimo = ultimosIds.get(shard);
+				if (ultimo == null)
+					ultimo = ConnectionFactory.write(shard,
+							con -> ShardRouter.ultimoId(con, "comentarios", "idComentario"));
+
+				long id = ConnectionFactory.nextId(ultimo, shard);
+				ultimosIds.put(shard, id);
+
+				comentario.setId(id);
+				fila.add(new Item(comentario, shard));
+				return id;
+			}
+
+		} catch (SQLException | RuntimeException e) {
+			vagas.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Método que fecha a fila. Os comentários que já estão na fila são gravados
+	 * antes da thread parar.
+	 */
+	void close() {
+
+		synchronized (this) {
+			if (fechada)
+				return;
+			fechada = true;
+			fila.add(FIM);
+		}
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Laço da thread de gravação.
+	private void executa() {
+
+		List<Item> lote = new ArrayList<>(tamanhoLote);
+		boolean fim = false;
+
+		while (!fim) {
+
+			lote.clear();
+
+			try {
+				fim = coletaLote(lote);
+			} catch (InterruptedException e) {
+				fim = true;
+			}
+
+			if (!lote.isEmpty())
+				grava(lote);
+		}
+	}
+
+	// Monta o próximo lote. Retorna verdadeiro quando a thread deve parar.
+	private boolean coletaLote(List<Item> lote) throws InterruptedException {
+
+		Item item = fila.take();
+		long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalo);
+
+		while (item != FIM) {
+
+			lote.add(item);
+			if (lote.size() >= tamanhoLote)
+				return false;
+
+			// Pega o que já estiver na fila e, dentro do intervalo, espera por mais.
+			item = fila.poll();
+			if (item == null) {
+				long restante = limite - System.nanoTime();
+				if (restante <= 0)
+					return false;
+				item = fila.poll(restante, TimeUnit.NANOSECONDS);
+				if (item == null)
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	// Grava o lote com uma escrita por shard. Cada comentário roda na própria
+	// unidade: um comentário recusado, como o de um artigo removido depois da
+	// validação, não desfaz os outros. Nenhuma falha pode parar a thread nem
+	// deixar as vagas do lote presas.
+	private void grava(List<Item> lote) {
+
+		try {
+
+			Map<Integer, List<Comentario>> porShard = new TreeMap<>();
+			for (Item item : lote)
+				porShard.computeIfAbsent(item.shard, s -> new ArrayList<>()).add(item.comentario);
+
+			for (Map.Entry<Integer, List<Comentario>> entrada : porShard.entrySet())
+				gravaShard(entrada.getKey(), entrada.getValue());
+
+		} finally {
+			vagas.release(lote.size());
+		}
+	}
+
+	// Uma falha da escrita inteira desfaz todos os comentários dela, assim a
+	// escrita pode ser repetida sem gravar um comentário duas vezes.
+	private void gravaShard(int shard, List<Comentario> comentarios) {
+
+		for (int tentativa = 1;; tentativa++) {
+			try {
+				int recusados = ConnectionFactory.write(shard, con -> {
+
+					int falhas = 0;
+					for (Comentario comentario : comentarios) {
+						try {
+							UnitOfWork.run(con, c -> dao.insereComentario(comentario, c, shard));
+						} catch (SQLException e) {
+							// Só a recusa do próprio comentário é definitiva. As outras falhas
+							// desfazem a escrita inteira, que é repetida.
+							if (e.getErrorCode() != SQLiteErrorCode.SQLITE_CONSTRAINT.code)
+								throw e;
+							falhas++;
+							ConsoleView.addText("Comentário " + comentario.getId() + " não gravado: " + e.getMessage());
+						} catch (RuntimeException e) {
+							falhas++;
+							ConsoleView.addText("Comentário " + comentario.getId() + " não gravado: " + e.getMessage());
+						}
+					}
+					return falhas;
+				});
+
+				if (recusados > 0)
+					ConsoleView.addText(recusados + " comentário(s) da fila recusado(s) no shard " + shard);
+				return;
+
+			} catch (SQLException | RuntimeException e) {
+
+				ConsoleView.addText("Erro ao gravar " + comentarios.size() + " comentário(s) da fila no shard " + shard
+						+ " (tentativa " + tentativa + "): " + e.getMessage());
+
+				if ((fechada && tentativa >= tentativas) || !pausa(tentativa)) {
+					List<Long> ids = new ArrayList<>(comentarios.size());
+					for (Comentario comentario : comentarios)
+						ids.add(comentario.getId());
+					ConsoleView.addText("Comentários da fila não gravados no shard " + shard + ": " + ids);
+					return;
+				}
+			}
+		}
+	}
+
+	// Espera antes de repetir a escrita, dobrando a cada tentativa até 1 segundo.
+	// Retorna falso se a thread foi interrompida.
+	private static boolean pausa(int tentativa) {
+		try {
+			Thread.sleep(Math.min(1000l, 10l << Math.min(tentativa - 1, 7)));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package br.com.webedia.project.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>Lotes</h1>
+ * <p>
+ * Funções auxiliares para as consultas feitas em lote, com uma lista de ids na
+ * cláusula IN. O SQLite limita a quantidade de parâmetros de um comando, então
+ * listas grandes são divididas em partes.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class Lotes {
+
+	// Quantidade máxima de ids em uma consulta, abaixo do limite de 999
+	// parâmetros do SQLite.
+	static final int TAMANHO = 500;
+
+	private Lotes() {
+	}
+
+	/**
+	 * Método que divide a lista de ids em partes de no máximo {@link #TAMANHO}
+	 * elementos.
+	 *
+	 * @param ids Lista de ids, ou de outros valores da cláusula IN.
+	 * @return Lista com as partes, na mesma ordem.
+	 */
+	static <T> List<List<T>> divide(List<T> ids) {
+
+		List<List<T>> partes = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i += TAMANHO)
+			partes.add(ids.subList(i, Math.min(ids.size(), i + TAMANHO)));
+
+		return partes;
+	}
+
+	/**
+	 * Método que monta a lista de parâmetros da cláusula IN.
+	 *
+	 * @param quantidade Quantidade de parâmetros.
+	 * @return String no formato "(?, ?, ?)".
+	 */
+	static String parametros(int quantidade) {
+
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < quantidade; i++)
+			sb.append(i == 0 ? "?" : ", ?");
+
+		return sb.append(")").toString();
+	}
+}
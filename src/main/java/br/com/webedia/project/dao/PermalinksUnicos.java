@@ -0,0 +1,145 @@
+package br.com.webedia.project.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+
+/**
+ * <h1>PermalinksUnicos</h1>
+ * <p>
+ * Com mais de um shard, a restrição UNIQUE do permalink vale apenas dentro de
+ * cada arquivo. Um artigo que muda de título continua no shard do seu id, e um
+ * novo artigo com o mesmo permalink pode ser colocado em outro shard pelo hash.
+ * Esta classe procura o permalink nos outros shards antes da criação e da
+ * troca de título.
+ * </p>
+ * <p>
+ * A procura e a gravação são feitas com a trava do permalink, assim duas
+ * gravações do mesmo permalink em shards diferentes nunca acontecem ao mesmo
+ * tempo. As travas são divididas pelo hash do permalink. Com apenas um shard,
+ * nada disso é feito, e a restrição UNIQUE basta.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class PermalinksUnicos {
+
+	/**
+	 * Gravação feita com as travas dos permalinks.
+	 *
+	 * @param <T> Tipo do resultado da gravação.
+	 */
+	@FunctionalInterface
+	interface Gravacao<T> {
+		T executa() throws SQLException;
+	}
+
+	private static final ReentrantLock[] travas = new ReentrantLock[64];
+
+	static {
+		for (int i = 0; i < travas.length; i++)
+			travas[i] = new ReentrantLock();
+	}
+
+	private PermalinksUnicos() {
+	}
+
+	/**
+	 * Método que executa a gravação com as travas dos permalinks. As travas são
+	 * pegas sempre na mesma ordem, assim duas gravações nunca esperam uma pela
+	 * outra.
+	 *
+	 * @param permalinks Permalinks gravados.
+	 * @param gravacao   Procura e gravação dos artigos.
+	 * @return Resultado da gravação.
+	 * @throws SQLException Caso a gravação falhe.
+	 */
+	static <T> T grava(Collection<String> permalinks, Gravacao<T> gravacao) throws SQLException {
+
+		if (ConnectionFactory.getShardCount() == 1)
+			return gravacao.executa();
+
+		Set<Integer> indices = new TreeSet<>();
+		for (String permalink : permalinks)
+			indices.add(Math.floorMod(permalink.hashCode(), travas.length));
+
+		List<ReentrantLock> pegas = new ArrayList<>(indices.size());
+
+		try {
+			for (int indice : indices) {
+				travas[indice].lock();
+				pegas.add(travas[indice]);
+			}
+
+			return gravacao.executa();
+
+		} finally {
+			for (ReentrantLock trava : pegas)
+				trava.unlock();
+		}
+	}
+
+	/**
+	 * Método que procura os permalinks nos shards diferentes do shard da
+	 * gravação, com uma consulta por shard. Deve ser chamado dentro de
+	 * {@link #grava(Collection, Gravacao)}.
+	 *
+	 * @param permalinks Permalinks procurados.
+	 * @param shard      Shard da gravação, onde a restrição UNIQUE já vale.
+	 * @return Permalinks que já existem em outro shard.
+	 * @throws SQLException Caso alguma consulta falhe.
+	 */
+	static Set<String> existentes(Collection<String> permalinks, int shard) throws SQLException {
+
+		Set<String> existentes = new HashSet<>();
+
+		int total = ConnectionFactory.getShardCount();
+		if (total == 1 || permalinks.isEmpty())
+			return existentes;
+
+		List<String> distintos = new ArrayList<>(new LinkedHashSet<>(permalinks));
+
+		for (int outro = 0; outro < total; outro++) {
+
+			if (outro == shard)
+				continue;
+
+			Connection con = ConnectionFactory.getReadOnlyConnection(outro);
+
+			try {
+				for (List<String> parte : Lotes.divide(distintos)) {
+
+					String sql = "SELECT permalink FROM artigos WHERE permalink IN "
+							+ Lotes.parametros(parte.size()) + ";";
+
+					try (PreparedStatement stmt = con.prepareStatement(sql)) {
+
+						for (int i = 0; i < parte.size(); i++)
+							stmt.setString(i + 1, parte.get(i));
+
+						try (ResultSet rs = stmt.executeQuery()) {
+							while (rs.next())
+								existentes.add(rs.getString(1));
+						}
+					}
+				}
+			} finally {
+				ConnectionFactory.closeConnection(con);
+			}
+		}
+
+		return existentes;
+	}
+}
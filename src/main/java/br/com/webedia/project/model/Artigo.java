@@ -31,6 +31,8 @@ public class Artigo {
 	private String conteudo;
 	private List<Autor> autores = new ArrayList<>();
 	private List<Comentario> comentarios = new ArrayList<>();
+	private Integer commentCount; // Total de comentários, lido apenas no resumo.
+	private String lastCommentAt; // Data do último comentário, lida apenas no resumo.
 
 	public Artigo() {
 
@@ -94,6 +96,8 @@ public class Artigo {
 	 * @return Retorna uma lista não modificável de autores.
 	 */
 	public List<Autor> getAutores() {
+		if (this.autores == null)
+			return Collections.emptyList();
 		return Collections.unmodifiableList(this.autores);
 	}
 
@@ -101,9 +105,41 @@ public class Artigo {
 	 * @return Retorna uma lista não modíficável de comentários.
 	 */
 	public List<Comentario> getComentarios() {
+		if (this.comentarios == null)
+			return Collections.emptyList();
 		return Collections.unmodifiableList(this.comentarios);
 	}
 
+	/**
+	 * Método que remove do artigo as relações que não foram carregadas, para que
+	 * elas não apareçam no Json, em vez de aparecerem como listas vazias.
+	 * 
+	 * @param relacoes Relações carregadas junto com o artigo.
+	 */
+	public void omiteRelacoes(Relacoes relacoes) {
+		if (!relacoes.isAutores())
+			this.autores = null;
+		if (!relacoes.isComentarios())
+			this.comentarios = null;
+	}
+
+	/* Getters e Setters do resumo dos comentários */
+	public Integer getCommentCount() {
+		return commentCount;
+	}
+
+	public void setCommentCount(Integer commentCount) {
+		this.commentCount = commentCount;
+	}
+
+	public String getLastCommentAt() {
+		return lastCommentAt;
+	}
+
+	public void setLastCommentAt(String lastCommentAt) {
+		this.lastCommentAt = lastCommentAt;
+	}
+
 	/* Getters e Setters do permalink */
 	public void setPermalink(String permalink) {
 		this.permalink = permalink;
@@ -175,6 +211,26 @@ public class Artigo {
 	 */
 	public Response validate() {
 
+		Response r = validateContent();
+		if (r != null)
+			return r;
+		else if (!new AutorDAO().verifyAutores(this.autores))
+			return Response.serverError().entity("A lista de autores contém um autor não cadastrado!").build();
+
+		return null;
+
+	}
+
+	/**
+	 * Método que valida o artigo sem consultar o banco de dados. São as mesmas
+	 * regras do {@link #validate()}, menos a dos autores cadastrados, que na
+	 * importação em lote é verificada para todos os artigos de uma vez.
+	 * 
+	 * @return Retorna uma resposta HTTP 500 caso alguma regra seja quebrada, nulo
+	 *         se estiver tudo certo.
+	 */
+	public Response validateContent() {
+
 		if (this.getId() != null)
 			return Response.serverError().entity("ID do artigo é gerado automaticamente, e não deve ser enviado!")
 					.build();
@@ -186,12 +242,10 @@ public class Artigo {
 			return Response.serverError().entity("Permalink é gerado automaticamente, e não deve ser enviado!").build();
 		else if (this.autores.isEmpty())
 			return Response.serverError().entity("O artigo deve ter pelo menos um autor!").build();
-		else if (this.autores.get(0).getId() == null)
+		else if (this.autores.stream().anyMatch(autor -> autor.getId() == null))
 			return Response.serverError().entity("Os autores devem ter ID!").build();
 		else if (this.conteudo == null)
 			return Response.serverError().entity("Conteúdo vazio!").build();
-		else if (!new AutorDAO().verifyAutores(this.autores))
-			return Response.serverError().entity("A lista de autores contém um autor não cadastrado!").build();
 		else if (!this.comentarios.isEmpty())
 			return Response.serverError().entity("Artigos não devem ser criados com comentários!").build();
 
@@ -0,0 +1,153 @@
+package br.com.webedia.project.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * <h1>Campos</h1>
+ * <p>
+ * Campos de um modelo escolhidos pelo parâmetro fields. Os DAOs usam os campos
+ * para montar a lista de colunas do SELECT, e o Json gerado contém apenas os
+ * campos escolhidos, assim as colunas que o cliente não usa nem são lidas do
+ * banco.
+ * </p>
+ * <p>
+ * Os nomes são os mesmos dos atributos do modelo, e também das colunas da
+ * tabela. Sem o parâmetro, todos os campos são usados, como antes.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class Campos {
+
+	private final Class<?> tipo;
+	private final Set<String> nomes; // Nulo quando todos os campos são usados.
+
+	private Campos(Class<?> tipo, Set<String> nomes) {
+		this.tipo = tipo;
+		this.nomes = nomes;
+	}
+
+	/**
+	 * Método que retorna os campos padrões, com todos os atributos do modelo.
+	 *
+	 * @param tipo Classe do modelo.
+	 * @return Objeto do tipo Campos.
+	 */
+	public static Campos todos(Class<?> tipo) {
+		return new Campos(tipo, null);
+	}
+
+	/**
+	 * Método que lê o valor do parâmetro fields.
+	 *
+	 * @param fields Nomes dos campos, separados por vírgula, ou nulo.
+	 * @param tipo   Classe do modelo.
+	 * @return Campos escolhidos. Nulo ou vazio retorna todos os campos.
+	 * @throws IllegalArgumentException Caso algum nome não seja um atributo do
+	 *                                  modelo.
+	 */
+	public static Campos parse(String fields, Class<?> tipo) {
+
+		if (fields == null || fields.trim().isEmpty())
+			return todos(tipo);
+
+		Set<String> validos = new HashSet<>();
+		for (Field atributo : tipo.getDeclaredFields())
+			if (!Modifier.isStatic(atributo.getModifiers()))
+				validos.add(atributo.getName());
+
+		Set<String> nomes = new HashSet<>();
+		for (String nome : fields.split(",")) {
+
+			nome = nome.trim();
+
+			if (!validos.contains(nome))
+				throw new IllegalArgumentException("Campo inválido: " + nome);
+
+			nomes.add(nome);
+		}
+
+		return new Campos(tipo, Collections.unmodifiableSet(nomes));
+	}
+
+	/**
+	 * @return Verdadeiro se todos os campos forem usados.
+	 */
+	public boolean isTodos() {
+		return nomes == null;
+	}
+
+	/**
+	 * @param nome Nome do atributo.
+	 * @return Verdadeiro se o campo foi escolhido.
+	 */
+	public boolean contem(String nome) {
+		return nomes == null || nomes.contains(nome);
+	}
+
+	/**
+	 * Método que monta a lista de colunas do SELECT.
+	 *
+	 * @param tabela       Nome da tabela, usado como prefixo das colunas.
+	 * @param colunas      Todas as colunas da tabela, na ordem em que serão
+	 *                     listadas.
+	 * @param obrigatorias Colunas lidas mesmo que não tenham sido escolhidas, como
+	 *                     as usadas na ordenação e nas relações.
+	 * @return Lista de colunas separadas por vírgula, ou "tabela.*" se todos os
+	 *         campos forem usados.
+	 */
+	public String colunas(String tabela, List<String> colunas, String... obrigatorias) {
+
+		if (nomes == null)
+			return tabela + ".*";
+
+		List<String> sempre = Arrays.asList(obrigatorias);
+
+		StringJoiner sj = new StringJoiner(", ");
+		for (String coluna : colunas)
+			if (nomes.contains(coluna) || sempre.contains(coluna))
+				sj.add(tabela + "." + coluna);
+
+		return sj.toString();
+	}
+
+	/**
+	 * Método que transforma o objeto em uma string no formato Json, apenas com os
+	 * campos escolhidos do modelo. Os outros objetos, como as listas paginadas,
+	 * continuam completos.
+	 *
+	 * @param objeto Modelo ou lista de modelos.
+	 * @return String em formato Json.
+	 */
+	public String toJson(Object objeto) {
+
+		if (nomes == null)
+			return new Gson().toJson(objeto);
+
+		return new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+
+			@Override
+			public boolean shouldSkipField(FieldAttributes atributo) {
+				return atributo.getDeclaringClass() == tipo && !nomes.contains(atributo.getName());
+			}
+
+			@Override
+			public boolean shouldSkipClass(Class<?> classe) {
+				return false;
+			}
+		}).create().toJson(objeto);
+	}
+}
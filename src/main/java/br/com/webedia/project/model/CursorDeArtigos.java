@@ -0,0 +1,81 @@
+package br.com.webedia.project.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * <h1>CursorDeArtigos</h1>
+ * <p>
+ * Posição de um artigo na listagem por cursor, que segue a ordem de
+ * (dataPublicacao, idArtigo). O cliente recebe o cursor como uma string opaca,
+ * e a página seguinte começa logo depois do artigo que ele representa.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class CursorDeArtigos {
+
+	// Separador entre a data e o id dentro do cursor.
+	private static final char SEPARADOR = '|';
+
+	private final String dataPublicacao;
+	private final long idArtigo;
+
+	/**
+	 * Construtor da classe CursorDeArtigos.
+	 *
+	 * @param dataPublicacao Data de publicação do último artigo lido.
+	 * @param idArtigo       ID do último artigo lido.
+	 */
+	public CursorDeArtigos(String dataPublicacao, long idArtigo) {
+		this.dataPublicacao = dataPublicacao;
+		this.idArtigo = idArtigo;
+	}
+
+	/**
+	 * Método que cria o cursor que aponta para o artigo.
+	 *
+	 * @param artigo Último artigo de uma página.
+	 * @return Cursor da página seguinte.
+	 */
+	public static CursorDeArtigos of(Artigo artigo) {
+		return new CursorDeArtigos(artigo.getDataPublicacao(), artigo.getId());
+	}
+
+	/**
+	 * Método que lê o cursor recebido do cliente.
+	 *
+	 * @param cursor String gerada pelo {@link #toString()}.
+	 * @return Objeto do tipo CursorDeArtigos.
+	 * @throws IllegalArgumentException Caso a string não seja um cursor válido.
+	 */
+	public static CursorDeArtigos parse(String cursor) {
+
+		String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+		int separador = texto.lastIndexOf(SEPARADOR);
+		if (separador < 0)
+			throw new IllegalArgumentException("Cursor inválido: " + cursor);
+
+		return new CursorDeArtigos(texto.substring(0, separador), Long.parseLong(texto.substring(separador + 1)));
+	}
+
+	public String getDataPublicacao() {
+		return dataPublicacao;
+	}
+
+	public long getIdArtigo() {
+		return idArtigo;
+	}
+
+	/**
+	 * Método que transforma o cursor na string opaca enviada ao cliente, segura
+	 * para ser usada na URL.
+	 */
+	@Override
+	public String toString() {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((dataPublicacao + SEPARADOR + idArtigo).getBytes(StandardCharsets.UTF_8));
+	}
+}
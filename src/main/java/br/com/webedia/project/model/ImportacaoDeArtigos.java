@@ -0,0 +1,131 @@
+package br.com.webedia.project.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.core.Response;
+
+import com.google.gson.Gson;
+
+/**
+ * <h1>ImportacaoDeArtigos</h1>
+ * <p>
+ * Classe que guarda o resultado de uma importação de artigos em lote: o total
+ * de artigos importados e de falhas, e o resultado de cada item, na ordem em
+ * que foram enviados.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class ImportacaoDeArtigos {
+
+	/* Atributos */
+	private int importados;
+	private int falhas;
+	private List<Resultado> resultados = new ArrayList<>();
+
+	/**
+	 * Resultado de um item da importação. O item criado tem o id e o permalink
+	 * do artigo, e o item recusado tem a mensagem de erro.
+	 */
+	public static class Resultado {
+
+		private int item; // Posição do item no corpo da requisição, a partir de 1.
+		private int status;
+		private Long idArtigo;
+		private String permalink;
+		private String erro;
+
+		private Resultado(int status) {
+			this.status = status;
+		}
+
+		/**
+		 * @param artigo Artigo gravado no banco.
+		 * @return Resultado HTTP 201, com o id e o permalink do artigo.
+		 */
+		public static Resultado criado(Artigo artigo) {
+			Resultado resultado = new Resultado(201);
+			resultado.idArtigo = artigo.getId();
+			resultado.permalink = artigo.getPermalink();
+			return resultado;
+		}
+
+		/**
+		 * @param status Código HTTP do erro.
+		 * @param erro   Mensagem de erro.
+		 * @return Resultado de um item recusado.
+		 */
+		public static Resultado erro(int status, String erro) {
+			Resultado resultado = new Resultado(status);
+			resultado.erro = erro;
+			return resultado;
+		}
+
+		/**
+		 * @param resposta Resposta de erro da validação do artigo.
+		 * @return Resultado com o código e a mensagem da resposta.
+		 */
+		public static Resultado erro(Response resposta) {
+			return erro(resposta.getStatus(), String.valueOf(resposta.getEntity()));
+		}
+
+		public int getItem() {
+			return item;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public Long getIdArtigo() {
+			return idArtigo;
+		}
+
+		public String getPermalink() {
+			return permalink;
+		}
+
+		public String getErro() {
+			return erro;
+		}
+	}
+
+	/**
+	 * Método que acrescenta o resultado do próximo item da importação.
+	 *
+	 * @param resultado Resultado do item.
+	 */
+	public void adiciona(Resultado resultado) {
+
+		resultado.item = resultados.size() + 1;
+		resultados.add(resultado);
+
+		if (resultado.status == 201)
+			importados++;
+		else
+			falhas++;
+	}
+
+	/**
+	 * Método que transforma o objeto desta classe em uma string no formato Json.
+	 *
+	 * @return String em formato Json.
+	 */
+	public String toJson() {
+		return new Gson().toJson(this);
+	}
+
+	public int getImportados() {
+		return importados;
+	}
+
+	public int getFalhas() {
+		return falhas;
+	}
+
+	public List<Resultado> getResultados() {
+		return resultados;
+	}
+}
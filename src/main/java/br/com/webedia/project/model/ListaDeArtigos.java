@@ -1,6 +1,5 @@
 package br.com.webedia.project.model;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.google.gson.Gson;
@@ -36,58 +35,33 @@ public class ListaDeArtigos {
 	 */
 	public ListaDeArtigos(List<Artigo> artigosSemPaginacao, int size, int pagina) {
 
-		if (pagina < 1)
-			pagina = 1;
+		Paginacao paginacao = new Paginacao(artigosSemPaginacao.size(), size, pagina);
 
-		if (size <= 0)
-			size = 5;
-
-		this.artigos = new ArrayList<>(size);
-
-		int itensTotal = artigosSemPaginacao.size();
-
-		// Ajusta o tamanho da página, caso o tamanho informado seja maior que o número
-		// de itens.
-		if (size > itensTotal)
-			size = itensTotal;
-
-		setTotalPaginas(itensTotal, size);
-
-		setPagina(pagina);
-
-		setArtigos(artigosSemPaginacao, size);
-
-		setPrev(size);
-
-		setNext(size);
+		inicia(paginacao.recorta(artigosSemPaginacao), paginacao);
+	}
 
+	/**
+	 * Construtor da classe ListaDeArtigos, com os itens de uma página já buscada no
+	 * banco de dados.
+	 * 
+	 * @param artigosDaPagina Artigos da página atual.
+	 * @param paginacao       Paginação calculada a partir do total de itens.
+	 */
+	public ListaDeArtigos(List<Artigo> artigosDaPagina, Paginacao paginacao) {
+		inicia(artigosDaPagina, paginacao);
 	}
 
-	private void setArtigos(List<Artigo> artigosSemPaginacao, int size) {
+	private void inicia(List<Artigo> artigosDaPagina, Paginacao paginacao) {
 
-		// Configura uma váriavel que indica em qual elemento da lista começar.
-		int start = 0;
-		if (this.pagina > 1)
-			start = (this.pagina - 1) * size;
-
-		// Itera a lista de artigos, utilizando a fórmula (start + i), até chegar no
-		// tamanho estipulado, e adiciona na lista filtrada.
-		for (int i = 0; i < size; i++) {
-			try {
-				this.artigos.add(artigosSemPaginacao.get(i + start));
-			} catch (Exception e) {
-				break;
-			}
-		}
+		this.pagina = paginacao.getPagina();
 
-	}
+		this.totalPaginas = paginacao.getTotalPaginas();
 
-	private void setPagina(int pagina) {
+		this.artigos = artigosDaPagina;
 
-		// Configura a página atual, e ajusta caso ela ultrapasse o total de páginas.
-		this.pagina = pagina;
-		if (this.pagina > this.totalPaginas)
-			this.pagina = this.totalPaginas;
+		setPrev(paginacao.getSize());
+
+		setNext(paginacao.getSize());
 	}
 
 	private void setNext(int size) {
@@ -110,14 +84,17 @@ public class ListaDeArtigos {
 
 	}
 
-	private void setTotalPaginas(int itensTotal, int size) {
-
-		// Calcula o total de páginas, e faz um ajuste caso o total seja ímpar.
-		if (itensTotal % size == 0)
-			this.totalPaginas = itensTotal / size;
-		else
-			this.totalPaginas = (itensTotal / size) + 1;
-
+	/**
+	 * Método que acrescenta parâmetros da requisição aos links next e prev, para
+	 * que as outras páginas venham no mesmo formato.
+	 * 
+	 * @param parametros Parâmetros no formato "&amp;nome=valor", ou vazio.
+	 */
+	public void mantemParametros(String parametros) {
+		if (!this.next.isEmpty())
+			this.next += parametros;
+		if (!this.prev.isEmpty())
+			this.prev += parametros;
 	}
 
 	/**
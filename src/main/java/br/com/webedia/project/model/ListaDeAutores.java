@@ -1,6 +1,5 @@
 package br.com.webedia.project.model;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.google.gson.Gson;
@@ -37,30 +36,33 @@ public class ListaDeAutores {
 	 */
 	public ListaDeAutores(List<Autor> autoresSemPaginacao, int size, int pagina) {
 
-		if (pagina < 1)
-			pagina = 1;
+		Paginacao paginacao = new Paginacao(autoresSemPaginacao.size(), size, pagina);
 
-		if (size <= 0)
-			size = 5;
-
-		this.autores = new ArrayList<>(size);
+		inicia(paginacao.recorta(autoresSemPaginacao), paginacao);
+	}
 
-		int itensTotal = autoresSemPaginacao.size();
+	/**
+	 * Construtor da classe ListaDeAutores, com os itens de uma página já buscada no
+	 * banco de dados.
+	 * 
+	 * @param autoresDaPagina Autores da página atual.
+	 * @param paginacao       Paginação calculada a partir do total de itens.
+	 */
+	public ListaDeAutores(List<Autor> autoresDaPagina, Paginacao paginacao) {
+		inicia(autoresDaPagina, paginacao);
+	}
 
-		// Ajusta o tamanho da página, caso o tamanho informado seja maior que o número
-		// de itens.
-		if (size > itensTotal)
-			size = itensTotal;
+	private void inicia(List<Autor> autoresDaPagina, Paginacao paginacao) {
 
-		setTotalPaginas(itensTotal, size);
+		this.pagina = paginacao.getPagina();
 
-		setPagina(pagina);
+		this.totalPaginas = paginacao.getTotalPaginas();
 
-		setAutores(autoresSemPaginacao, size);
+		this.autores = autoresDaPagina;
 
-		setPrev(size);
+		setPrev(paginacao.getSize());
 
-		setNext(size);
+		setNext(paginacao.getSize());
 	}
 
 	private void setNext(int size) {
@@ -83,41 +85,17 @@ public class ListaDeAutores {
 
 	}
 
-	private void setAutores(List<Autor> autoresSemPaginacao, int size) {
-
-		// Configura uma váriavel que indica em qual elemento da lista começar.
-		int start = 0;
-		if (this.pagina > 1)
-			start = (this.pagina - 1) * size;
-
-		// Itera a lista de autores, utilizando a fórmula (start + i), até chegar no
-		// tamanho estipulado, e adiciona na lista filtrada.
-		for (int i = 0; i < size; i++) {
-			try {
-				this.autores.add(autoresSemPaginacao.get(i + start));
-			} catch (Exception e) {
-				break;
-			}
-		}
-
-	}
-
-	private void setPagina(int pagina) {
-
-		// Configura a página atual, e ajusta caso ela ultrapasse o total de páginas.
-		this.pagina = pagina;
-		if (this.pagina > this.totalPaginas)
-			this.pagina = this.totalPaginas;
-	}
-
-	private void setTotalPaginas(int itensTotal, int size) {
-
-		// Calcula o total de páginas, e faz um ajuste caso o total seja ímpar.
-		if (itensTotal % size == 0)
-			this.totalPaginas = itensTotal / size;
-		else
-			this.totalPaginas = (itensTotal / size) + 1;
-
+	/**
+	 * Método que acrescenta parâmetros da requisição aos links next e prev, para
+	 * que as outras páginas venham no mesmo formato.
+	 * 
+	 * @param parametros Parâmetros no formato "&amp;nome=valor", ou vazio.
+	 */
+	public void mantemParametros(String parametros) {
+		if (!this.next.isEmpty())
+			this.next += parametros;
+		if (!this.prev.isEmpty())
+			this.prev += parametros;
 	}
 
 	/**
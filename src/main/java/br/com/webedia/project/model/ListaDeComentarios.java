@@ -1,6 +1,5 @@
 package br.com.webedia.project.model;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.google.gson.Gson;
@@ -27,30 +26,35 @@ public class ListaDeComentarios {
 
 	public ListaDeComentarios(List<Comentario> comentariosSemPaginacao, int size, int pagina, String permalink) {
 
-		if (pagina < 1)
-			pagina = 1;
+		Paginacao paginacao = new Paginacao(comentariosSemPaginacao.size(), size, pagina);
 
-		if (size <= 0)
-			size = 5;
-		
-		this.comentarios = new ArrayList<>(size);
+		inicia(paginacao.recorta(comentariosSemPaginacao), paginacao, permalink);
+	}
 
-		int itensTotal = comentariosSemPaginacao.size();
+	/**
+	 * Construtor da classe ListaDeComentarios, com os itens de uma página já
+	 * buscada no banco de dados.
+	 * 
+	 * @param comentariosDaPagina Comentários da página atual.
+	 * @param paginacao           Paginação calculada a partir do total de itens.
+	 * @param permalink           Permalink do artigo, quando a lista contém apenas
+	 *                            os comentários dele, ou nulo.
+	 */
+	public ListaDeComentarios(List<Comentario> comentariosDaPagina, Paginacao paginacao, String permalink) {
+		inicia(comentariosDaPagina, paginacao, permalink);
+	}
 
-		// Ajusta o tamanho da página, caso o tamanho informado seja maior que o número
-		// de itens.
-		if (size > itensTotal)
-			size = itensTotal;
+	private void inicia(List<Comentario> comentariosDaPagina, Paginacao paginacao, String permalink) {
 
-		setTotalPaginas(itensTotal, size);
+		this.pagina = paginacao.getPagina();
 
-		setPagina(pagina);
+		this.totalPaginas = paginacao.getTotalPaginas();
 
-		setComentarios(comentariosSemPaginacao, size);
+		this.comentarios = comentariosDaPagina;
 
-		setPrev(size, permalink);
+		setPrev(paginacao.getSize(), permalink);
 
-		setNext(size, permalink);
+		setNext(paginacao.getSize(), permalink);
 	}
 
 	// Configura a url da página seguinte.
@@ -83,41 +87,17 @@ public class ListaDeComentarios {
 
 	}
 
-	private void setComentarios(List<Comentario> comentariosSemPaginacao, int size) {
-
-		// Configura uma váriavel que indica em qual elemento da lista começar.
-		int start = 0;
-		if (this.pagina > 1)
-			start = (this.pagina - 1) * size;
-
-		// Itera a lista de comentários, utilizando a fórmula (start + i), até chegar no
-		// tamanho estipulado, e adiciona na lista filtrada.
-		for (int i = 0; i < size; i++) {
-			try {
-				this.comentarios.add(comentariosSemPaginacao.get(i + start));
-			} catch (Exception e) {
-				break;
-			}
-		}
-
-	}
-
-	private void setPagina(int pagina) {
-
-		// Configura a página atual, e ajusta caso ela ultrapasse o total de páginas.
-		this.pagina = pagina;
-		if (this.pagina > this.totalPaginas)
-			this.pagina = this.totalPaginas;
-	}
-
-	private void setTotalPaginas(int itensTotal, int size) {
-
-		// Calcula o total de páginas, e faz um ajuste caso o total seja ímpar.
-		if (itensTotal % size == 0)
-			this.totalPaginas = itensTotal / size;
-		else
-			this.totalPaginas = (itensTotal / size) + 1;
-
+	/**
+	 * Método que acrescenta parâmetros da requisição aos links next e prev, para
+	 * que as outras páginas venham no mesmo formato.
+	 * 
+	 * @param parametros Parâmetros no formato "&amp;nome=valor", ou vazio.
+	 */
+	public void mantemParametros(String parametros) {
+		if (!this.next.isEmpty())
+			this.next += parametros;
+		if (!this.prev.isEmpty())
+			this.prev += parametros;
 	}
 
 	/**
@@ -0,0 +1,72 @@
+package br.com.webedia.project.model;
+
+import java.util.List;
+
+import com.google.gson.Gson;
+
+import br.com.webedia.project.connection.Server;
+
+/**
+ * <h1>PaginaDeArtigos</h1>
+ * <p>
+ * Classe que guarda uma página da listagem de artigos por cursor. Diferente da
+ * {@link ListaDeArtigos}, não tem número de página nem total de páginas: a URL
+ * da página seguinte carrega o cursor do último artigo, e cada página custa o
+ * mesmo, não importa o quanto o cliente já avançou.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class PaginaDeArtigos {
+
+	/* Atributos */
+	private String next; // URL da página seguinte.
+	private List<Artigo> artigos;
+
+	/**
+	 * Construtor da classe PaginaDeArtigos.
+	 *
+	 * @param artigos Artigos da página, na ordem do cursor.
+	 * @param proximo Cursor da página seguinte, ou nulo se esta for a última.
+	 * @param size    Quantidade de itens por página.
+	 */
+	public PaginaDeArtigos(List<Artigo> artigos, CursorDeArtigos proximo, int size) {
+
+		this.artigos = artigos;
+
+		// Configura a url da página seguinte.
+		if (proximo != null)
+			this.next = Server.URL + "artigos?after=" + proximo + "&size=" + size;
+		else
+			this.next = "";
+	}
+
+	/**
+	 * Método que acrescenta parâmetros da requisição aos links next, para que
+	 * as outras páginas venham no mesmo formato.
+	 * 
+	 * @param parametros Parâmetros no formato "&amp;nome=valor", ou vazio.
+	 */
+	public void mantemParametros(String parametros) {
+		if (!this.next.isEmpty())
+			this.next += parametros;
+	}
+
+	/**
+	 * Método que transforma o objeto desta classe em uma string no formato Json.
+	 *
+	 * @return String em formato Json.
+	 */
+	public String toJson() {
+		return new Gson().toJson(this);
+	}
+
+	public List<Artigo> getArtigos() {
+		return this.artigos;
+	}
+
+	public String getNext() {
+		return next;
+	}
+}
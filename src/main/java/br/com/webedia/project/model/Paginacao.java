@@ -0,0 +1,104 @@
+package br.com.webedia.project.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>Paginacao</h1>
+ * <p>
+ * Classe que calcula a página de uma listagem a partir do total de itens. É
+ * usada pelos DAOs para buscar no banco apenas os itens da página, com LIMIT e
+ * OFFSET, e pelas listas paginadas para montar as URLs.
+ * </p>
+ * <p>
+ * As regras são as mesmas da paginação feita em memória: a página mínima é a
+ * primeira, o tamanho padrão é 5, o tamanho é reduzido ao total de itens e a
+ * página é reduzida à última.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class Paginacao {
+
+	private final int pagina;
+	private final int totalPaginas;
+	private final int size;
+
+	/**
+	 * Construtor da classe Paginacao.
+	 *
+	 * @param itensTotal Quantidade total de itens da listagem.
+	 * @param size       Quantidade de itens por página.
+	 * @param pagina     Página pedida.
+	 */
+	public Paginacao(int itensTotal, int size, int pagina) {
+
+		if (pagina < 1)
+			pagina = 1;
+
+		if (size <= 0)
+			size = 5;
+
+		// Ajusta o tamanho da página, caso o tamanho informado seja maior que o número
+		// de itens.
+		if (size > itensTotal)
+			size = itensTotal;
+
+		this.size = size;
+
+		// Calcula o total de páginas, arredondando para cima. Uma lista vazia não tem
+		// páginas.
+		if (size == 0)
+			this.totalPaginas = 0;
+		else if (itensTotal % size == 0)
+			this.totalPaginas = itensTotal / size;
+		else
+			this.totalPaginas = (itensTotal / size) + 1;
+
+		// Ajusta a página, caso ela ultrapasse o total de páginas.
+		this.pagina = Math.min(pagina, this.totalPaginas);
+	}
+
+	/**
+	 * @return Página atual, já ajustada.
+	 */
+	public int getPagina() {
+		return pagina;
+	}
+
+	/**
+	 * @return Total de páginas.
+	 */
+	public int getTotalPaginas() {
+		return totalPaginas;
+	}
+
+	/**
+	 * @return Quantidade de itens por página, já ajustada. Valor usado no LIMIT.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return Posição do primeiro item da página. Valor usado no OFFSET.
+	 */
+	public int getOffset() {
+		return pagina > 1 ? (pagina - 1) * size : 0;
+	}
+
+	/**
+	 * Método que retorna os itens da página a partir da lista completa.
+	 *
+	 * @param itens Lista completa, sem paginação.
+	 * @return Nova lista, apenas com os itens da página.
+	 */
+	public <T> List<T> recorta(List<T> itens) {
+
+		int inicio = Math.min(getOffset(), itens.size());
+		int fim = Math.min(inicio + size, itens.size());
+
+		return new ArrayList<>(itens.subList(inicio, fim));
+	}
+}
@@ -0,0 +1,135 @@
+package br.com.webedia.project.model;
+
+/**
+ * <h1>Relacoes</h1>
+ * <p>
+ * Relações que são carregadas junto com os artigos, escolhidas pelo parâmetro
+ * embed. As relações que não forem escolhidas nem são buscadas no banco, e não
+ * aparecem no Json do artigo.
+ * </p>
+ * <p>
+ * Valores aceitos, separados por vírgula: autores, comentarios, comentarios:N
+ * (apenas os N comentários mais recentes), resumo (total de comentários e data
+ * do último, guardados no próprio artigo) e none. Sem o parâmetro, os autores e
+ * todos os comentários são carregados, como antes.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class Relacoes {
+
+	/** Autores e todos os comentários, o padrão sem o parâmetro embed. */
+	public static final Relacoes TODAS = new Relacoes(true, true, 0, false);
+
+	/** Apenas o artigo, sem autores nem comentários. */
+	public static final Relacoes NENHUMA = new Relacoes(false, false, 0, false);
+
+	private final boolean autores;
+	private final boolean comentarios;
+	private final int limiteComentarios;
+	private final boolean resumo;
+
+	/**
+	 * Construtor da classe Relacoes.
+	 *
+	 * @param autores           Carrega os autores.
+	 * @param comentarios       Carrega os comentários.
+	 * @param limiteComentarios Quantidade de comentários mais recentes, ou 0 para
+	 *                          todos.
+	 * @param resumo            Lê o total de comentários e a data do último.
+	 */
+	public Relacoes(boolean autores, boolean comentarios, int limiteComentarios, boolean resumo) {
+		this.autores = autores;
+		this.comentarios = comentarios;
+		this.limiteComentarios = limiteComentarios;
+		this.resumo = resumo;
+	}
+
+	/**
+	 * Método que lê o valor do parâmetro embed.
+	 *
+	 * @param embed Valor recebido do cliente, ou nulo.
+	 * @return Relações escolhidas. Nulo ou vazio retorna {@link #TODAS}.
+	 * @throws IllegalArgumentException Caso algum valor não seja reconhecido.
+	 */
+	public static Relacoes parse(String embed) {
+
+		if (embed == null || embed.trim().isEmpty())
+			return TODAS;
+
+		boolean autores = false;
+		boolean comentarios = false;
+		int limite = 0;
+		boolean resumo = false;
+
+		String[] valores = embed.split(",");
+
+		for (String valor : valores) {
+
+			valor = valor.trim();
+
+			if (valor.equals("none") && valores.length == 1) {
+				return NENHUMA;
+			} else if (valor.equals("autores")) {
+				autores = true;
+			} else if (valor.equals("resumo")) {
+				resumo = true;
+			} else if (valor.equals("comentarios")) {
+				comentarios = true;
+			} else if (valor.startsWith("comentarios:")) {
+
+				try {
+					limite = Integer.parseInt(valor.substring("comentarios:".length()));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Valor de embed inválido: " + valor);
+				}
+
+				if (limite <= 0)
+					throw new IllegalArgumentException("Valor de embed inválido: " + valor);
+
+				comentarios = true;
+			} else {
+				throw new IllegalArgumentException("Valor de embed inválido: " + valor);
+			}
+		}
+
+		return new Relacoes(autores, comentarios, limite, resumo);
+	}
+
+	/**
+	 * Método que remove as relações que não estão entre os campos escolhidos pelo
+	 * parâmetro fields. Com os campos escolhidos, o resumo é lido quando
+	 * commentCount ou lastCommentAt estão entre eles.
+	 *
+	 * @param campos Campos do artigo.
+	 * @return Relações que também estão entre os campos.
+	 */
+	public Relacoes restringe(Campos campos) {
+
+		if (campos.isTodos())
+			return this;
+
+		return new Relacoes(autores && campos.contem("autores"), comentarios && campos.contem("comentarios"),
+				limiteComentarios, campos.contem("commentCount") || campos.contem("lastCommentAt"));
+	}
+
+	public boolean isAutores() {
+		return autores;
+	}
+
+	public boolean isComentarios() {
+		return comentarios;
+	}
+
+	public boolean isResumo() {
+		return resumo;
+	}
+
+	/**
+	 * @return Quantidade de comentários mais recentes carregados, ou 0 para todos.
+	 */
+	public int getLimiteComentarios() {
+		return limiteComentarios;
+	}
+}
@@ -1,22 +1,42 @@
 package br.com.webedia.project.resource;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import br.com.webedia.project.dao.ArtigoDAO;
 import br.com.webedia.project.dao.ComentarioDAO;
 import br.com.webedia.project.model.Artigo;
+import br.com.webedia.project.model.Campos;
+import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.model.CursorDeArtigos;
+import br.com.webedia.project.model.ImportacaoDeArtigos;
+import br.com.webedia.project.model.ListaDeArtigos;
+import br.com.webedia.project.model.ListaDeComentarios;
+import br.com.webedia.project.model.PaginaDeArtigos;
+import br.com.webedia.project.model.Relacoes;
 
 /**
  * <h1>ArtigoResource</h1>
@@ -31,19 +51,51 @@ import br.com.webedia.project.model.Artigo;
 @Path("artigos")
 public class ArtigoResource {
 
+	// Quantidade de artigos gravados de uma vez na importação em lote.
+	private static final int LOTE = Integer.getInteger("webedia.importacao.lote", 1000);
+
 	/**
 	 * Método que executa um GET Request para um único artigo.
 	 * <p>
 	 * link da requisição: http://localhost:8080/artigos/{permalink}
+	 * </p>
+	 * <p>
+	 * O parâmetro embed escolhe as relações que vêm junto com o artigo:
+	 * autores, comentarios, comentarios:N (os N mais recentes) ou none. Sem o
+	 * parâmetro, o artigo vem com os autores e todos os comentários.
+	 * </p>
+	 * <p>
+	 * link da requisição:
+	 * http://localhost:8080/artigos/{permalink}?embed=autores,comentarios:10
+	 * </p>
+	 * <p>
+	 * O parâmetro fields escolhe os campos do artigo que vêm no Json, e apenas as
+	 * colunas desses campos são lidas do banco.
+	 * </p>
+	 * <p>
+	 * link da requisição:
+	 * http://localhost:8080/artigos/{permalink}?fields=titulo,subtitulo
+	 * </p>
 	 * 
 	 * @param permalink Permalink utilizado para buscar um artigo.
-	 * @return String Json que representa um artigo.
+	 * @param embed     Relações carregadas junto com o artigo.
+	 * @param fields    Campos do artigo enviados no Json.
+	 * @return String Json que representa um artigo. Se o artigo não existir,
+	 *         retorna HTTP 404.
 	 */
 	@Path("{permalink}")
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
-	public String busca(@PathParam("permalink") String permalink) {
-		return new ArtigoDAO().readArtigo(permalink, 0l).toJson();
+	public String busca(@PathParam("permalink") String permalink, @QueryParam("embed") String embed,
+			@QueryParam("fields") String fields) {
+
+		Campos campos = Parametros.campos(fields, Artigo.class);
+
+		Artigo artigo = new ArtigoDAO().readArtigo(permalink, 0l, Parametros.relacoes(embed), campos);
+		if (artigo == null)
+			throw new WebApplicationException(Response.Status.NOT_FOUND);
+
+		return campos.toJson(artigo);
 	}
 
 	/**
@@ -55,16 +107,67 @@ public class ArtigoResource {
 	 * <p>
 	 * link da requisição: http://localhost:8080/artigos?page=1&size=5
 	 * </p>
+	 * <p>
+	 * Com o parâmetro after, a lista é paginada por cursor, na ordem da data de
+	 * publicação. O valor vazio retorna a primeira página, e o link next carrega o
+	 * cursor da página seguinte.
+	 * </p>
+	 * <p>
+	 * link da requisição: http://localhost:8080/artigos?after=&size=5
+	 * </p>
+	 * <p>
+	 * Os parâmetros embed e fields funcionam como na busca de um único artigo, e
+	 * são repassados aos links das outras páginas.
+	 * </p>
 	 * 
-	 * @param size Quantidade de elementos por página, 5 por padrão.
-	 * @param page Página selecionada, primeira página por padrão.
+	 * @param size   Quantidade de elementos por página, 5 por padrão.
+	 * @param page   Página selecionada, primeira página por padrão.
+	 * @param after  Cursor recebido no link next, ou vazio para a primeira página.
+	 * @param embed  Relações carregadas junto com os artigos.
+	 * @param fields Campos dos artigos enviados no Json.
 	 * @return String Json que representa uma lista de artigos com paginação.
 	 */
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
-	public String lista(@QueryParam("size") int size, @QueryParam("page") int page) {
+	public String lista(@QueryParam("size") int size, @QueryParam("page") int page,
+			@QueryParam("after") String after, @QueryParam("embed") String embed,
+			@QueryParam("fields") String fields) {
+
+		Relacoes relacoes = Parametros.relacoes(embed);
+		Campos campos = Parametros.campos(fields, Artigo.class);
+		String parametros = Parametros.repassa("embed", embed) + Parametros.repassa("fields", fields);
+
+		if (after == null) {
+
+			// Com mais de um shard, as páginas profundas retornam HTTP 400.
+			ListaDeArtigos lista;
+			try {
+				lista = new ArtigoDAO().listArtigo(size, page, relacoes, campos);
+			} catch (IllegalArgumentException e) {
+				throw new WebApplicationException(
+						Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build());
+			}
+
+			if (lista == null)
+				throw Parametros.erroNaListagem();
+
+			lista.mantemParametros(parametros);
+			return campos.toJson(lista);
+		}
 
-		return new ArtigoDAO().listArtigo(size, page).toJson();
+		CursorDeArtigos cursor;
+		try {
+			cursor = after.isEmpty() ? null : CursorDeArtigos.parse(after);
+		} catch (IllegalArgumentException e) {
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+		}
+
+		PaginaDeArtigos pagina = new ArtigoDAO().listArtigo(cursor, size, relacoes, campos);
+		if (pagina == null)
+			throw Parametros.erroNaListagem();
+
+		pagina.mantemParametros(parametros);
+		return campos.toJson(pagina);
 	}
 
 	/**
@@ -91,6 +194,84 @@ public class ArtigoResource {
 
 	}
 
+	/**
+	 * Método que executa um POST Request, para importar vários artigos de uma vez.
+	 * <p>
+	 * O cliente pode enviar um array json de artigos, ou um artigo por linha
+	 * (NDJSON). O corpo é lido aos poucos, e os artigos são gravados em partes de
+	 * webedia.importacao.lote itens (padrão 1000), cada uma em uma única
+	 * transação por shard.
+	 * </p>
+	 * <p>
+	 * link da requisição: http://localhost:8080/artigos/lote
+	 * </p>
+	 * <p>
+	 * A resposta tem o resultado de cada artigo, na ordem enviada: 201 com o id
+	 * e o permalink, ou o código e a mensagem de erro. Um json inválido encerra a
+	 * importação: os artigos anteriores continuam gravados, o último resultado é
+	 * um erro 400, e a própria resposta tem o status 400.
+	 * </p>
+	 * 
+	 * @param corpo Corpo da requisição, com os artigos.
+	 * @return Resposta HTTP, com o json do resultado da importação. 200 quando
+	 *         o corpo foi lido até o fim, e 400 para um json inválido.
+	 */
+	@Path("lote")
+	@POST
+	@Consumes({ MediaType.APPLICATION_JSON, "application/x-ndjson" })
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response importa(InputStream corpo) {
+
+		ImportacaoDeArtigos importacao = new ImportacaoDeArtigos();
+		ArtigoDAO dao = new ArtigoDAO();
+		Gson gson = new Gson();
+
+		List<Artigo> parte = new ArrayList<>(LOTE);
+
+		try (JsonReader leitor = new JsonReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+
+			// No NDJSON, cada artigo é um valor separado no nível mais alto do documento,
+			// o que só é aceito no modo lenient.
+			leitor.setLenient(true);
+
+			boolean array = leitor.peek() == JsonToken.BEGIN_ARRAY;
+			if (array)
+				leitor.beginArray();
+
+			while (array ? leitor.hasNext() : leitor.peek() != JsonToken.END_DOCUMENT) {
+
+				parte.add(gson.fromJson(leitor, Artigo.class));
+
+				if (parte.size() == LOTE)
+					importa(dao, parte, importacao);
+			}
+
+			importa(dao, parte, importacao);
+
+		} catch (JsonParseException | IOException e) {
+
+			// Os artigos lidos antes do erro são gravados.
+			importa(dao, parte, importacao);
+			importacao.adiciona(ImportacaoDeArtigos.Resultado.erro(400, "Json inválido: " + e.getMessage()));
+
+			return Response.status(Response.Status.BAD_REQUEST).entity(importacao.toJson()).build();
+		}
+
+		return Response.ok(importacao.toJson()).build();
+	}
+
+	// Grava uma parte da importação e esvazia a lista.
+	private static void importa(ArtigoDAO dao, List<Artigo> parte, ImportacaoDeArtigos importacao) {
+
+		if (parte.isEmpty())
+			return;
+
+		for (ImportacaoDeArtigos.Resultado resultado : dao.createArtigos(parte))
+			importacao.adiciona(resultado);
+
+		parte.clear();
+	}
+
 	/**
 	 * Método que executa um PUT Request, para atualizar um artigo na base de dados.
 	 * <p>
@@ -115,6 +296,23 @@ public class ArtigoResource {
 
 	}
 
+	/**
+	 * Método que executa um PATCH Request, para alterar apenas os campos enviados
+	 * de um artigo na base de dados. Tem o mesmo comportamento do PUT: os
+	 * campos nulos ou ausentes no json continuam com o valor atual.
+	 * <p>
+	 * link da requisição: http://localhost:8080/artigos/
+	 * </p>
+	 * 
+	 * @param json String do tipo json, com o id e os campos alterados.
+	 * @return Resposta HTTP. 404 se o artigo não existir.
+	 */
+	@PATCH
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Response atualiza(String json) {
+		return altera(json);
+	}
+
 	/**
 	 * Método que executa um DELETE Request, para remover um artigo na base de
 	 * dados.
@@ -166,13 +364,16 @@ public class ArtigoResource {
 	 * @param permalink Permalink do artigo que serão listados od comentários.
 	 * @param size      Quantidade de itens por página.
 	 * @param page      Página atual da lista.
+	 * @param fields    Campos dos comentários enviados no Json.
 	 * @return String Json que representa uma lista de comentários com paginação.
 	 */
 	@Path("{permalink}/comentarios")
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
 	public String listaComentarios(@PathParam("permalink") String permalink, @QueryParam("size") int size,
-			@QueryParam("page") int page) {
+			@QueryParam("page") int page, @QueryParam("fields") String fields) {
+
+		Campos campos = Parametros.campos(fields, Comentario.class);
 
 		// Caso o valor do parâmetro da página seja menor que 1, por padrão será 0,
 		// então a página será a primeira.
@@ -183,6 +384,11 @@ public class ArtigoResource {
 		if (size == 0)
 			size = 5;
 
-		return new ComentarioDAO().listComentario(size, page, permalink).toJson();
+		ListaDeComentarios lista = new ComentarioDAO().listComentario(size, page, permalink, campos);
+		if (lista == null)
+			throw Parametros.erroNaListagem();
+
+		lista.mantemParametros(Parametros.repassa("fields", fields));
+		return campos.toJson(lista);
 	}
 }
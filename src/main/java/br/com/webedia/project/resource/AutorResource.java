@@ -3,6 +3,7 @@ package br.com.webedia.project.resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -15,7 +16,9 @@ import javax.ws.rs.core.Response;
 import com.google.gson.Gson;
 
 import br.com.webedia.project.dao.AutorDAO;
+import br.com.webedia.project.model.Campos;
 import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.ListaDeAutores;
 
 @Path("autores")
 public class AutorResource {
@@ -24,15 +27,24 @@ public class AutorResource {
 	 * Método que executa um GET Request para um único autor.
 	 * <p>
 	 * link da requisição: http://localhost:8080/autores/{id}
+	 * </p>
+	 * <p>
+	 * O parâmetro fields escolhe os campos que vêm no Json, e apenas as colunas
+	 * desses campos são lidas do banco.
+	 * </p>
 	 * 
-	 * @param id ID utilizado para buscar um autor.
+	 * @param id     ID utilizado para buscar um autor.
+	 * @param fields Campos enviados no Json.
 	 * @return String json que representa um autor.
 	 */
 	@Path("{id}")
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
-	public String busca(@PathParam("id") Long id) {
-		return new AutorDAO().readAutor(id).toJson();
+	public String busca(@PathParam("id") Long id, @QueryParam("fields") String fields) {
+
+		Campos campos = Parametros.campos(fields, Autor.class);
+
+		return campos.toJson(new AutorDAO().readAutor(id, campos));
 	}
 
 	/**
@@ -45,15 +57,25 @@ public class AutorResource {
 	 * link da requisição: http://localhost:8080/autores?page=1&size=5
 	 * </p>
 	 * 
-	 * @param page Quantidade de elementos por página, 5 por padrão.
-	 * @param size Página selecionada, primeira página por padrão.
+	 * @param page   Quantidade de elementos por página, 5 por padrão.
+	 * @param size   Página selecionada, primeira página por padrão.
+	 * @param fields Campos enviados no Json, repassados aos links das outras
+	 *               páginas.
 	 * @return String Json que representa uma lista de autores com paginação.
 	 */
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
-	public String lista(@QueryParam("page") int page, @QueryParam("size") int size) {
+	public String lista(@QueryParam("page") int page, @QueryParam("size") int size,
+			@QueryParam("fields") String fields) {
+
+		Campos campos = Parametros.campos(fields, Autor.class);
 
-		return new AutorDAO().listAutor(size, page).toJson();
+		ListaDeAutores lista = new AutorDAO().listAutor(size, page, campos);
+		if (lista == null)
+			throw Parametros.erroNaListagem();
+
+		lista.mantemParametros(Parametros.repassa("fields", fields));
+		return campos.toJson(lista);
 	}
 
 	/**
@@ -101,6 +123,23 @@ public class AutorResource {
 
 	}
 
+	/**
+	 * Método que executa um PATCH Request, para alterar apenas os campos enviados
+	 * de um autor na base de dados. Tem o mesmo comportamento do PUT: os
+	 * campos nulos ou ausentes no json continuam com o valor atual.
+	 * <p>
+	 * link da requisição: http://localhost:8080/autores/
+	 * </p>
+	 * 
+	 * @param json String do tipo json, com o id e os campos alterados.
+	 * @return Resposta HTTP. 404 se o autor não existir.
+	 */
+	@PATCH
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Response atualiza(String json) {
+		return altera(json);
+	}
+
 	/**
 	 * Método que executa um DELETE Request, para remover um autor na base de dados.
 	 * <p>
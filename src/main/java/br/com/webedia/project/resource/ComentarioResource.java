@@ -3,19 +3,23 @@ package br.com.webedia.project.resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import com.google.gson.Gson;
 
 import br.com.webedia.project.dao.ComentarioDAO;
+import br.com.webedia.project.model.Campos;
 import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.model.ListaDeComentarios;
 
 /**
  * <h1>ComentarioResource</h1>
@@ -74,19 +78,45 @@ public class ComentarioResource {
 		return new ComentarioDAO().updateComentario(comentario);
 	}
 
+	/**
+	 * Método que executa um PATCH Request, para alterar apenas os campos enviados
+	 * de um comentario na base de dados. Tem o mesmo comportamento do PUT: os
+	 * campos nulos ou ausentes no json continuam com o valor atual.
+	 * <p>
+	 * link da requisição: http://localhost:8080/comentarios/
+	 * </p>
+	 * 
+	 * @param json String do tipo json, com o id e os campos alterados.
+	 * @return Resposta HTTP. 404 se o comentário não existir.
+	 */
+	@PATCH
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Response atualiza(String json) {
+		return altera(json);
+	}
+
 	/**
 	 * Método que executa um GET Request para um único comentário.
 	 * <p>
 	 * link da requisição: http://localhost:8080/comentarios/{id}
+	 * </p>
+	 * <p>
+	 * O parâmetro fields escolhe os campos que vêm no Json, e apenas as colunas
+	 * desses campos são lidas do banco.
+	 * </p>
 	 * 
-	 * @param id ID utilizado para buscar um comentário.
+	 * @param id     ID utilizado para buscar um comentário.
+	 * @param fields Campos enviados no Json.
 	 * @return String json que representa um comentário.
 	 */
 	@Path("{id}")
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
-	public String busca(@PathParam("id") Long id) {
-		return new ComentarioDAO().readComentario(id).toJson();
+	public String busca(@PathParam("id") Long id, @QueryParam("fields") String fields) {
+
+		Campos campos = Parametros.campos(fields, Comentario.class);
+
+		return campos.toJson(new ComentarioDAO().readComentario(id, campos));
 	}
 
 	/**
@@ -99,15 +129,33 @@ public class ComentarioResource {
 	 * link da requisição: http://localhost:8080/comentarios?page=1&size=5
 	 * </p>
 	 * 
-	 * @param page Quantidade de elementos por página, 5 por padrão.
-	 * @param size Página selecionada, primeira página por padrão.
+	 * @param page   Quantidade de elementos por página, 5 por padrão.
+	 * @param size   Página selecionada, primeira página por padrão.
+	 * @param fields Campos enviados no Json, repassados aos links das outras
+	 *               páginas.
 	 * @return String Json que representa uma lista de comentários com paginação.
 	 */
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
-	public String lista(@QueryParam("page") int page, @QueryParam("size") int size) {
+	public String lista(@QueryParam("page") int page, @QueryParam("size") int size,
+			@QueryParam("fields") String fields) {
+
+		Campos campos = Parametros.campos(fields, Comentario.class);
+
+		// Com mais de um shard, as páginas profundas retornam HTTP 400.
+		ListaDeComentarios lista;
+		try {
+			lista = new ComentarioDAO().listComentario(size, page, null, campos);
+		} catch (IllegalArgumentException e) {
+			throw new WebApplicationException(
+					Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build());
+		}
+
+		if (lista == null)
+			throw Parametros.erroNaListagem();
 
-		return new ComentarioDAO().listComentario(size, page, null).toJson();
+		lista.mantemParametros(Parametros.repassa("fields", fields));
+		return campos.toJson(lista);
 	}
 
 	/**
@@ -0,0 +1,84 @@
+package br.com.webedia.project.resource;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import br.com.webedia.project.model.Campos;
+import br.com.webedia.project.model.Relacoes;
+
+/**
+ * <h1>Parametros</h1>
+ * <p>
+ * Leitura dos parâmetros fields e embed, comuns aos recursos. Um valor não
+ * reconhecido retorna a resposta HTTP 400.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+final class Parametros {
+
+	private Parametros() {
+	}
+
+	/**
+	 * Método que lê o parâmetro fields.
+	 *
+	 * @param fields Valor recebido do cliente, ou nulo.
+	 * @param tipo   Classe do modelo.
+	 * @return Campos escolhidos.
+	 */
+	static Campos campos(String fields, Class<?> tipo) {
+		try {
+			return Campos.parse(fields, tipo);
+		} catch (IllegalArgumentException e) {
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Método que lê o parâmetro embed.
+	 *
+	 * @param embed Valor recebido do cliente, ou nulo.
+	 * @return Relações escolhidas.
+	 */
+	static Relacoes relacoes(String embed) {
+		try {
+			return Relacoes.parse(embed);
+		} catch (IllegalArgumentException e) {
+			throw new WebApplicationException(Response.Status.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Método que cria a resposta HTTP 500 de uma listagem que falhou no banco de
+	 * dados. O DAO já enviou o erro para o console.
+	 *
+	 * @return Exceção com a resposta 500.
+	 */
+	static WebApplicationException erroNaListagem() {
+		return new WebApplicationException(Response.serverError().entity("Erro ao executar requisição!").build());
+	}
+
+	/**
+	 * Método que monta o parâmetro para os links next e prev das listas.
+	 *
+	 * @param nome  Nome do parâmetro.
+	 * @param valor Valor recebido do cliente, ou nulo.
+	 * @return String no formato "&amp;nome=valor", ou vazia se o valor for nulo.
+	 */
+	static String repassa(String nome, String valor) {
+
+		if (valor == null)
+			return "";
+
+		try {
+			return "&" + nome + "=" + URLEncoder.encode(valor, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package br.com.webedia.project.resource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.google.gson.Gson;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+
+/**
+ * <h1>StatusResource</h1>
+ * <p>
+ * Classe que expõe, através de HTTP Request, os indicadores dos pools de
+ * conexões do banco de dados.
+ * </p>
+ *
+ * @author Victor Corrêa
+ *
+ */
+@Path("status")
+public class StatusResource {
+
+	/**
+	 * Método que executa um GET Request para os indicadores dos pools de cada
+	 * shard: conexões abertas, em uso e ociosas, statements abertos, acertos e
+	 * falhas do cache de statements, conexões vazadas e conexões recuperadas.
+	 * <p>
+	 * link da requisição: http://localhost:8080/status
+	 * </p>
+	 *
+	 * @return String Json com a lista de indicadores de cada shard.
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_JSON)
+	public String busca() {
+		return new Gson().toJson(ConnectionFactory.getStatus());
+	}
+}
@@ -1,7 +1,9 @@
 package br.com.webedia.project.connection;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -57,4 +59,85 @@ public class TestConnectionFactory {
 
 	}
 
+	@Test
+	public void TestaConexaoSomenteLeitura() throws SQLException {
+
+		Connection con = ConnectionFactory.getReadOnlyConnection();
+
+		PreparedStatement stmt = con.prepareStatement("PRAGMA query_only;");
+		ResultSet rs = stmt.executeQuery();
+		assertEquals(1, rs.getInt(1));
+		ConnectionFactory.closeConnection(null, stmt, rs);
+
+		// A leitura funciona normalmente.
+		stmt = con.prepareStatement("SELECT COUNT(*) FROM autores;");
+		rs = stmt.executeQuery();
+		assertTrue(rs.getInt(1) > 0);
+		ConnectionFactory.closeConnection(null, stmt, rs);
+
+		// A escrita é recusada pelo SQLite.
+		stmt = con.prepareStatement("DELETE FROM autores;");
+		try {
+			stmt.executeUpdate();
+			fail("A conexão de leitura não deveria aceitar escritas");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+
+		ConnectionFactory.closeConnection(con, stmt);
+	}
+
+
+	@Test
+	public void TestaContagensMantidasPelosTriggers() throws SQLException {
+
+		// Um comentário é inserido e removido em uma transação que é desfeita, assim o
+		// banco de teste não muda.
+		Connection con = ConnectionFactory.getConnection();
+		con.setAutoCommit(false);
+
+		try {
+			con.prepareStatement(
+					"INSERT INTO comentarios (usuario, texto, idArtigo) SELECT 'teste', 'teste', MIN(idArtigo) FROM artigos;")
+					.executeUpdate();
+			assertContagensIguais(con);
+
+			// A remoção do artigo remove os comentários em cascata.
+			con.prepareStatement("DELETE FROM artigos WHERE idArtigo = (SELECT MIN(idArtigo) FROM artigos);")
+					.executeUpdate();
+			assertContagensIguais(con);
+
+		} finally {
+			con.rollback();
+			ConnectionFactory.closeConnection(con);
+		}
+	}
+
+	// Compara os totais das tabelas de contagem com o COUNT(*) das tabelas.
+	private static void assertContagensIguais(Connection con) throws SQLException {
+
+		for (String tabela : new String[] { "artigos", "autores", "comentarios" }) {
+			try (ResultSet rs = con.prepareStatement("SELECT (SELECT total FROM contagens WHERE tabela = '" + tabela
+					+ "'), (SELECT COUNT(*) FROM " + tabela + ");").executeQuery()) {
+				assertEquals(rs.getInt(2), rs.getInt(1));
+			}
+		}
+	}
+
+	@Test
+	public void TestaResumoDeComentariosDosArtigos() throws SQLException {
+
+		// O total e a data do último comentário de cada artigo são os mesmos da
+		// tabela de comentários.
+		Connection con = ConnectionFactory.getReadOnlyConnection();
+
+		try (ResultSet rs = con.prepareStatement("SELECT COUNT(*) FROM artigos WHERE "
+				+ "commentCount <> (SELECT COUNT(*) FROM comentarios WHERE comentarios.idArtigo = artigos.idArtigo) "
+				+ "OR lastCommentAt IS NOT (SELECT MAX(data) FROM comentarios WHERE comentarios.idArtigo = artigos.idArtigo);")
+				.executeQuery()) {
+			assertEquals(0, rs.getInt(1));
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+	}
 }
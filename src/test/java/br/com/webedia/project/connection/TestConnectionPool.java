@@ -0,0 +1,202 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestConnectionPool {
+
+	private ConnectionPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new ConnectionPool("jdbc:sqlite::memory:", new Properties(), 0, 2, 60000, 200, 2);
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	public void TestaDevolucaoReaproveitaConexao() throws SQLException {
+
+		Connection con = pool.borrow();
+		assertEquals(1, pool.getEmUso());
+
+		con.close();
+
+		// O handle fica fechado, mas a conexão física continua aberta no pool.
+		assertTrue(con.isClosed());
+		assertEquals(0, pool.getEmUso());
+		assertEquals(1, pool.getOciosas());
+
+		Connection outra = pool.borrow();
+		assertFalse(outra.isClosed());
+		assertEquals(1, pool.getTotal());
+
+		outra.close();
+	}
+
+	@Test
+	public void TestaHandleDevolvidoNaoPodeSerUsado() throws SQLException {
+
+		Connection con = pool.borrow();
+		con.close();
+
+		try {
+			con.prepareStatement("SELECT 1;");
+			fail("Handle devolvido não deveria ser utilizado");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+	}
+
+	@Test
+	public void TestaStatementsSaoFechadosNaDevolucao() throws SQLException {
+
+		Connection con = pool.borrow();
+		PreparedStatement stmt = con.prepareStatement("SELECT 1;");
+
+		con.close();
+
+		assertTrue(stmt.isClosed());
+	}
+
+	@Test
+	public void TestaLimiteDeConexoes() throws SQLException {
+
+		Connection con1 = pool.borrow();
+		Connection con2 = pool.borrow();
+
+		try {
+			pool.borrow();
+			fail("O pool deveria respeitar o limite de conexões");
+		} catch (SQLException e) {
+			// Esperado, o tempo de espera se esgotou.
+		}
+
+		con1.close();
+
+		// Com uma conexão devolvida, o empréstimo volta a funcionar.
+		Connection con3 = pool.borrow();
+		assertFalse(con3.isClosed());
+
+		con2.close();
+		con3.close();
+	}
+
+	@Test
+	public void TestaConexaoInvalidaEDescartada() throws SQLException {
+
+		Connection con = pool.borrow();
+		Connection fisica = con.unwrap(Connection.class);
+		con.close();
+
+		// Fecha a conexão física que ficou ociosa no pool.
+		fisica.close();
+
+		// A validação descarta a conexão fechada e abre uma nova.
+		Connection nova = pool.borrow();
+		assertFalse(nova.isClosed());
+		assertEquals(1, pool.getTotal());
+		nova.close();
+	}
+
+	@Test
+	public void TestaContagemDeStatementsAbertos() throws SQLException {
+
+		Connection con = pool.borrow();
+		con.prepareStatement("SELECT 1;").close();
+		con.createStatement();
+		assertEquals(2, pool.getStatementsAbertos());
+
+		// O statement preparado continua aberto no cache, o outro é fechado.
+		con.close();
+		assertEquals(1, pool.getStatementsAbertos());
+
+		pool.close();
+		assertEquals(0, pool.getStatementsAbertos());
+	}
+
+	@Test
+	public void TestaConexaoVazadaApenasInformada() throws SQLException, InterruptedException {
+
+		ConnectionPool vazamento = new ConnectionPool("jdbc:sqlite::memory:", new Properties(), 0, 1, 2000, 200, 2);
+		vazamento.setTempoVazamento(100);
+
+		try {
+			// A conexão fica emprestada além do limite, como em uma leitura demorada.
+			Connection con = vazamento.borrow();
+			PreparedStatement stmt = con.prepareStatement("SELECT 1;");
+
+			long limite = System.currentTimeMillis() + 5000;
+			while (vazamento.getVazamentos() == 0 && System.currentTimeMillis() < limite)
+				Thread.sleep(50);
+
+			assertEquals(1, vazamento.getVazamentos());
+			assertEquals(0, vazamento.getRecuperadas());
+			assertEquals(1, vazamento.getEmUso());
+
+			// Quem pegou a conexão continua usando normalmente.
+			assertTrue(stmt.executeQuery().next());
+			con.close();
+			assertEquals(0, vazamento.getEmUso());
+
+			// O vazamento é informado uma única vez por empréstimo.
+			assertEquals(1, vazamento.getVazamentos());
+		} finally {
+			vazamento.close();
+		}
+	}
+
+	@Test
+	public void TestaConexaoEsquecidaRecuperada() throws SQLException, InterruptedException {
+
+		ConnectionPool vazamento = new ConnectionPool("jdbc:sqlite::memory:", new Properties(), 0, 1, 2000, 200, 2);
+		vazamento.setTempoRecuperacao(100);
+
+		try {
+			// Com um statement aberto, a conexão ainda está em uso e não é recuperada.
+			Connection con = vazamento.borrow();
+			PreparedStatement stmt = con.prepareStatement("SELECT 1;");
+
+			Thread.sleep(1500);
+			assertEquals(0, vazamento.getRecuperadas());
+			assertEquals(1, vazamento.getEmUso());
+
+			// Fechado o statement, a conexão esquecida é recuperada.
+			stmt.close();
+
+			long limite = System.currentTimeMillis() + 5000;
+			while (vazamento.getRecuperadas() == 0 && System.currentTimeMillis() < limite)
+				Thread.sleep(50);
+
+			assertEquals(1, vazamento.getRecuperadas());
+			assertEquals(0, vazamento.getEmUso());
+			assertEquals(0, vazamento.getStatementsAbertos());
+
+			try {
+				con.prepareStatement("SELECT 1;");
+				fail("Handle recuperado não deveria ser utilizado");
+			} catch (SQLException e) {
+				// Esperado.
+			}
+
+			// A permissão voltou para o pool.
+			vazamento.borrow().close();
+		} finally {
+			vazamento.close();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMemoryDatabase {
+
+	private File arquivo;
+	private MemoryDatabase memoria;
+
+	@Before
+	public void setUp() throws IOException, SQLException {
+
+		arquivo = File.createTempFile("memoria", ".db");
+		arquivo.deleteOnExit();
+
+		try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + arquivo.getPath());
+				Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("CREATE TABLE itens (id INTEGER PRIMARY KEY AUTOINCREMENT, nome TEXT NOT NULL);");
+			stmt.executeUpdate("INSERT INTO itens (nome) VALUES ('do arquivo');");
+		}
+
+		// Sem snapshot agendado, apenas os chamados pelo teste e o do fechamento.
+		memoria = new MemoryDatabase("teste-" + System.nanoTime(), arquivo.getPath(), new Properties(), 0, null);
+	}
+
+	@After
+	public void tearDown() {
+		memoria.close();
+	}
+
+	private int conta(String url) throws SQLException {
+		try (Connection con = DriverManager.getConnection(url);
+				Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM itens;")) {
+			return rs.getInt(1);
+		}
+	}
+
+	private void insere(String nome) throws SQLException {
+		try (Connection con = DriverManager.getConnection(memoria.getUrl());
+				Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("INSERT INTO itens (nome) VALUES ('" + nome + "');");
+		}
+	}
+
+	@Test
+	public void TestaArquivoCarregadoEmMemoria() throws SQLException {
+		assertEquals(1, conta(memoria.getUrl()));
+	}
+
+	@Test
+	public void TestaEscritaSoChegaAoArquivoNoSnapshot() throws SQLException {
+
+		insere("em memória");
+
+		assertEquals(2, conta(memoria.getUrl()));
+		assertEquals(1, conta("jdbc:sqlite:" + arquivo.getPath()));
+
+		memoria.snapshot();
+
+		assertEquals(2, conta("jdbc:sqlite:" + arquivo.getPath()));
+	}
+
+	@Test
+	public void TestaFechamentoGravaSnapshot() throws SQLException {
+
+		insere("antes do fechamento");
+		memoria.close();
+
+		assertEquals(2, conta("jdbc:sqlite:" + arquivo.getPath()));
+
+		try {
+			// Sem nenhuma conexão aberta, o banco em memória deixou de existir.
+			conta(memoria.getUrl());
+			fail("O banco em memória deveria ter sido liberado");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMigracoes {
+
+	private File arquivo;
+
+	@Before
+	public void setUp() throws IOException, SQLException {
+
+		arquivo = File.createTempFile("migracoes", ".db");
+		arquivo.deleteOnExit();
+
+		// Esquema anterior às migrações: sem o resumo dos comentários, sem índices e
+		// com uma relação repetida.
+		try (Connection con = abre(); Statement stmt = con.createStatement()) {
+
+			stmt.executeUpdate("CREATE TABLE autores (idAutor INTEGER PRIMARY KEY AUTOINCREMENT, nome TEXT NOT NULL);");
+			stmt.executeUpdate("CREATE TABLE artigos (idArtigo INTEGER PRIMARY KEY AUTOINCREMENT, dataPublicacao TEXT NOT NULL);");
+			stmt.executeUpdate("CREATE TABLE artigoAutores (idArtigo INTEGER NOT NULL, idAutor INTEGER NOT NULL);");
+			stmt.executeUpdate("CREATE TABLE comentarios (idComentario INTEGER PRIMARY KEY AUTOINCREMENT, idArtigo INTEGER NOT NULL, data TEXT);");
+
+			stmt.executeUpdate("INSERT INTO autores (nome) VALUES ('Victor');");
+			stmt.executeUpdate("INSERT INTO artigos (dataPublicacao) VALUES ('2018-11-16 17:28:09');");
+			stmt.executeUpdate("INSERT INTO artigoAutores VALUES (1, 1), (1, 1);");
+			stmt.executeUpdate("INSERT INTO comentarios (idArtigo, data) VALUES (1, '2018-11-17'), (1, '2018-11-18');");
+		}
+	}
+
+	@After
+	public void tearDown() {
+		arquivo.delete();
+	}
+
+	private Connection abre() throws SQLException {
+		return DriverManager.getConnection("jdbc:sqlite:" + arquivo.getPath());
+	}
+
+	private static int consulta(Connection con, String sql) throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+			return rs.getInt(1);
+		}
+	}
+
+	@Test
+	public void TestaMigracoesAplicadasUmaVez() throws SQLException {
+
+		try (Connection con = abre()) {
+
+			assertEquals(Migracoes.getVersao(), Migracoes.aplica(con));
+			assertEquals(Migracoes.getVersao(), consulta(con, "SELECT MAX(versao) FROM migracoes;"));
+
+			// Na segunda vez, nada é aplicado.
+			assertEquals(0, Migracoes.aplica(con));
+			assertEquals(Migracoes.getVersao(), consulta(con, "SELECT COUNT(*) FROM migracoes;"));
+
+			// O resumo e as contagens foram calculados a partir dos dados.
+			assertEquals(2, consulta(con, "SELECT commentCount FROM artigos WHERE idArtigo = 1;"));
+			assertEquals(2, consulta(con, "SELECT total FROM contagens WHERE tabela = 'comentarios';"));
+		}
+	}
+
+	@Test
+	public void TestaIndicesCriados() throws SQLException {
+
+		try (Connection con = abre(); Statement stmt = con.createStatement()) {
+
+			Migracoes.aplica(con);
+
+			for (String indice : new String[] { "artigos_publicacao", "artigoAutores_artigo_autor",
+					"artigoAutores_autor", "comentarios_artigo" })
+				assertEquals(indice, 1,
+						consulta(con, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = '" + indice + "';"));
+
+			// A relação repetida foi removida, e uma nova repetição é recusada.
+			assertEquals(1, consulta(con, "SELECT COUNT(*) FROM artigoAutores;"));
+			try {
+				stmt.executeUpdate("INSERT INTO artigoAutores VALUES (1, 1);");
+				fail("A relação repetida deveria ser recusada");
+			} catch (SQLException e) {
+				// Esperado.
+			}
+		}
+	}
+
+	@Test
+	public void TestaVersaoMantidaQuandoMigracaoFalha() throws SQLException {
+
+		try (Connection con = abre(); Statement stmt = con.createStatement()) {
+
+			// A tabela comentarios sem a coluna idArtigo faz a primeira migração falhar
+			// depois de criar as colunas do resumo.
+			stmt.executeUpdate("DROP TABLE comentarios;");
+			stmt.executeUpdate("CREATE TABLE comentarios (idComentario INTEGER PRIMARY KEY AUTOINCREMENT, data TEXT);");
+
+			try {
+				Migracoes.aplica(con);
+				fail("A migração deveria falhar");
+			} catch (SQLException e) {
+				// Esperado.
+			}
+
+			// Nenhuma alteração da migração que falhou fica no arquivo, e nem as
+			// seguintes são aplicadas.
+			assertEquals(0, consulta(con, "SELECT COUNT(*) FROM migracoes;"));
+			assertEquals(0, consulta(con, "SELECT COUNT(*) FROM pragma_table_info('artigos') WHERE name = 'commentCount';"));
+			assertEquals(2, consulta(con, "SELECT COUNT(*) FROM artigoAutores;"));
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import br.com.webedia.project.dao.ArtigoDAO;
+import br.com.webedia.project.dao.AutorDAO;
+import br.com.webedia.project.dao.ComentarioDAO;
+import br.com.webedia.project.model.Artigo;
+import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.Campos;
+import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.model.CursorDeArtigos;
+import br.com.webedia.project.model.ImportacaoDeArtigos.Resultado;
+import br.com.webedia.project.model.PaginaDeArtigos;
+import br.com.webedia.project.model.Relacoes;
+
+/**
+ * Executa as leituras e escritas dos DAOs, guardando o sql de cada statement
+ * preparado, e confere o EXPLAIN QUERY PLAN de cada um no banco de teste. Uma
+ * consulta que percorre inteira uma das tabelas grandes, sem índice, faz o
+ * teste falhar, a não ser que esteja em {@link #PERMITIDAS}.
+ * <p>
+ * Sem o ANALYZE, o planejador do SQLite não conhece o tamanho das tabelas, então
+ * o plano no banco de teste é o mesmo de um banco com muitas linhas.
+ * </p>
+ */
+public class TestPlanoDasConsultas {
+
+	// Tabelas que crescem com o uso.
+	private static final Pattern VARREDURA = Pattern
+			.compile("^SCAN (?:TABLE )?(artigos|comentarios|artigoAutores)(?: AS \\w+)?$");
+
+	// Varreduras intencionais: trecho do sql e o motivo.
+	private static final Map<String, String> PERMITIDAS = new LinkedHashMap<>();
+
+	static {
+		// A listagem por página percorre a tabela na ordem do rowid e para depois do
+		// OFFSET + LIMIT. As páginas profundas usam o cursor (after).
+		PERMITIDAS.put("FROM artigos ORDER BY idArtigo LIMIT ? OFFSET ?", "listagem de artigos por página");
+		PERMITIDAS.put("FROM comentarios ORDER BY idComentario LIMIT ? OFFSET ?", "listagem de comentários por página");
+	}
+
+	private static final Set<String> sqls = Collections.synchronizedSet(new LinkedHashSet<>());
+
+	// Driver registrado no lugar do driver do SQLite durante as leituras e
+	// escritas. As conexões físicas abertas pelos pools guardam o sql de cada
+	// statement preparado.
+	private static class Observador implements Driver {
+
+		private final Driver sqlite;
+
+		private Observador(Driver sqlite) {
+			this.sqlite = sqlite;
+		}
+
+		@Override
+		public Connection connect(String url, Properties info) throws SQLException {
+
+			Connection con = sqlite.connect(url, info);
+			if (con == null)
+				return null;
+
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+
+						if ("prepareStatement".equals(method.getName()))
+							sqls.add((String) args[0]);
+
+						try {
+							return method.invoke(con, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+
+		@Override
+		public boolean acceptsURL(String url) throws SQLException {
+			return sqlite.acceptsURL(url);
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+			return sqlite.getPropertyInfo(url, info);
+		}
+
+		@Override
+		public int getMajorVersion() {
+			return sqlite.getMajorVersion();
+		}
+
+		@Override
+		public int getMinorVersion() {
+			return sqlite.getMinorVersion();
+		}
+
+		@Override
+		public boolean jdbcCompliant() {
+			return sqlite.jdbcCompliant();
+		}
+
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			return sqlite.getParentLogger();
+		}
+	}
+
+	@BeforeClass
+	public static void setUp() throws SQLException {
+
+		// Os pools são fechados antes e depois, assim todas as conexões físicas do
+		// teste, e os seus caches de statements, passam pelo observador.
+		ConnectionFactory.shutdown();
+
+		Driver sqlite = DriverManager.getDriver("jdbc:sqlite:");
+		Driver observador = new Observador(sqlite);
+		DriverManager.deregisterDriver(sqlite);
+		DriverManager.registerDriver(observador);
+
+		try {
+			executaLeituras();
+			executaEscritas();
+		} finally {
+			ConnectionFactory.shutdown();
+			DriverManager.deregisterDriver(observador);
+			DriverManager.registerDriver(sqlite);
+		}
+	}
+
+	private static void executaLeituras() throws SQLException {
+
+		ArtigoDAO artigoDao = new ArtigoDAO();
+		AutorDAO autorDao = new AutorDAO();
+		ComentarioDAO comentarioDao = new ComentarioDAO();
+
+		Artigo artigo = artigoDao.listArtigo(1, 1).getArtigos().get(0);
+
+		assertNotNull(artigoDao.readArtigo(artigo.getPermalink(), 0l));
+		assertNotNull(artigoDao.readArtigo(null, artigo.getId()));
+
+		// Um id fora do conjunto de artigos existentes é procurado no banco.
+		assertFalse(artigoDao.existsArtigo(Long.MAX_VALUE));
+		assertNotNull(artigoDao.readArtigo(artigo.getPermalink(), 0l, Relacoes.parse("autores,comentarios:2"),
+				Campos.parse("titulo,autores,comentarios", Artigo.class)));
+
+		artigoDao.listArtigo(5, 2);
+		artigoDao.listArtigo(5, 1, Relacoes.parse("autores,comentarios:2,resumo"), Campos.todos(Artigo.class));
+
+		PaginaDeArtigos pagina = artigoDao.listArtigo(null, 2);
+		artigoDao.listArtigo(CursorDeArtigos.of(pagina.getArtigos().get(1)), 2);
+
+		assertNotNull(autorDao.readAutor(1));
+		autorDao.listAutor(5, 1);
+		autorDao.listAutor(5, 1, Campos.parse("nome", Autor.class));
+
+		comentarioDao.listComentario(5, 1, null);
+		comentarioDao.listComentario(5, 1, artigo.getPermalink());
+		comentarioDao.readComentario(comentarioDao.listComentario(1, 1, null).getComentarios().get(0).getId());
+	}
+
+	// Cria, altera e remove um autor, um artigo e um comentário, e importa e remove
+	// um artigo, pelo permalink. O banco de teste termina como começou.
+	private static void executaEscritas() {
+
+		ArtigoDAO artigoDao = new ArtigoDAO();
+		AutorDAO autorDao = new AutorDAO();
+		ComentarioDAO comentarioDao = new ComentarioDAO();
+
+		Autor autor = new Autor();
+		autor.setNome("Plano");
+		autor.setSobrenome("Consultas");
+		autor.setId(id(autorDao.createAutor(autor)));
+		autor.setBio("Bio");
+		assertEquals(200, autorDao.updateAutor(autor).getStatus());
+
+		Artigo artigo = new Artigo();
+		artigo.setTitulo("Plano das consultas");
+		artigo.setSubtitulo("Subtítulo");
+		artigo.setConteudo("Conteúdo");
+		artigo.addAutor(autor);
+		assertEquals(201, artigoDao.createArtigo(artigo).getStatus());
+		artigo = artigoDao.readArtigo(artigo.getPermalink(), 0l);
+		artigo.setSubtitulo("Outro subtítulo");
+		assertEquals(200, artigoDao.updateArtigo(artigo).getStatus());
+
+		Comentario comentario = new Comentario();
+		comentario.setIdArtigo(artigo.getId());
+		comentario.setUsuario("plano");
+		comentario.setTexto("Comentário");
+		comentario.setId(id(comentarioDao.createComentario(comentario)));
+		comentario.setTexto("Outro comentário");
+		assertEquals(200, comentarioDao.updateComentario(comentario).getStatus());
+
+		assertEquals(200, comentarioDao.deleteComentario(comentario.getId()).getStatus());
+		assertEquals(200, artigoDao.deleteArtigo(null, artigo.getId()).getStatus());
+
+		Artigo importado = new Artigo();
+		importado.setTitulo("Plano da importação");
+		importado.setSubtitulo("Subtítulo");
+		importado.setConteudo("Conteúdo");
+		importado.addAutor(autor);
+		Resultado resultado = artigoDao.createArtigos(Collections.singletonList(importado)).get(0);
+		assertEquals(201, resultado.getStatus());
+		assertEquals(200, artigoDao.deleteArtigo(resultado.getPermalink(), 0l).getStatus());
+		assertEquals(200, autorDao.deleteAutor(autor.getId()).getStatus());
+	}
+
+	// Id do recurso criado, lido do Location da resposta.
+	private static long id(Response resposta) {
+		assertEquals(201, resposta.getStatus());
+		String caminho = resposta.getLocation().getPath();
+		return Long.parseLong(caminho.substring(caminho.lastIndexOf('/') + 1));
+	}
+
+	@Test
+	public void TestaNenhumaVarreduraDasTabelasGrandes() throws SQLException {
+
+		assertFalse(sqls.isEmpty());
+
+		Set<String> falhas = new LinkedHashSet<>();
+		Set<String> usadas = new LinkedHashSet<>();
+
+		try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + ConnectionFactory.getArquivos().get(0));
+				Statement stmt = con.createStatement()) {
+
+			for (String sql : new ArrayList<>(sqls)) {
+
+				try (ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+					while (rs.next()) {
+
+						Matcher varredura = VARREDURA.matcher(rs.getString("detail"));
+						if (!varredura.matches())
+							continue;
+
+						String permitida = permitida(sql);
+						if (permitida != null)
+							usadas.add(permitida);
+						else
+							falhas.add(varredura.group() + " em: " + sql);
+					}
+				}
+			}
+		}
+
+		assertTrue("Consultas sem índice:\n" + String.join("\n", falhas), falhas.isEmpty());
+
+		// Uma varredura permitida que não acontece mais deve sair da lista.
+		assertEquals(PERMITIDAS.keySet(), usadas);
+	}
+
+	private static String permitida(String sql) {
+
+		for (String trecho : PERMITIDAS.keySet())
+			if (sql.contains(trecho))
+				return trecho;
+
+		return null;
+	}
+}
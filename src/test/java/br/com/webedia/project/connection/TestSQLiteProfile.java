@@ -0,0 +1,57 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+public class TestSQLiteProfile {
+
+	private static String pragma(Connection con, String nome) throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA " + nome + ";")) {
+			return rs.getString(1);
+		}
+	}
+
+	@Test
+	public void TestaPerfilPerformanceNasConexoesDoPool() throws SQLException {
+
+		// Sem a propriedade webedia.db.perfil, o perfil PERFORMANCE é utilizado.
+		assertEquals(SQLiteProfile.PERFORMANCE, SQLiteProfile.selecionado());
+
+		Connection con = ConnectionFactory.getConnection();
+
+		assertEquals("wal", pragma(con, "journal_mode"));
+		// NORMAL = 1
+		assertEquals("1", pragma(con, "synchronous"));
+		assertEquals("-16384", pragma(con, "cache_size"));
+		assertEquals("268435456", pragma(con, "mmap_size"));
+		// MEMORY = 2
+		assertEquals("2", pragma(con, "temp_store"));
+		assertEquals("5000", pragma(con, "busy_timeout"));
+		assertEquals("1", pragma(con, "foreign_keys"));
+
+		ConnectionFactory.closeConnection(con);
+	}
+
+	@Test
+	public void TestaPerfilPadrao() throws SQLException, IOException {
+
+		File arquivo = File.createTempFile("perfil", ".db");
+		arquivo.deleteOnExit();
+
+		try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + arquivo.getPath(),
+				SQLiteProfile.PADRAO.createConfig().toProperties())) {
+
+			assertEquals("delete", pragma(con, "journal_mode"));
+			assertEquals("1", pragma(con, "foreign_keys"));
+		}
+	}
+}
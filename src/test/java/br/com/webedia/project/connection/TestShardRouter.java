@@ -0,0 +1,115 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestShardRouter {
+
+	private static final int TOTAL = 3;
+
+	private List<String> arquivos = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException, SQLException {
+
+		File pasta = Files.createTempDirectory("shards").toFile();
+		pasta.deleteOnExit();
+
+		for (int i = 0; i < TOTAL; i++) {
+			File arquivo = new File(pasta, "banco-" + i + ".db");
+			arquivo.deleteOnExit();
+			arquivos.add(arquivo.getPath());
+		}
+
+		// Apenas o primeiro arquivo existe, com todos os artigos.
+		try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + arquivos.get(0));
+				Statement stmt = con.createStatement()) {
+
+			stmt.executeUpdate("CREATE TABLE autores (idAutor INTEGER PRIMARY KEY AUTOINCREMENT, nome TEXT NOT NULL);");
+			stmt.executeUpdate("CREATE TABLE artigos (idArtigo INTEGER PRIMARY KEY AUTOINCREMENT, permalink TEXT NOT NULL UNIQUE);");
+			stmt.executeUpdate("CREATE TABLE artigoAutores (idArtigo INTEGER NOT NULL, idAutor INTEGER NOT NULL);");
+			stmt.executeUpdate("CREATE TABLE comentarios (idComentario INTEGER PRIMARY KEY AUTOINCREMENT, idArtigo INTEGER NOT NULL);");
+
+			stmt.executeUpdate("INSERT INTO autores (nome) VALUES ('Victor'), ('Ariana');");
+			for (int i = 1; i <= 7; i++) {
+				stmt.executeUpdate("INSERT INTO artigos (permalink) VALUES ('artigo-" + i + "');");
+				stmt.executeUpdate("INSERT INTO artigoAutores VALUES (" + i + ", 1);");
+				stmt.executeUpdate("INSERT INTO comentarios (idArtigo) VALUES (" + i + ");");
+			}
+		}
+	}
+
+	private int conta(int shard, String sql) throws SQLException {
+		try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + arquivos.get(shard));
+				Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery(sql)) {
+			return rs.getInt(1);
+		}
+	}
+
+	@Test
+	public void TestaArtigosDistribuidosPeloId() throws SQLException {
+
+		ShardRouter.prepara(arquivos);
+
+		int artigos = 0;
+		for (int shard = 0; shard < TOTAL; shard++) {
+
+			// Nenhum artigo, relação ou comentário fora do shard correto.
+			assertEquals(0, conta(shard, "SELECT COUNT(*) FROM artigos WHERE idArtigo % 3 != " + shard + ";"));
+			assertEquals(0, conta(shard, "SELECT COUNT(*) FROM artigoAutores WHERE idArtigo % 3 != " + shard + ";"));
+			assertEquals(0, conta(shard, "SELECT COUNT(*) FROM comentarios WHERE idArtigo % 3 != " + shard + ";"));
+
+			// Os autores são copiados em todos os shards.
+			assertEquals(2, conta(shard, "SELECT COUNT(*) FROM autores;"));
+
+			artigos += conta(shard, "SELECT COUNT(*) FROM artigos;");
+		}
+
+		assertEquals(7, artigos);
+
+		// Uma segunda preparação não altera nada.
+		ShardRouter.prepara(arquivos);
+		assertEquals(3, conta(1, "SELECT COUNT(*) FROM artigos;"));
+	}
+
+	@Test
+	public void TestaProximoIdNoShard() throws SQLException {
+
+		ShardRouter.prepara(arquivos);
+
+		for (int shard = 0; shard < TOTAL; shard++) {
+			try (Connection con = DriverManager.getConnection("jdbc:sqlite:" + arquivos.get(shard))) {
+
+				Long id = ShardRouter.nextId(con, "artigos", "idArtigo", shard, TOTAL);
+
+				// O id é maior que todos os já usados e pertence ao shard.
+				assertTrue(id > 7);
+				assertEquals(shard, ShardRouter.getShard(id, TOTAL));
+
+				assertNull(ShardRouter.nextId(con, "artigos", "idArtigo", 0, 1));
+			}
+		}
+	}
+
+	@Test
+	public void TestaShardDoPermalinkEstavel() {
+		assertEquals(ShardRouter.getShard("artigo-1", TOTAL), ShardRouter.getShard(new String("artigo-1"), TOTAL));
+		assertEquals(Math.floorMod("artigo-1".hashCode(), TOTAL), ShardRouter.getShard("artigo-1", TOTAL));
+	}
+}
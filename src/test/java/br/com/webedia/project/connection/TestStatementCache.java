@@ -0,0 +1,143 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestStatementCache {
+
+	private ConnectionPool pool;
+
+	@Before
+	public void setUp() {
+		// Pool com uma única conexão e cache de dois statements.
+		pool = new ConnectionPool("jdbc:sqlite::memory:", new Properties(), 0, 1, 60000, 200, 2);
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	public void TestaStatementReaproveitadoEntreEmprestimos() throws SQLException {
+
+		Connection con = pool.borrow();
+		PreparedStatement stmt = con.prepareStatement("SELECT ?;");
+		PreparedStatement fisico = stmt.unwrap(PreparedStatement.class);
+		stmt.setInt(1, 10);
+		ResultSet rs = stmt.executeQuery();
+		assertEquals(10, rs.getInt(1));
+		con.close();
+
+		// O ResultSet é fechado junto com o statement.
+		assertTrue(rs.isClosed());
+
+		con = pool.borrow();
+		stmt = con.prepareStatement("SELECT ?;");
+
+		// Mesmo statement físico, com os parâmetros limpos.
+		assertSame(fisico, stmt.unwrap(PreparedStatement.class));
+		stmt.setInt(1, 20);
+		assertEquals(20, stmt.executeQuery().getInt(1));
+		stmt.close();
+		con.close();
+
+		assertEquals(1, pool.getAcertosCache());
+		assertEquals(1, pool.getFalhasCache());
+	}
+
+	@Test
+	public void TestaMesmoSqlEmUsoNaoCompartilhaStatement() throws SQLException {
+
+		Connection con = pool.borrow();
+		PreparedStatement stmt1 = con.prepareStatement("SELECT 1;");
+		PreparedStatement stmt2 = con.prepareStatement("SELECT 1;");
+
+		assertNotSame(stmt1.unwrap(PreparedStatement.class), stmt2.unwrap(PreparedStatement.class));
+
+		con.close();
+		assertEquals(2, pool.getFalhasCache());
+	}
+
+	@Test
+	public void TestaStatementRemovidoDoCacheEFinalizado() throws SQLException {
+
+		Connection con = pool.borrow();
+
+		PreparedStatement stmt = con.prepareStatement("SELECT 1;");
+		PreparedStatement primeiro = stmt.unwrap(PreparedStatement.class);
+		stmt.close();
+
+		con.prepareStatement("SELECT 2;").close();
+		con.prepareStatement("SELECT 3;").close();
+
+		// O cache comporta dois statements, então o menos usado foi finalizado.
+		assertTrue(primeiro.isClosed());
+
+		stmt = con.prepareStatement("SELECT 3;");
+		assertFalse(stmt.unwrap(PreparedStatement.class).isClosed());
+		stmt.close();
+
+		con.close();
+		assertEquals(1, pool.getAcertosCache());
+		assertEquals(3, pool.getFalhasCache());
+	}
+
+	@Test
+	public void TestaComandoRepetidoComTabelaTravada() throws Exception {
+
+		// Banco em memória compartilhado: a escrita sem commit trava a tabela.
+		String url = "jdbc:sqlite:file:trava-" + System.nanoTime() + "?mode=memory&cache=shared";
+
+		try (Connection escrita = DriverManager.getConnection(url)) {
+
+			try (Statement stmt = escrita.createStatement()) {
+				stmt.executeUpdate("CREATE TABLE itens (id INTEGER PRIMARY KEY);");
+			}
+
+			ConnectionPool compartilhado = new ConnectionPool(url, new Properties(), 0, 1, 60000, 200, 2);
+			compartilhado.setEsperaTrava(5000);
+
+			try (Connection con = compartilhado.borrow()) {
+
+				escrita.setAutoCommit(false);
+				try (Statement stmt = escrita.createStatement()) {
+					stmt.executeUpdate("INSERT INTO itens (id) VALUES (1);");
+				}
+
+				Thread commit = new Thread(() -> {
+					try {
+						Thread.sleep(100);
+						escrita.commit();
+					} catch (InterruptedException | SQLException e) {
+						throw new RuntimeException(e);
+					}
+				});
+				commit.start();
+
+				// A leitura espera o commit e não enxerga a escrita pela metade.
+				PreparedStatement stmt = con.prepareStatement("SELECT COUNT(*) FROM itens;");
+				assertEquals(1, stmt.executeQuery().getInt(1));
+				commit.join();
+
+			} finally {
+				compartilhado.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestUnitOfWork {
+
+	private Connection con;
+
+	@Before
+	public void setUp() throws SQLException {
+
+		con = DriverManager.getConnection("jdbc:sqlite::memory:");
+
+		try (Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("CREATE TABLE itens (id INTEGER PRIMARY KEY, nome TEXT NOT NULL);");
+		}
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		con.close();
+	}
+
+	private void insere(Connection con, String nome) throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("INSERT INTO itens (nome) VALUES (" + (nome == null ? "NULL" : "'" + nome + "'") + ");");
+		}
+	}
+
+	private int conta() throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM itens;")) {
+			return rs.getInt(1);
+		}
+	}
+
+	@Test
+	public void TestaUnidadeConfirmaTodosOsComandos() throws SQLException {
+
+		int resultado = UnitOfWork.run(con, c -> {
+			insere(c, "primeiro");
+			insere(c, "segundo");
+			return 2;
+		});
+
+		assertEquals(2, resultado);
+		assertEquals(2, conta());
+
+		// A conexão volta para o modo autocommit.
+		assertTrue(con.getAutoCommit());
+	}
+
+	@Test
+	public void TestaFalhaDesfazTodosOsComandos() throws SQLException {
+
+		try {
+			UnitOfWork.run(con, c -> {
+				insere(c, "primeiro");
+				// Nome nulo quebra a restrição NOT NULL da tabela.
+				insere(c, null);
+				return null;
+			});
+			fail("A unidade deveria falhar");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+
+		assertEquals(0, conta());
+		assertTrue(con.getAutoCommit());
+	}
+
+	@Test
+	public void TestaUnidadeDentroDeTransacaoUsaSavepoint() throws SQLException {
+
+		con.setAutoCommit(false);
+
+		insere(con, "de fora");
+
+		try {
+			UnitOfWork.run(con, c -> {
+				insere(c, "de dentro");
+				insere(c, null);
+				return null;
+			});
+			fail("A unidade deveria falhar");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+
+		// Apenas a unidade foi desfeita, e a transação de fora continua aberta.
+		assertFalse(con.getAutoCommit());
+		assertEquals(1, conta());
+
+		con.commit();
+		con.setAutoCommit(true);
+		assertEquals(1, conta());
+	}
+}
@@ -0,0 +1,35 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWarmUp {
+
+	@Before
+	public void setUp() {
+		System.setProperty("webedia.aquecimento.rodadas", "2");
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty("webedia.aquecimento.rodadas");
+	}
+
+	@Test
+	public void TestaAquecimentoPreparaConexoesEStatements() throws ClassNotFoundException, SQLException {
+
+		WarmUp.run();
+
+		ConnectionPool leitura = ConnectionFactory.getReadOnlyPool();
+
+		// As conexões mínimas foram abertas e os statements das leituras estão no
+		// cache.
+		assertTrue(leitura.getTotal() >= 2);
+		assertTrue(leitura.getAcertosCache() > 0);
+	}
+}
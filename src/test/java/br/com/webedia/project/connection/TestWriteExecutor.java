@@ -0,0 +1,151 @@
+package br.com.webedia.project.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWriteExecutor {
+
+	private File arquivo;
+	private WriteExecutor writer;
+
+	@Before
+	public void setUp() throws IOException, SQLException {
+
+		arquivo = File.createTempFile("escritor", ".db");
+		arquivo.deleteOnExit();
+
+		try (Connection con = DriverManager.getConnection(url());
+				Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("CREATE TABLE itens (id INTEGER PRIMARY KEY AUTOINCREMENT, nome TEXT NOT NULL);");
+		}
+
+		// A janela de 50ms garante que as escritas enviadas juntas fiquem no mesmo lote.
+		writer = new WriteExecutor(new ConnectionPool(url(), SQLiteProfile.PERFORMANCE.createConfig().toProperties(),
+				0, 1, 60000, 1000, 8), 64, 50);
+	}
+
+	@After
+	public void tearDown() {
+		writer.close();
+	}
+
+	private String url() {
+		return "jdbc:sqlite:" + arquivo.getPath();
+	}
+
+	private Long insere(String nome) throws SQLException {
+		return writer.submit(con -> {
+			try (PreparedStatement stmt = con.prepareStatement("INSERT INTO itens (nome) VALUES (?);",
+					Statement.RETURN_GENERATED_KEYS)) {
+				stmt.setString(1, nome);
+				stmt.executeUpdate();
+				try (ResultSet rs = stmt.getGeneratedKeys()) {
+					return rs.getLong(1);
+				}
+			}
+		});
+	}
+
+	private int conta() throws SQLException {
+		try (Connection con = DriverManager.getConnection(url());
+				Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM itens;")) {
+			return rs.getInt(1);
+		}
+	}
+
+	@Test
+	public void TestaEscritaRetornaIdGerado() throws SQLException {
+
+		assertEquals(Long.valueOf(1), insere("primeiro"));
+		assertEquals(Long.valueOf(2), insere("segundo"));
+		assertEquals(2, conta());
+	}
+
+	@Test
+	public void TestaEscritasConcorrentes() throws InterruptedException, SQLException {
+
+		int quantidade = 50;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		List<Throwable> erros = new ArrayList<>();
+		CountDownLatch fim = new CountDownLatch(quantidade);
+
+		for (int i = 0; i < quantidade; i++) {
+			String nome = "item " + i;
+			new Thread(() -> {
+				try {
+					ids.add(insere(nome));
+				} catch (SQLException e) {
+					synchronized (erros) {
+						erros.add(e);
+					}
+				} finally {
+					fim.countDown();
+				}
+			}).start();
+		}
+
+		assertTrue(fim.await(30, TimeUnit.SECONDS));
+		assertTrue(erros.isEmpty());
+		assertEquals(quantidade, ids.size());
+		assertEquals(quantidade, conta());
+	}
+
+	@Test
+	public void TestaFalhaDesfazApenasAEscritaComErro() throws InterruptedException, SQLException {
+
+		Thread outra = new Thread(() -> {
+			try {
+				insere("valido");
+			} catch (SQLException e) {
+				fail(e.getMessage());
+			}
+		});
+		outra.start();
+
+		try {
+			// Nome nulo quebra a restrição NOT NULL da tabela.
+			insere(null);
+			fail("A escrita inválida deveria falhar");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+
+		outra.join();
+
+		assertEquals(1, conta());
+	}
+
+	@Test
+	public void TestaEscritorFechado() {
+
+		writer.close();
+
+		try {
+			insere("depois do fechamento");
+			fail("O escritor fechado não deveria aceitar escritas");
+		} catch (SQLException e) {
+			// Esperado.
+		}
+	}
+}
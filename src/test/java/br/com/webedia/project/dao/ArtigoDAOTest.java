@@ -0,0 +1,122 @@
+package br.com.webedia.project.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+import br.com.webedia.project.model.Artigo;
+import br.com.webedia.project.model.Autor;
+
+public class ArtigoDAOTest {
+
+	private ArtigoDAO dao = new ArtigoDAO();
+
+	private Artigo criaArtigo(String titulo) {
+
+		Autor autor = new Autor();
+		autor.setId(1l);
+
+		Artigo artigo = new Artigo();
+		artigo.setTitulo(titulo);
+		artigo.setSubtitulo("Subtítulo");
+		artigo.setConteudo("Conteúdo");
+		artigo.addAutor(autor);
+
+		assertEquals(201, dao.createArtigo(artigo).getStatus());
+		return dao.readArtigo(artigo.getPermalink(), 0l);
+	}
+
+	@Test
+	public void testaExistsArtigo() throws SQLException {
+
+		Artigo artigo = dao.listArtigo(1, 1).getArtigos().get(0);
+
+		// A primeira verificação consulta o banco, e a segunda usa o conjunto.
+		assertTrue(dao.existsArtigo(artigo.getId()));
+		assertTrue(dao.existsArtigo(artigo.getId()));
+
+		assertFalse(dao.existsArtigo(Long.MAX_VALUE));
+		assertFalse(dao.existsArtigo(0l));
+		assertFalse(dao.existsArtigo(null));
+	}
+
+	@Test
+	public void testaExistsArtigoDepoisDaRemocao() throws SQLException {
+
+		Artigo porId = criaArtigo("Existência por id");
+		assertTrue(dao.existsArtigo(porId.getId()));
+		assertEquals(200, dao.deleteArtigo(null, porId.getId()).getStatus());
+		assertFalse(dao.existsArtigo(porId.getId()));
+
+		// Removido pelo permalink, o artigo também sai do conjunto.
+		Artigo porPermalink = criaArtigo("Existência por permalink");
+		assertTrue(dao.existsArtigo(porPermalink.getId()));
+		assertEquals(200, dao.deleteArtigo(porPermalink.getPermalink(), 0l).getStatus());
+		assertFalse(dao.existsArtigo(porPermalink.getId()));
+	}
+
+	@Test
+	public void testaUpdateArtigoParcial() {
+
+		Artigo artigo = criaArtigo("Alteração parcial");
+
+		try {
+			// Apenas o subtítulo é enviado: o título, o permalink, o conteúdo e os
+			// autores continuam os mesmos.
+			Artigo subtitulo = new Artigo();
+			subtitulo.setId(artigo.getId());
+			subtitulo.setSubtitulo("Novo subtítulo");
+			assertEquals(200, dao.updateArtigo(subtitulo).getStatus());
+
+			Artigo atual = dao.readArtigo(null, artigo.getId());
+			assertEquals("Alteração parcial", atual.getTitulo());
+			assertEquals(artigo.getPermalink(), atual.getPermalink());
+			assertEquals("Novo subtítulo", atual.getSubtitulo());
+			assertEquals("Conteúdo", atual.getConteudo());
+			assertEquals(1, atual.getAutores().size());
+			assertNotNull(atual.getDataAtualizacao());
+
+			// Um novo título gera um novo permalink.
+			Artigo titulo = new Artigo();
+			titulo.setId(artigo.getId());
+			titulo.setTitulo("Alteração parcial do título");
+			assertEquals(200, dao.updateArtigo(titulo).getStatus());
+			assertEquals("alteracao-parcial-do-titulo", dao.readArtigo(null, artigo.getId()).getPermalink());
+		} finally {
+			assertEquals(200, dao.deleteArtigo(null, artigo.getId()).getStatus());
+		}
+	}
+
+	@Test
+	public void testaUpdateArtigoInexistente() {
+
+		Autor autor = new Autor();
+		autor.setId(1l);
+
+		// As relações com os autores também não são gravadas.
+		Artigo artigo = new Artigo();
+		artigo.setId(Long.MAX_VALUE);
+		artigo.setConteudo("Conteúdo");
+		artigo.addAutor(autor);
+		assertEquals(404, dao.updateArtigo(artigo).getStatus());
+	}
+
+	@Test
+	public void testaIdNaoAdicionadoDepoisDeUmaRemocao() {
+
+		// Uma busca que começou antes de uma remoção não coloca o id no conjunto.
+		long versao = ArtigosExistentes.getVersao();
+		ArtigosExistentes.remove(-10l);
+		ArtigosExistentes.adiciona(-10l, versao);
+		assertFalse(ArtigosExistentes.contem(-10l));
+
+		ArtigosExistentes.adiciona(-10l, ArtigosExistentes.getVersao());
+		assertTrue(ArtigosExistentes.contem(-10l));
+		ArtigosExistentes.remove(-10l);
+	}
+}
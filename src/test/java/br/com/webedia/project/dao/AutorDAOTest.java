@@ -0,0 +1,99 @@
+package br.com.webedia.project.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+import br.com.webedia.project.model.Autor;
+
+public class AutorDAOTest {
+
+	private static List<Autor> autores(Long... ids) {
+
+		List<Autor> autores = new ArrayList<>();
+		for (Long id : ids) {
+			Autor autor = new Autor();
+			autor.setId(id);
+			autores.add(autor);
+		}
+
+		return autores;
+	}
+
+	@Test
+	public void testaVerifyAutoresRetornaOsAusentes() throws SQLException {
+
+		AutorDAO dao = new AutorDAO();
+
+		Connection con = ConnectionFactory.getReadOnlyConnection();
+
+		try {
+			// Apenas os ids que não estão no banco, na ordem da lista e sem repetição.
+			assertEquals(Arrays.asList(-2l, -1l),
+					new ArrayList<>(dao.verifyAutores(autores(1l, -2l, 1l, -1l, -2l), con)));
+			assertTrue(dao.verifyAutores(autores(1l), con).isEmpty());
+			assertFalse(con.isClosed());
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+
+		assertTrue(dao.verifyAutores(autores(1l)));
+		assertFalse(dao.verifyAutores(autores(1l, -1l)));
+	}
+
+	@Test
+	public void testaReadAutorInexistente() {
+		assertNull(new AutorDAO().readAutor(-1l));
+	}
+
+	@Test
+	public void testaUpdateAutorParcial() {
+
+		AutorDAO dao = new AutorDAO();
+
+		Autor autor = new Autor();
+		autor.setNome("Alteração");
+		autor.setSobrenome("Parcial");
+		String local = dao.createAutor(autor).getLocation().getPath();
+		long id = Long.parseLong(local.substring(local.lastIndexOf('/') + 1));
+
+		try {
+			// Apenas a bio é enviada, e o nome e o sobrenome continuam os mesmos.
+			Autor bio = autores(id).get(0);
+			bio.setBio("Nova bio");
+			assertEquals(200, dao.updateAutor(bio).getStatus());
+
+			Autor atual = dao.readAutor(id);
+			assertEquals("Alteração", atual.getNome());
+			assertEquals("Parcial", atual.getSobrenome());
+			assertEquals("Nova bio", atual.getBio());
+
+			// Sem nenhum campo, nada muda.
+			assertEquals(200, dao.updateAutor(autores(id).get(0)).getStatus());
+		} finally {
+			assertEquals(200, dao.deleteAutor(id).getStatus());
+		}
+	}
+
+	@Test
+	public void testaUpdateAutorInexistente() {
+
+		AutorDAO dao = new AutorDAO();
+
+		Autor autor = autores(-1l).get(0);
+		assertEquals(404, dao.updateAutor(autor).getStatus());
+
+		autor.setNome("Ninguém");
+		assertEquals(404, dao.updateAutor(autor).getStatus());
+	}
+}
@@ -0,0 +1,48 @@
+package br.com.webedia.project.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import br.com.webedia.project.model.Comentario;
+
+public class ComentarioDAOTest {
+
+	private ComentarioDAO dao = new ComentarioDAO();
+
+	@Test
+	public void testaUpdateComentarioParcial() {
+
+		Comentario comentario = new Comentario();
+		comentario.setIdArtigo(new ArtigoDAO().listArtigo(1, 1).getArtigos().get(0).getId());
+		comentario.setUsuario("parcial");
+		comentario.setTexto("Texto");
+		String local = dao.createComentario(comentario).getLocation().getPath();
+		long id = Long.parseLong(local.substring(local.lastIndexOf('/') + 1));
+
+		try {
+			// Apenas o texto é enviado, e o usuário continua o mesmo.
+			Comentario texto = new Comentario();
+			texto.setId(id);
+			texto.setTexto("Novo texto");
+			assertEquals(200, dao.updateComentario(texto).getStatus());
+
+			Comentario atual = dao.readComentario(id);
+			assertEquals("parcial", atual.getUsuario());
+			assertEquals("Novo texto", atual.getTexto());
+		} finally {
+			assertEquals(200, dao.deleteComentario(id).getStatus());
+		}
+	}
+
+	@Test
+	public void testaUpdateComentarioInexistente() {
+
+		Comentario comentario = new Comentario();
+		comentario.setId(-1l);
+		assertEquals(404, dao.updateComentario(comentario).getStatus());
+
+		comentario.setTexto("Texto");
+		assertEquals(404, dao.updateComentario(comentario).getStatus());
+	}
+}
@@ -0,0 +1,181 @@
+package br.com.webedia.project.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+import br.com.webedia.project.model.Artigo;
+import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.Campos;
+import br.com.webedia.project.model.Comentario;
+import br.com.webedia.project.model.Relacoes;
+
+public class FilaDeComentariosTest {
+
+	private ArtigoDAO artigoDao = new ArtigoDAO();
+	private ComentarioDAO comentarioDao = new ComentarioDAO();
+
+	private Artigo artigo;
+
+	@Before
+	public void setUp() {
+
+		Autor autor = new Autor();
+		autor.setId(1l);
+
+		artigo = new Artigo();
+		artigo.setTitulo("Fila de comentários");
+		artigo.setSubtitulo("Subtítulo");
+		artigo.setConteudo("Conteúdo");
+		artigo.addAutor(autor);
+
+		assertEquals(201, artigoDao.createArtigo(artigo).getStatus());
+		artigo = artigoDao.readArtigo(artigo.getPermalink(), 0l);
+	}
+
+	// A remoção do artigo remove também os comentários gravados pela fila.
+	@After
+	public void tearDown() {
+		assertEquals(200, artigoDao.deleteArtigo(null, artigo.getId()).getStatus());
+	}
+
+	private Comentario comentario(Long idArtigo, String texto) {
+
+		Comentario comentario = new Comentario();
+		comentario.setIdArtigo(idArtigo);
+		comentario.setUsuario("fila");
+		comentario.setTexto(texto);
+		return comentario;
+	}
+
+	private Long adiciona(FilaDeComentarios fila, Comentario comentario) throws SQLException {
+		return fila.adiciona(comentario, ConnectionFactory.getShard(comentario.getIdArtigo()));
+	}
+
+	@Test
+	public void testaComentariosGravadosNoFechamento() throws SQLException {
+
+		// Com o intervalo longo, nada é gravado antes do fechamento.
+		FilaDeComentarios fila = new FilaDeComentarios(10, 100, 60000, 0, 3);
+
+		Long primeiro = adiciona(fila, comentario(artigo.getId(), "Primeiro"));
+		Long segundo = adiciona(fila, comentario(artigo.getId(), "Segundo"));
+		Long terceiro = adiciona(fila, comentario(artigo.getId(), "Terceiro"));
+
+		assertTrue(primeiro < segundo && segundo < terceiro);
+		assertNull(comentarioDao.readComentario(primeiro));
+
+		fila.close();
+
+		assertEquals("Primeiro", comentarioDao.readComentario(primeiro).getTexto());
+		assertEquals("Segundo", comentarioDao.readComentario(segundo).getTexto());
+		assertEquals("Terceiro", comentarioDao.readComentario(terceiro).getTexto());
+
+		// O resumo do artigo foi atualizado junto com cada comentário.
+		Artigo resumo = artigoDao.readArtigo(null, artigo.getId(), Relacoes.parse("resumo"),
+				Campos.todos(Artigo.class));
+		assertEquals(Integer.valueOf(3), resumo.getCommentCount());
+		assertNotNull(resumo.getLastCommentAt());
+	}
+
+	@Test
+	public void testaFilaCheiaRecusaComentario() throws SQLException {
+
+		FilaDeComentarios fila = new FilaDeComentarios(1, 100, 60000, 10, 3);
+
+		Long aceito = adiciona(fila, comentario(artigo.getId(), "Aceito"));
+		assertNotNull(aceito);
+		assertNull(adiciona(fila, comentario(artigo.getId(), "Recusado")));
+
+		fila.close();
+
+		assertEquals("Aceito", comentarioDao.readComentario(aceito).getTexto());
+	}
+
+	@Test
+	public void testaComentarioRecusadoNaoDesfazOsOutros() throws SQLException {
+
+		FilaDeComentarios fila = new FilaDeComentarios(10, 100, 60000, 0, 3);
+
+		// O artigo do comentário não existe mais na gravação, e a foreign key recusa
+		// apenas esse comentário.
+		Long recusado = adiciona(fila, comentario(-1l, "Sem artigo"));
+		Long gravado = adiciona(fila, comentario(artigo.getId(), "Gravado"));
+
+		fila.close();
+
+		assertNull(comentarioDao.readComentario(recusado));
+		assertEquals("Gravado", comentarioDao.readComentario(gravado).getTexto());
+	}
+
+	@Test
+	public void testaErroInesperadoNaoParaAGravacao() throws SQLException {
+
+		// Com apenas uma vaga, o segundo comentário só entra se a vaga do primeiro
+		// for devolvida depois do erro.
+		FilaDeComentarios fila = new FilaDeComentarios(1, 100, 0, 1000, 3);
+
+		Comentario quebrado = new Comentario() {
+			@Override
+			public String getTexto() {
+				throw new IllegalStateException("Texto indisponível");
+			}
+		};
+		quebrado.setIdArtigo(artigo.getId());
+		quebrado.setUsuario("fila");
+
+		Long recusado = adiciona(fila, quebrado);
+		Long gravado = adiciona(fila, comentario(artigo.getId(), "Depois do erro"));
+		assertNotNull(gravado);
+
+		fila.close();
+
+		assertNull(comentarioDao.readComentario(recusado));
+		assertEquals("Depois do erro", comentarioDao.readComentario(gravado).getTexto());
+	}
+
+	@Test
+	public void testaFalhaTemporariaRepetidaSemDescartar() throws SQLException {
+
+		FilaDeComentarios fila = new FilaDeComentarios(10, 100, 60000, 0, 3);
+
+		// A primeira escrita falha com um erro que não é do comentário, e é
+		// desfeita inteira.
+		Comentario instavel = new Comentario() {
+
+			private int leituras;
+
+			@Override
+			public String getTexto() {
+				if (leituras++ == 0)
+					FilaDeComentariosTest.<RuntimeException>lanca(new SQLException("Falha temporária"));
+				return super.getTexto();
+			}
+		};
+		instavel.setIdArtigo(artigo.getId());
+		instavel.setUsuario("fila");
+		instavel.setTexto("Na segunda tentativa");
+
+		Long anterior = adiciona(fila, comentario(artigo.getId(), "Antes da falha"));
+		Long repetido = adiciona(fila, instavel);
+
+		fila.close();
+
+		assertEquals("Antes da falha", comentarioDao.readComentario(anterior).getTexto());
+		assertEquals("Na segunda tentativa", comentarioDao.readComentario(repetido).getTexto());
+	}
+
+	// Lança a exceção verificada sem declará-la, como faria o driver.
+	@SuppressWarnings("unchecked")
+	private static <E extends Throwable> void lanca(Throwable erro) throws E {
+		throw (E) erro;
+	}
+}
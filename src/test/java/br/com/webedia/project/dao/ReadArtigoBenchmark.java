@@ -0,0 +1,146 @@
+package br.com.webedia.project.dao;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import br.com.webedia.project.connection.ConnectionFactory;
+import br.com.webedia.project.model.Artigo;
+import br.com.webedia.project.model.Autor;
+import br.com.webedia.project.model.Comentario;
+
+/**
+ * <h1>ReadArtigoBenchmark</h1>
+ * <p>
+ * Benchmark de latência da leitura de um artigo pelo permalink. Compara o
+ * {@link ArtigoDAO#readArtigo(String, Long) readArtigo}, que lê o artigo e os
+ * autores em uma consulta e os comentários em outra, com a leitura anterior, de
+ * três consultas.
+ * </p>
+ * <p>
+ * O nome não segue o padrão dos testes, então o benchmark não roda junto com a
+ * suíte. Para rodar:
+ * </p>
+ *
+ * <pre>
+ * mvn test -Dtest=ReadArtigoBenchmark -Dwebedia.benchmark.iteracoes=20000
+ * </pre>
+ *
+ * @author Victor Corrêa
+ *
+ */
+public class ReadArtigoBenchmark {
+
+	private static final int ITERACOES = Integer.getInteger("webedia.benchmark.iteracoes", 5000);
+
+	// Uma leitura do artigo pelo permalink.
+	private interface Leitura {
+		Object le(String permalink) throws SQLException;
+	}
+
+	@Test
+	public void medeLeituraPorPermalink() throws SQLException {
+
+		List<String> permalinks = listaPermalinks();
+		assertFalse(permalinks.isEmpty());
+
+		ArtigoDAO dao = new ArtigoDAO();
+
+		mede("readArtigo (2 consultas)", permalinks, permalink -> dao.readArtigo(permalink, 0l));
+		mede("anterior (3 consultas)", permalinks, ReadArtigoBenchmark::leEmTresConsultas);
+	}
+
+	// Executa a leitura e imprime os percentis da latência, em microssegundos.
+	private static void mede(String nome, List<String> permalinks, Leitura leitura) throws SQLException {
+
+		// Aquecimento, para que o JIT e o cache de statements não entrem na medição.
+		for (int i = 0; i < ITERACOES / 5; i++)
+			assertNotNull(leitura.le(permalinks.get(i % permalinks.size())));
+
+		long[] tempos = new long[ITERACOES];
+		for (int i = 0; i < ITERACOES; i++) {
+			long inicio = System.nanoTime();
+			leitura.le(permalinks.get(i % permalinks.size()));
+			tempos[i] = System.nanoTime() - inicio;
+		}
+
+		Arrays.sort(tempos);
+
+		System.out.printf("%-26s p50 %7.1f us   p90 %7.1f us   p99 %7.1f us   (%d leituras)%n", nome,
+				tempos[ITERACOES / 2] / 1000.0, tempos[ITERACOES * 9 / 10] / 1000.0,
+				tempos[ITERACOES * 99 / 100] / 1000.0, ITERACOES);
+	}
+
+	// A leitura anterior: o artigo, os autores e os comentários, cada um em uma
+	// consulta, com o permalink gerado de novo a partir do título.
+	private static Object leEmTresConsultas(String permalink) throws SQLException {
+
+		Connection con = ConnectionFactory.getReadOnlyConnection();
+
+		try {
+			Artigo artigo = new Artigo();
+
+			try (PreparedStatement stmt = con.prepareStatement("SELECT * FROM artigos WHERE permalink = ?;")) {
+				stmt.setString(1, permalink);
+				try (ResultSet rs = stmt.executeQuery()) {
+					artigo.setId(rs.getLong("idArtigo"));
+					artigo.setTitulo(rs.getString("titulo"));
+					artigo.setSubtitulo(rs.getString("subtitulo"));
+					artigo.setConteudo(rs.getString("conteudo"));
+					artigo.setDataPublicacao(rs.getString("dataPublicacao"));
+					artigo.setDataAtualizacao(rs.getString("dataAtualizacao"));
+					artigo.generatePermalink();
+				}
+			}
+
+			try (PreparedStatement stmt = con.prepareStatement(
+					"SELECT * FROM autores INNER JOIN artigoAutores ON artigoAutores.idAutor = autores.idAutor WHERE artigoAutores.idArtigo = ?;")) {
+				stmt.setLong(1, artigo.getId());
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						Autor autor = new Autor();
+						autor.setId(rs.getLong("idAutor"));
+						autor.setNome(rs.getString("nome"));
+						autor.setSobrenome(rs.getString("sobrenome"));
+						autor.setBio(rs.getString("bio"));
+						artigo.addAutor(autor);
+					}
+				}
+			}
+
+			for (Comentario comentario : new ComentarioDAO().listComentarioPorArtigo(artigo.getId(), con))
+				artigo.addComentario(comentario);
+
+			return artigo;
+
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+	}
+
+	private static List<String> listaPermalinks() throws SQLException {
+
+		List<String> permalinks = new ArrayList<>();
+
+		Connection con = ConnectionFactory.getReadOnlyConnection();
+
+		try (PreparedStatement stmt = con.prepareStatement("SELECT permalink FROM artigos ORDER BY idArtigo;");
+				ResultSet rs = stmt.executeQuery()) {
+			while (rs.next())
+				permalinks.add(rs.getString(1));
+		} finally {
+			ConnectionFactory.closeConnection(con);
+		}
+
+		return permalinks;
+	}
+}
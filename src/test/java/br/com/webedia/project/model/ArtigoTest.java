@@ -1,6 +1,7 @@
 package br.com.webedia.project.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -33,6 +34,23 @@ public class ArtigoTest {
 
 	}
 
+	@Test
+	public void testaValidateContentSemConsultarAutores() {
+		Artigo artigo = new Artigo();
+
+		// O autor não existe no banco, mas a validação do conteúdo não o consulta.
+		Autor autor = new Autor();
+		autor.setId(-1l);
+		artigo.addAutor(autor);
+
+		artigo.setTitulo("Título Qualquer");
+		artigo.setSubtitulo("Subtítulo Qualquer");
+		artigo.setConteudo("Conteúdo do Artigo");
+
+		assertNull(artigo.validateContent());
+		assertEquals(500, artigo.validate().getStatus());
+	}
+
 	@Test
 	public void testaGeneratePermalink() {
 		Artigo artigo = new Artigo();
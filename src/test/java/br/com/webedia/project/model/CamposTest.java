@@ -0,0 +1,64 @@
+package br.com.webedia.project.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CamposTest {
+
+	@Test
+	public void testaColunas() {
+
+		List<String> colunas = Arrays.asList("idArtigo", "permalink", "titulo", "conteudo");
+
+		// Cenário 1: Sem o parâmetro, todas as colunas.
+		assertEquals("artigos.*", Campos.parse(null, Artigo.class).colunas("artigos", colunas, "idArtigo"));
+
+		// Cenário 2: Apenas as colunas escolhidas e as obrigatórias, na ordem da
+		// tabela. As relações não são colunas.
+		Campos campos = Campos.parse("titulo, autores,permalink", Artigo.class);
+		assertEquals("artigos.idArtigo, artigos.permalink, artigos.titulo",
+				campos.colunas("artigos", colunas, "idArtigo"));
+		assertTrue(campos.contem("autores"));
+		assertFalse(campos.contem("conteudo"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testaCampoInvalido() {
+		Campos.parse("titulo,senha", Artigo.class);
+	}
+
+	@Test
+	public void testaJsonApenasComOsCampos() {
+
+		Autor autor = new Autor();
+		autor.setId(1l);
+		autor.setNome("Nome");
+		autor.setSobrenome("Sobrenome");
+
+		List<Autor> autores = new ArrayList<>();
+		autores.add(autor);
+
+		// Os campos da lista paginada continuam no Json.
+		String json = Campos.parse("nome", Autor.class).toJson(new ListaDeAutores(autores, 5, 1));
+		assertTrue(json.contains("\"totalPaginas\":1"));
+		assertTrue(json.contains("\"autores\":[{\"nome\":\"Nome\"}]"));
+
+		// Sem o parâmetro, o Json é o mesmo de antes.
+		assertEquals(autor.toJson(), Campos.todos(Autor.class).toJson(autor));
+	}
+
+	@Test
+	public void testaRelacoesRestritasPelosCampos() {
+
+		Relacoes relacoes = Relacoes.TODAS.restringe(Campos.parse("titulo,autores", Artigo.class));
+		assertTrue(relacoes.isAutores());
+		assertFalse(relacoes.isComentarios());
+	}
+}
@@ -0,0 +1,46 @@
+package br.com.webedia.project.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class CursorDeArtigosTest {
+
+	@Test
+	public void testaCursorIdaEVolta() {
+
+		Artigo artigo = new Artigo();
+		artigo.setId(42l);
+		artigo.setDataPublicacao("2018-11-16 17:28:09");
+
+		String texto = CursorDeArtigos.of(artigo).toString();
+
+		// O cursor é opaco e pode ser usado na URL sem escape.
+		assertFalse(texto.contains(" "));
+		assertFalse(texto.contains("="));
+
+		CursorDeArtigos cursor = CursorDeArtigos.parse(texto);
+		assertEquals("2018-11-16 17:28:09", cursor.getDataPublicacao());
+		assertEquals(42l, cursor.getIdArtigo());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testaCursorInvalido() {
+		CursorDeArtigos.parse("lixo!");
+	}
+
+	@Test
+	public void testaNextUrl() {
+
+		// Cenário 1: Página com cursor seguinte.
+		PaginaDeArtigos pagina = new PaginaDeArtigos(new ArrayList<>(), new CursorDeArtigos("2018", 1l), 5);
+		assertEquals("http://localhost:8080/artigos?after=MjAxOHwx&size=5", pagina.getNext());
+
+		// Cenário 2: Última página.
+		pagina = new PaginaDeArtigos(new ArrayList<>(), null, 5);
+		assertEquals("", pagina.getNext());
+	}
+}
@@ -0,0 +1,31 @@
+package br.com.webedia.project.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ImportacaoDeArtigosTest {
+
+	@Test
+	public void testaResultadosNumeradosNaOrdem() {
+
+		Artigo artigo = new Artigo();
+		artigo.setId(7l);
+		artigo.setPermalink("artigo-importado");
+
+		ImportacaoDeArtigos importacao = new ImportacaoDeArtigos();
+		importacao.adiciona(ImportacaoDeArtigos.Resultado.criado(artigo));
+		importacao.adiciona(ImportacaoDeArtigos.Resultado.erro(500, "Conteúdo vazio!"));
+		importacao.adiciona(ImportacaoDeArtigos.Resultado.criado(artigo));
+
+		assertEquals(2, importacao.getImportados());
+		assertEquals(1, importacao.getFalhas());
+		assertEquals(3, importacao.getResultados().get(2).getItem());
+
+		// Os campos nulos não aparecem no Json de cada resultado.
+		String json = importacao.toJson();
+		assertTrue(json.contains("{\"item\":1,\"status\":201,\"idArtigo\":7,\"permalink\":\"artigo-importado\"}"));
+		assertTrue(json.contains("{\"item\":2,\"status\":500,\"erro\":\"Conteúdo vazio!\"}"));
+	}
+}
@@ -0,0 +1,75 @@
+package br.com.webedia.project.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PaginacaoTest {
+
+	@Test
+	public void testaLimiteEOffset() {
+
+		// Cenário 1: Teste padrão, 10 itens com 3 por página.
+		Paginacao paginacao = new Paginacao(10, 3, 2);
+		assertEquals(2, paginacao.getPagina());
+		assertEquals(4, paginacao.getTotalPaginas());
+		assertEquals(3, paginacao.getSize());
+		assertEquals(3, paginacao.getOffset());
+
+		// Cenário 2: Página maior que o total é ajustada para a última.
+		paginacao = new Paginacao(10, 3, 50);
+		assertEquals(4, paginacao.getPagina());
+		assertEquals(9, paginacao.getOffset());
+
+		// Cenário 3: Tamanho maior que o total é ajustado para o total.
+		paginacao = new Paginacao(10, 75, 1);
+		assertEquals(10, paginacao.getSize());
+		assertEquals(1, paginacao.getTotalPaginas());
+
+		// Cenário 4: Números negativos usam os valores padrões.
+		paginacao = new Paginacao(10, -10, -10);
+		assertEquals(1, paginacao.getPagina());
+		assertEquals(5, paginacao.getSize());
+		assertEquals(0, paginacao.getOffset());
+	}
+
+	@Test
+	public void testaListaVazia() {
+
+		Paginacao paginacao = new Paginacao(0, 5, 1);
+		assertEquals(0, paginacao.getTotalPaginas());
+		assertEquals(0, paginacao.getSize());
+		assertEquals(0, paginacao.getOffset());
+
+		ListaDeAutores lista = new ListaDeAutores(new ArrayList<>(), paginacao);
+		assertEquals("", lista.getNext());
+		assertEquals("", lista.getPrev());
+	}
+
+	@Test
+	public void testaMesmoResultadoDaPaginacaoEmMemoria() {
+
+		List<Autor> autores = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Autor autor = new Autor();
+			autor.setId(Long.valueOf(i));
+			autores.add(autor);
+		}
+
+		// A página buscada com LIMIT e OFFSET gera o mesmo Json da lista completa.
+		for (int size = -1; size <= 11; size++) {
+			for (int pagina = -1; pagina <= 12; pagina++) {
+
+				Paginacao paginacao = new Paginacao(autores.size(), size, pagina);
+				List<Autor> daPagina = new ArrayList<>(autores.subList(paginacao.getOffset(),
+						Math.min(autores.size(), paginacao.getOffset() + paginacao.getSize())));
+
+				assertEquals(new ListaDeAutores(autores, size, pagina).toJson(),
+						new ListaDeAutores(daPagina, paginacao).toJson());
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package br.com.webedia.project.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RelacoesTest {
+
+	@Test
+	public void testaParse() {
+
+		// Cenário 1: Sem o parâmetro, todas as relações são carregadas.
+		assertSame(Relacoes.TODAS, Relacoes.parse(null));
+		assertSame(Relacoes.TODAS, Relacoes.parse(""));
+
+		// Cenário 2: Nenhuma relação.
+		assertSame(Relacoes.NENHUMA, Relacoes.parse("none"));
+
+		// Cenário 3: Apenas os autores.
+		Relacoes relacoes = Relacoes.parse("autores");
+		assertTrue(relacoes.isAutores());
+		assertFalse(relacoes.isComentarios());
+
+		// Cenário 4: Autores e os comentários mais recentes.
+		relacoes = Relacoes.parse("autores, comentarios:3");
+		assertTrue(relacoes.isAutores());
+		assertTrue(relacoes.isComentarios());
+		assertEquals(3, relacoes.getLimiteComentarios());
+		assertFalse(relacoes.isResumo());
+
+		// Cenário 5: Resumo no lugar dos comentários.
+		relacoes = Relacoes.parse("autores,resumo");
+		assertTrue(relacoes.isResumo());
+		assertFalse(relacoes.isComentarios());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testaValorInvalido() {
+		Relacoes.parse("autores,tags");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testaLimiteInvalido() {
+		Relacoes.parse("comentarios:0");
+	}
+
+	@Test
+	public void testaRelacoesOmitidasNoJson() {
+
+		Artigo artigo = new Artigo();
+		artigo.setTitulo("Título");
+
+		// As listas vazias continuam no Json quando as relações são carregadas.
+		assertTrue(artigo.toJson().contains("\"autores\":[]"));
+
+		// As relações que não foram carregadas não aparecem.
+		artigo.omiteRelacoes(Relacoes.parse("autores"));
+		assertTrue(artigo.toJson().contains("\"autores\":[]"));
+		assertFalse(artigo.toJson().contains("comentarios"));
+		assertTrue(artigo.getComentarios().isEmpty());
+	}
+}